@@ -0,0 +1,145 @@
+package alg;
+
+import generator.HistoryGenerator;
+import generator.MemoryHistoryWriter;
+import generator.WorkloadConfig;
+import graph.GraphType;
+import history.History;
+import history.TransactionOrder;
+import org.openjdk.jmh.annotations.*;
+import taps.TAP;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One phase of {@link Plume#validate()} per benchmark, every invocation runs on a fresh Plume whose earlier
+ * phases are done in the setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PlumeBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Input {
+        @Param({"10", "50"})
+        int sessions;
+
+        @Param({"200"})
+        int txnsPerSession;
+
+        @Param({"1000"})
+        int keys;
+
+        @Param({"0.5"})
+        double readRatio;
+
+        @Param({"PLUME", "PLUME_CHUNKED_TC", "PLUME_WITHOUT_TC"})
+        AlgType algType;
+
+        @Param({"HASH", "DENSE"})
+        GraphType graphType;
+
+        @Param({"ROUND_ROBIN", "TOPOLOGICAL"})
+        TransactionOrder transactionOrder;
+
+        History<Long, Long> history;
+
+        @Setup(Level.Trial)
+        public void generate() throws IOException {
+            var config = new WorkloadConfig();
+            config.setSessions(sessions);
+            config.setTxnsPerSession(txnsPerSession);
+            config.setKeys(keys);
+            config.setReadRatio(readRatio);
+            config.setSeed(42);
+            config.inject(TAP.FracturedReadAO, 0.01).inject(TAP.ConflictAO, 0.01);
+            var writer = new MemoryHistoryWriter();
+            new HistoryGenerator(config).generate(writer);
+            writer.close();
+            history = writer.getHistory();
+        }
+
+        Plume<Long, Long> newPlume() {
+            var plume = new Plume<>(algType, history, IsolationLevel.TCC, false);
+            plume.setGraphType(graphType);
+            plume.setTransactionOrder(transactionOrder);
+            return plume;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Empty {
+        Plume<Long, Long> plume;
+
+        @Setup(Level.Invocation)
+        public void setup(Input input) {
+            plume = input.newPlume();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class AfterBuildCO {
+        Plume<Long, Long> plume;
+
+        @Setup(Level.Invocation)
+        public void setup(Input input) {
+            plume = input.newPlume();
+            plume.buildCO();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class AfterCheckCOTAP {
+        Plume<Long, Long> plume;
+
+        @Setup(Level.Invocation)
+        public void setup(Input input) {
+            plume = input.newPlume();
+            plume.buildCO();
+            plume.checkCOTAP();
+            plume.syncClock();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class AfterBuildAO {
+        Plume<Long, Long> plume;
+
+        @Setup(Level.Invocation)
+        public void setup(Input input) {
+            plume = input.newPlume();
+            plume.buildCO();
+            plume.checkCOTAP();
+            plume.syncClock();
+            plume.buildAO();
+        }
+    }
+
+    @Benchmark
+    public Object buildCO(Empty state) {
+        state.plume.buildCO();
+        return state.plume;
+    }
+
+    @Benchmark
+    public Object checkCOTAP(AfterBuildCO state) {
+        state.plume.checkCOTAP();
+        return state.plume.getBadPatterns();
+    }
+
+    @Benchmark
+    public Object buildAO(AfterCheckCOTAP state) {
+        state.plume.buildAO();
+        return state.plume;
+    }
+
+    @Benchmark
+    public Object checkAOTAP(AfterBuildAO state) {
+        state.plume.checkAOTAP();
+        return state.plume.getBadPatterns();
+    }
+}
@@ -0,0 +1,83 @@
+package graph;
+
+import history.Session;
+import history.Transaction;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * addEdge() and get() of the graph backends on random graphs with a fixed out-degree.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GraphBenchmark {
+    private static final Edge.Type[] TYPES = {Edge.Type.SO, Edge.Type.WR, Edge.Type.CO, Edge.Type.AO};
+
+    @Param({"10000", "100000"})
+    int vertices;
+
+    @Param({"4"})
+    int degree;
+
+    @Param({"HASH", "DENSE"})
+    GraphType graphType;
+
+    List<Node<Long, Long>> nodes;
+    int[] targets;
+    List<Edge<Long>> edges;
+    Graph<Long, Long> filled;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var session = new Session<Long, Long>(0);
+        nodes = new ArrayList<>(vertices);
+        for (int i = 0; i < vertices; i++) {
+            nodes.add(new NormalNode<>(null, new Transaction<>(i, session)));
+        }
+        var random = new Random(42);
+        targets = new int[vertices * degree];
+        edges = new ArrayList<>(targets.length);
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = random.nextInt(vertices);
+            var type = TYPES[random.nextInt(TYPES.length)];
+            edges.add(new Edge<>(type, type == Edge.Type.WR ? (long) random.nextInt(100) : null));
+        }
+        filled = fill();
+    }
+
+    private Graph<Long, Long> newGraph() {
+        return graphType == GraphType.DENSE ? new DenseGraph<>() : new HashGraph<>();
+    }
+
+    private Graph<Long, Long> fill() {
+        var graph = newGraph();
+        nodes.forEach(graph::addVertex);
+        for (int i = 0; i < targets.length; i++) {
+            graph.addEdge(nodes.get(i / degree), nodes.get(targets[i]), edges.get(i));
+        }
+        return graph;
+    }
+
+    @Benchmark
+    public Object addEdge() {
+        return fill();
+    }
+
+    @Benchmark
+    public void get(Blackhole blackhole) {
+        for (var node : nodes) {
+            for (var successor : filled.get(node)) {
+                blackhole.consume(successor);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * join() and isLessThanOrEqual() of the clock backends on the same causal history: one clock per session,
+ * advanced by random joins between sessions. join() is measured on a copy, so the copy is part of its cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ClockBenchmark {
+    @Param({"8", "64", "512"})
+    int sessions;
+
+    TreeClock[] treeClocks;
+    ChunkedTreeClock[] chunkedClocks;
+    IntVectorClock[] intVectorClocks;
+    VectorClock[] vectorClocks;
+    int[] pairs;
+    int next = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        treeClocks = new TreeClock[sessions];
+        chunkedClocks = new ChunkedTreeClock[sessions];
+        intVectorClocks = new IntVectorClock[sessions];
+        vectorClocks = new VectorClock[sessions];
+        for (short s = 0; s < sessions; s++) {
+            treeClocks[s] = new TreeClock(s, sessions);
+            chunkedClocks[s] = new ChunkedTreeClock(s, sessions);
+            intVectorClocks[s] = new IntVectorClock(s, sessions);
+            vectorClocks[s] = new VectorClock(s, sessions);
+            treeClocks[s].incrementBy(1);
+            chunkedClocks[s].incrementBy(1);
+            intVectorClocks[s].incrementBy(1);
+            vectorClocks[s].incrementBy(1);
+        }
+
+        var random = new Random(42);
+        for (int i = 0; i < sessions * 10; i++) {
+            int to = random.nextInt(sessions);
+            int from = random.nextInt(sessions);
+            if (to == from) {
+                continue;
+            }
+            treeClocks[to].join(treeClocks[from]);
+            treeClocks[to].incrementBy(1);
+            chunkedClocks[to].join(chunkedClocks[from]);
+            chunkedClocks[to].incrementBy(1);
+            intVectorClocks[to].join(intVectorClocks[from]);
+            intVectorClocks[to].incrementBy(1);
+            vectorClocks[to].join(vectorClocks[from]);
+            vectorClocks[to].incrementBy(1);
+        }
+
+        pairs = new int[1024];
+        for (int i = 0; i < pairs.length; i += 2) {
+            pairs[i] = random.nextInt(sessions);
+            do {
+                pairs[i + 1] = random.nextInt(sessions);
+            } while (pairs[i + 1] == pairs[i]);
+        }
+    }
+
+    private int pair() {
+        next = (next + 2) & (pairs.length - 1);
+        return next;
+    }
+
+    @Benchmark
+    public Object treeClockJoin() {
+        int i = pair();
+        var clock = new TreeClock(treeClocks[pairs[i]]);
+        clock.join(treeClocks[pairs[i + 1]]);
+        return clock;
+    }
+
+    @Benchmark
+    public Object chunkedTreeClockJoin() {
+        int i = pair();
+        var clock = chunkedClocks[pairs[i]].snapshot();
+        clock.join(chunkedClocks[pairs[i + 1]]);
+        return clock;
+    }
+
+    @Benchmark
+    public Object intVectorClockJoin() {
+        int i = pair();
+        var clock = new IntVectorClock(intVectorClocks[pairs[i]]);
+        clock.join(intVectorClocks[pairs[i + 1]]);
+        return clock;
+    }
+
+    @Benchmark
+    public Object vectorClockJoin() {
+        int i = pair();
+        var clock = new VectorClock(vectorClocks[pairs[i]]);
+        clock.join(vectorClocks[pairs[i + 1]]);
+        return clock;
+    }
+
+    @Benchmark
+    public boolean treeClockIsLessThanOrEqual() {
+        int i = pair();
+        return treeClocks[pairs[i]].isLessThanOrEqual(treeClocks[pairs[i + 1]]);
+    }
+
+    @Benchmark
+    public boolean chunkedTreeClockIsLessThanOrEqual() {
+        int i = pair();
+        return chunkedClocks[pairs[i]].isLessThanOrEqual(chunkedClocks[pairs[i + 1]]);
+    }
+
+    @Benchmark
+    public boolean intVectorClockIsLessThanOrEqual() {
+        int i = pair();
+        return intVectorClocks[pairs[i]].isLessThanOrEqual(intVectorClocks[pairs[i + 1]]);
+    }
+
+    @Benchmark
+    public boolean vectorClockIsLessThanOrEqual() {
+        int i = pair();
+        return vectorClocks[pairs[i]].isLessThanOrEqual(vectorClocks[pairs[i + 1]]);
+    }
+}
@@ -0,0 +1,46 @@
+package util;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link VectorOps} on jdk.incubator.vector, only compiled by the maven profile {@code simd}.
+ */
+class SimdVectorOps extends VectorOps {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    void max(int[] a, int[] b) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(a.length); i < bound; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, a, i).max(IntVector.fromArray(SPECIES, b, i)).intoArray(a, i);
+        }
+        for (; i < a.length; i++) {
+            if (b[i] > a[i]) {
+                a[i] = b[i];
+            }
+        }
+    }
+
+    @Override
+    boolean isLessThanOrEqual(int[] a, int[] b) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(a.length); i < bound; i += SPECIES.length()) {
+            if (IntVector.fromArray(SPECIES, a, i).compare(VectorOperators.GT, IntVector.fromArray(SPECIES, b, i)).anyTrue()) {
+                return false;
+            }
+        }
+        for (; i < a.length; i++) {
+            if (a[i] > b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    String name() {
+        return "simd " + SPECIES.vectorBitSize() + " bits";
+    }
+}
@@ -1,72 +1,163 @@
 import alg.AlgType;
 import alg.Plume;
-import alg.PlumeList;
 import alg.IsolationLevel;
-import loader.ElleHistoryLoader;
-import loader.TextHistoryLoader;
+import alg.Verdicts;
+import cli.BatchCommand;
+import cli.ConvertCommand;
+import cli.FollowCommand;
+import cli.GenerateCommand;
+import cli.HistoryFiles;
+import cli.ServeCommand;
+import graph.GraphType;
+import history.TransactionOrder;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
 import picocli.CommandLine.Parameters;
-import util.DFSCounter;
+import picocli.CommandLine.Spec;
+import util.EventCounter;
+import util.Metrics;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.TreeSet;
 import java.util.concurrent.Callable;
 
-@Command(name = "Plume", mixinStandardHelpOptions = true, version = "Plume 1.0", description = "Check if the history satisfies transactional causal consistency.\n")
+@Command(name = "Plume", mixinStandardHelpOptions = true, version = "Plume 1.0", description = "Check if the history satisfies transactional causal consistency.\n",
+        subcommands = {FollowCommand.class, ConvertCommand.class, GenerateCommand.class, BatchCommand.class, ServeCommand.class})
 public class Main implements Callable<Integer> {
 
-    @Parameters(index = "0", description = "Input file")
+    @Spec
+    private CommandSpec spec;
+
+    @Parameters(index = "0", arity = "0..1", description = "Input file")
     private File file;
 
     @Option(names = "-t", description = "Candidates: ${COMPLETION-CANDIDATES}")
     private AlgType algType;
 
-    @Option(names = "-i", description = "Candidates: ${COMPLETION-CANDIDATES}")
-    private IsolationLevel isolationLevel;
+    @Option(names = "-i", split = ",", description = "One or more levels, checked in a single run. Candidates: ${COMPLETION-CANDIDATES}")
+    private List<IsolationLevel> isolationLevels;
 
-    @Option(names = "--enable-graphviz", description = "Use graphviz to visualize violation")
+    @Option(names = "--enable-graphviz", description = "Render the witnesses to graphviz/ after the check")
     private boolean enableGraphviz;
 
+    @Option(names = "--json", description = "Print the verdicts as JSON, with the witnesses of each TAP")
+    private boolean json;
+
+    @Option(names = "--witnesses", description = "Witnesses kept per TAP for --json and --enable-graphviz (default: ${DEFAULT-VALUE})")
+    private int witnesses = 3;
+
     @Option(names = "--count-dfs", description = "Record DFS count")
     private boolean countDFS;
 
+    @Option(names = "--threads", description = "Number of threads used by the loader and the traversal (default: ${DEFAULT-VALUE})")
+    private int threads = 1;
+
+    @Option(names = "--order", description = "Order in which transactions are added, candidates: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})")
+    private TransactionOrder transactionOrder = TransactionOrder.ROUND_ROBIN;
+
+    @Option(names = "--graph", description = "Graph backend, candidates: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})")
+    private GraphType graphType = GraphType.HASH;
+
+    @Option(names = "--fail-fast", description = "Stop as soon as the verdict of every level is known")
+    private boolean failFast;
+
+    @Option(names = "--tap-budget", description = "Count at most this many occurrences of each TAP, stop once every TAP left to find has them, 0 for no budget (default: ${DEFAULT-VALUE})")
+    private int tapBudget = 0;
+
+    @Option(names = "--time-limit", description = "Stop after this many seconds, 0 for no limit (default: ${DEFAULT-VALUE})")
+    private long timeLimit = 0;
+
+    @Option(names = "--metrics", description = "Print phase timings and counters after the verdict. Candidates: ${COMPLETION-CANDIDATES}")
+    private Metrics.Format metricsFormat;
+
+    @Option(names = "--metrics-file", description = "Write the metrics to this file instead of stdout")
+    private File metricsFile;
+
+    private Metrics metrics = Metrics.none();
+
     @Override
-    public Integer call()  {
+    public Integer call() throws IOException {
+        if (file == null) {
+            throw new ParameterException(spec.commandLine(), "Missing required parameter: '<file>'");
+        }
+        EventCounter.DFS_VISITS.setEnabled(countDFS);
         Runtime.getRuntime().addShutdownHook(new Thread() {
             @Override
             public void run() {
                 if (countDFS) {
-                    System.out.println("DFS count: " + DFSCounter.getCount());
+                    System.out.println("DFS count: " + EventCounter.DFS_VISITS.getCount());
                 }
             }
         });
-        if (algType.equals(AlgType.PLUME_LIST)) {
-            var historyLoader = new ElleHistoryLoader(file);
-            var history = historyLoader.loadHistory();
-            var plume = new PlumeList<>(algType, history, isolationLevel, enableGraphviz);
-            plume.validate();
-            if (plume.getBadPatterns().size() > 0) {
-                System.out.println("REJECT");
-                System.out.println(plume.getBadPatterns());
-            } else {
-                System.out.println("ACCEPT");
-            }
-        } else {
-            var historyLoader = new TextHistoryLoader(file);
-            var history = historyLoader.loadHistory();
-            var plume = new Plume<>(algType, history, isolationLevel, enableGraphviz);
-            plume.validate();
-            if (plume.getBadPatterns().size() > 0) {
-                System.out.println("REJECT");
-                System.out.println(plume.getBadPatterns());
-            } else {
-                System.out.println("ACCEPT");
-            }
+        if (isolationLevels == null || isolationLevels.isEmpty()) {
+            throw new ParameterException(spec.commandLine(), "Missing required option: '-i'");
+        }
+        // the strongest level yields the verdicts of the weaker ones
+        var isolationLevel = Collections.max(isolationLevels);
+        if (metricsFormat != null) {
+            metrics = Metrics.exclusive();
+        }
+        var plume = metrics.phase("load", () -> HistoryFiles.load(file, algType, isolationLevel, enableGraphviz, threads));
+        check(plume);
+        if (metricsFormat != null) {
+            printMetrics();
         }
         return 0;
     }
 
+    private void printMetrics() throws IOException {
+        var text = metrics.export(metricsFormat);
+        if (metricsFile == null) {
+            System.out.println(text);
+        } else {
+            Files.writeString(metricsFile.toPath(), text + System.lineSeparator());
+        }
+    }
+
+    private void check(Plume<?, ?> plume) {
+        plume.setParallelism(threads);
+        plume.setGraphType(graphType);
+        plume.setTransactionOrder(transactionOrder);
+        plume.setFailFast(failFast);
+        plume.setVerdictLevels(EnumSet.copyOf(isolationLevels));
+        plume.setTapBudget(tapBudget);
+        plume.setTimeLimit(timeLimit * 1000);
+        plume.setMetrics(metrics);
+        plume.setVerbose(!json);
+        if (json || enableGraphviz) {
+            plume.setWitnessLimit(witnesses);
+        }
+        plume.validate();
+        if (json) {
+            System.out.println(Verdicts.toJson(plume, isolationLevels));
+            return;
+        }
+        if (isolationLevels.size() == 1) {
+            printVerdict(plume, isolationLevels.get(0));
+            return;
+        }
+        for (var level : new TreeSet<>(isolationLevels)) {
+            System.out.print(level + ": ");
+            printVerdict(plume, level);
+        }
+    }
+
+    private static void printVerdict(Plume<?, ?> plume, IsolationLevel level) {
+        var verdict = Verdicts.verdict(plume, level);
+        System.out.println(verdict);
+        if (verdict.equals("REJECT")) {
+            System.out.println(plume.getBadPatterns(level));
+        }
+    }
+
     public static void main(String... args) {
         int exitCode = new CommandLine(new Main()).execute(args);
         System.exit(exitCode);
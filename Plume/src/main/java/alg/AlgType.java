@@ -2,6 +2,7 @@ package alg;
 
 public enum AlgType {
     PLUME,
+    PLUME_CHUNKED_TC,
     PLUME_WITHOUT_TC,
     PLUME_WITHOUT_VEC,
     PLUME_LIST,
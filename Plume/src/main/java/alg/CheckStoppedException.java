@@ -0,0 +1,17 @@
+package alg;
+
+/**
+ * Unwinds the running phase of {@link Plume#validate()} once its stop condition holds, the reason is kept
+ * by the Plume instance.
+ */
+public class CheckStoppedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public CheckStoppedException() {
+        super(null, null, false, false);
+    }
+
+    public CheckStoppedException(Throwable cause) {
+        super(null, cause, false, false);
+    }
+}
@@ -0,0 +1,300 @@
+package alg;
+
+import graph.Edge;
+import graph.Node;
+import history.Operation;
+import history.Transaction;
+import javafx.util.Pair;
+import lombok.Getter;
+import lombok.Setter;
+import taps.TAP;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Feeds transactions into the CO construction of a {@link Plume} instance as they arrive.
+ * <p>
+ * TAPs found while adding a transaction are reported immediately. Reads resolved since the last checkpoint
+ * are checked every {@code checkpointInterval} transactions, and the AO phase is run on the current graph
+ * every {@code aoInterval} transactions. Verdicts before {@link #close()} are early warnings: a checkpoint
+ * only sees the transactions consumed so far, so close() runs the offline traversal once more and its
+ * result equals the one of {@link Plume#validate()} on the whole history.
+ * <p>
+ * With garbage collection enabled, a transaction that CO-precedes the latest transaction of every session also
+ * precedes every transaction still to come, so once its reads are checked and each of its writes is superseded
+ * by such a transaction it can only be the first one of a TAP with future transactions, through a stale read.
+ * It is then dropped and its writes are replaced by {@link RetiredWrite}s. The verdict is no longer exact. Apart from
+ * the thin air reads below, every reported TAP is one of the whole history, and the CO-level ones through a collected transaction are reported via
+ * the superseding write. AO-level TAPs may be missed: a later read of a collected write can order two collected
+ * transactions by AO, and the triangles through that edge are never searched.
+ * <p>
+ * Any later read may name a collected write, so RetiredWrites are kept up to {@code retiredWriteLimit} and the
+ * oldest ones are dropped beyond it. A read of a dropped write, earlier or later, is left without a writer and
+ * reported as a thin air read. The memory is bounded by that limit plus the transactions that cannot be collected: the ones not
+ * dominated yet, the ones with reads still waiting for their write, and the latest writer of each variable.
+ */
+public class OnlinePlume<VarType, ValType> {
+    @Getter
+    private final Plume<VarType, ValType> plume;
+    private final Consumer<TAP> listener;
+    private final int checkpointInterval;
+    private final int aoInterval;
+
+    private final Set<TAP> reported = EnumSet.noneOf(TAP.class);
+    private final List<Operation<VarType, ValType>> uncheckedReads = new ArrayList<>();
+
+    private boolean garbageCollection = false;
+    @Setter
+    private int retiredWriteLimit = 1_000_000;
+    // nodes of each session not collected yet, in session order
+    private final Map<Long, ArrayDeque<Node<VarType, ValType>>> sessionNodes = new HashMap<>();
+    @Getter
+    private long collectedCount = 0;
+
+    @Getter
+    private long transactionCount = 0;
+    private long lastCheckpoint = 0;
+    private long lastAOCheckpoint = 0;
+
+    public OnlinePlume(Plume<VarType, ValType> plume, Consumer<TAP> listener, int checkpointInterval, int aoInterval) {
+        this.plume = plume;
+        this.listener = listener;
+        this.checkpointInterval = checkpointInterval;
+        this.aoInterval = aoInterval;
+    }
+
+    public void setGarbageCollection(boolean garbageCollection) {
+        if (garbageCollection && plume instanceof PlumeList) {
+            throw new IllegalArgumentException("Garbage collection only supports read-write histories");
+        }
+        this.garbageCollection = garbageCollection;
+    }
+
+    public void accept(Transaction<VarType, ValType> txn) {
+        if (txn.getSession().getId() >= plume.history.getSessionSize()) {
+            throw new IllegalStateException(String.format("Session %d exceeds the declared %d sessions",
+                    txn.getSession().getId(), plume.history.getSessionSize()));
+        }
+
+        // reads of this txn and pending reads that its writes resolve
+        for (var op : txn.getOps()) {
+            var key = new Pair<>(op.getVariable(), op.getValue());
+            if (op.getType() == Operation.Type.READ) {
+                uncheckedReads.add(op);
+            } else if (plume.readsWithoutWrites.containsKey(key)) {
+                uncheckedReads.addAll(plume.readsWithoutWrites.get(key));
+            }
+        }
+
+        plume.addTransaction(txn);
+        transactionCount++;
+        if (garbageCollection) {
+            var sessionId = txn.getSession().getId();
+            sessionNodes.computeIfAbsent(sessionId, k -> new ArrayDeque<>()).addLast(plume.prevNodes.get(sessionId));
+        }
+        report();
+
+        if (transactionCount - lastCheckpoint >= checkpointInterval) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Check everything consumed since the previous checkpoint. TAPs found here are reported but neither their
+     * counts nor their witnesses are kept in the underlying Plume, close() recomputes them over the whole history.
+     */
+    public void checkpoint() {
+        if (transactionCount == lastCheckpoint) {
+            return;
+        }
+        lastCheckpoint = transactionCount;
+        var saved = plume.badPatternCounter.snapshot();
+        var savedWitnesses = plume.witnesses.sizes();
+
+        // pending reads of aborted writes will never be resolved
+        plume.readsWithoutWrites.forEach((key, pendingReads) -> {
+            if (plume.history.getAbortedWrites().contains(key)) {
+                plume.findTAP(TAP.AbortedRead, (w) -> Plume.addOps(w, pendingReads.get(0)));
+            }
+        });
+
+        var stillPending = new ArrayList<Operation<VarType, ValType>>();
+        for (var read : uncheckedReads) {
+            var key = new Pair<>(read.getVariable(), read.getValue());
+            var write = plume.writes.get(key);
+            if (write == null && !read.getValue().equals(plume.ZERO) && !plume.retiredWrites.containsKey(key)) {
+                stillPending.add(read);
+                continue;
+            }
+            plume.checkRead(read);
+            if (write != null) {
+                var writeNode = plume.op2node.get(write);
+                var readNode = plume.op2node.get(read);
+                if (!writeNode.equals(readNode)) {
+                    plume.checkCyclicCO(writeNode, readNode);
+                }
+            }
+        }
+        uncheckedReads.clear();
+        uncheckedReads.addAll(stillPending);
+
+        boolean aoChecked = plume.isolationLevel == IsolationLevel.RC;
+        if (plume.isolationLevel != IsolationLevel.RC && transactionCount - lastAOCheckpoint >= aoInterval) {
+            lastAOCheckpoint = transactionCount;
+            plume.syncClock();
+            plume.buildAO();
+            if (plume.hasAOCycle()) {
+                plume.checkAOTAP();
+            }
+            // AO edges must not leak into the CO propagation of later transactions
+            plume.graph.removeEdges(Edge.Type.AO);
+            aoChecked = true;
+        }
+
+        report();
+        if (garbageCollection && aoChecked) {
+            collect();
+        }
+        plume.badPatternCounter.restore(saved);
+        plume.witnesses.restore(savedWitnesses);
+    }
+
+    /**
+     * Run the offline traversal over everything consumed, the counts of the underlying Plume are final afterwards.
+     */
+    public void close() {
+        uncheckedReads.clear();
+        plume.checkCOTAP();
+        plume.endCOPhase();
+        if (plume.isolationLevel != IsolationLevel.RC) {
+            plume.syncClock();
+            plume.buildAO();
+            if (plume.hasAOCycle()) {
+                plume.checkAOTAP();
+            }
+        }
+        report();
+    }
+
+    /**
+     * Drop the transactions dominated by the latest transaction of every session, see the class comment.
+     */
+    private void collect() {
+        if (plume.prevNodes.size() < plume.history.getSessionSize()) {
+            // the first transaction of a new session may not follow anything
+            return;
+        }
+        var latest = plume.prevNodes.values();
+
+        var dominated = new HashSet<Node<VarType, ValType>>();
+        for (var nodes : sessionNodes.values()) {
+            for (var node : nodes) {
+                if (latest.contains(node) || !latest.stream().allMatch(node::canReachByCO)) {
+                    break;
+                }
+                dominated.add(node);
+            }
+        }
+        if (dominated.isEmpty()) {
+            return;
+        }
+
+        var pending = new HashSet<Transaction<VarType, ValType>>();
+        uncheckedReads.forEach((read) -> pending.add(read.getTransaction()));
+        plume.readsWithoutWrites.values().forEach((readList) -> readList.forEach((read) -> pending.add(read.getTransaction())));
+
+        var retired = new HashSet<Node<VarType, ValType>>();
+        var tombstones = new HashMap<Pair<VarType, ValType>, RetiredWrite>();
+        for (var nodes : sessionNodes.values()) {
+            // a node kept back does not hold back the rest of its session, stale reads find the SO predecessor
+            // of their transaction by session index
+            for (var it = nodes.iterator(); it.hasNext(); ) {
+                var node = it.next();
+                if (!dominated.contains(node)) {
+                    break;
+                }
+                if (retire(node, dominated, pending, tombstones)) {
+                    retired.add(node);
+                    it.remove();
+                }
+            }
+        }
+        if (retired.isEmpty()) {
+            return;
+        }
+        plume.removeTransactions(retired, tombstones);
+        collectedCount += retired.size();
+
+        var oldest = plume.retiredWrites.keySet().iterator();
+        for (int excess = plume.retiredWrites.size() - retiredWriteLimit; excess > 0; excess--) {
+            var key = oldest.next();
+            oldest.remove();
+            // reads of the dropped write no longer have a writer, they are thin air reads from now on
+            var staleReads = plume.reads.remove(key);
+            if (staleReads != null) {
+                plume.readsWithoutWrites.computeIfAbsent(key, k -> new ArrayList<>()).addAll(staleReads);
+            }
+        }
+    }
+
+    /**
+     * Whether the dominated node can be collected, if so the RetiredWrites of its writes are added to tombstones.
+     */
+    private boolean retire(Node<VarType, ValType> node, Set<Node<VarType, ValType>> dominated,
+                           Set<Transaction<VarType, ValType>> pending, Map<Pair<VarType, ValType>, RetiredWrite> tombstones) {
+        var txn = node.getTransaction();
+        if (pending.contains(txn)) {
+            return false;
+        }
+        var txnTombstones = new HashMap<Pair<VarType, ValType>, RetiredWrite>();
+        for (var op : txn.getOps()) {
+            if (op.getType() != Operation.Type.WRITE) {
+                continue;
+            }
+            var superseding = supersedingWriter(node, op.getVariable(), dominated);
+            if (superseding == null) {
+                return false;
+            }
+            var supersedingTxn = superseding.getTransaction();
+            txnTombstones.put(new Pair<>(op.getVariable(), op.getValue()), new RetiredWrite(txn.getId(),
+                    supersedingTxn.getId(), supersedingTxn.getSession().getId(), plume.sessionIndexes.get(superseding),
+                    plume.internalWrites.contains(op)));
+        }
+        tombstones.putAll(txnTombstones);
+        return true;
+    }
+
+    private Node<VarType, ValType> supersedingWriter(Node<VarType, ValType> node, VarType variable, Set<Node<VarType, ValType>> dominated) {
+        for (var writers : plume.writerIndex.get(variable)) {
+            // dominated writers are a prefix of each session
+            for (var writer : writers) {
+                if (!dominated.contains(writer)) {
+                    break;
+                }
+                if (!writer.equals(node) && node.canReachByCO(writer)) {
+                    return writer;
+                }
+            }
+        }
+        return null;
+    }
+
+    public Set<TAP> getBadPatterns() {
+        if (garbageCollection) {
+            // TAPs of collected transactions are only known from the checkpoints
+            var badPatterns = EnumSet.copyOf(reported);
+            badPatterns.addAll(plume.getBadPatterns());
+            return badPatterns;
+        }
+        return plume.getBadPatterns();
+    }
+
+    private void report() {
+        for (var tap : plume.getBadPatterns()) {
+            if (reported.add(tap)) {
+                listener.accept(tap);
+            }
+        }
+    }
+}
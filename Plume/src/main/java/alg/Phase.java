@@ -0,0 +1,43 @@
+package alg;
+
+import taps.TAP;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Phases of {@link Plume#validate()}, in execution order.
+ */
+public enum Phase {
+    BUILD_CO(TAP.NonRepeatableRead, TAP.NotMyLastWrite, TAP.NotMyOwnWrite),
+    CHECK_CO_TAP(TAP.AbortedRead, TAP.ThinAirRead, TAP.IntermediateRead, TAP.FutureRead, TAP.CyclicCO,
+            TAP.NonMonoReadCO, TAP.FracturedReadCO, TAP.COConflictAO),
+    BUILD_AO,
+    CHECK_AO_TAP(TAP.NonMonoReadCO, TAP.FracturedReadCO, TAP.COConflictAO, TAP.NonMonoReadAO, TAP.FracturedReadAO,
+            TAP.ConflictAO);
+
+    private final Set<TAP> taps;
+
+    Phase(TAP... taps) {
+        var set = EnumSet.noneOf(TAP.class);
+        set.addAll(List.of(taps));
+        this.taps = Collections.unmodifiableSet(set);
+    }
+
+    /**
+     * TAPs this phase of {@link Plume} can report, subclasses may report more, see {@link Plume#reportedTAPs(Phase)}.
+     */
+    public Set<TAP> getTAPs() {
+        return taps;
+    }
+
+    /**
+     * Name of the phase in {@link util.Metrics}.
+     */
+    public String getMetricName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
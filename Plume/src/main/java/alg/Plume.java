@@ -1,23 +1,29 @@
 package alg;
 
 import graph.*;
-import guru.nidi.graphviz.engine.Format;
 import history.History;
 import history.Operation;
 import history.Transaction;
+import history.TransactionOrder;
 import javafx.util.Pair;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.NonNull;
+import lombok.Setter;
 import taps.TAP;
-import util.DFSCounter;
+import taps.TAPCounter;
+import taps.Witness;
+import taps.WitnessCollector;
+import taps.WitnessRenderer;
+import util.Metrics;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
-
-import static guru.nidi.graphviz.engine.Graphviz.fromGraph;
-import static guru.nidi.graphviz.model.Factory.graph;
-import static guru.nidi.graphviz.model.Factory.node;
+import java.util.function.Consumer;
 
 @Data
 public class Plume<VarType, ValType> {
@@ -26,20 +32,72 @@ public class Plume<VarType, ValType> {
     protected final IsolationLevel isolationLevel;
     protected final boolean enableGraphviz;
 
-    protected final Set<TAP> badPatterns = new HashSet<>();
-    protected final Map<String, Integer> badPatternCount = new HashMap<>();
-    protected final Graph<VarType, ValType> graph = new Graph<>();
+    protected final TAPCounter badPatternCounter = new TAPCounter();
+    // TAPs found before the AO phase, the verdict of RC
+    protected final TAPCounter coPhaseCounter = new TAPCounter();
+    // witnesses of each TAP kept before the AO phase, by ordinal
+    private int[] coPhaseWitnesses = new int[TAP.values().length];
+    @Setter(AccessLevel.NONE)
+    protected Graph<VarType, ValType> graph = new HashGraph<>();
+    @Setter(AccessLevel.NONE)
+    protected ReachabilityPropagator<VarType, ValType> propagator = new ReachabilityPropagator<>(graph);
 
     protected final Map<Pair<VarType, ValType>, Operation<VarType, ValType>> writes = new HashMap<>();
     protected final Map<Pair<VarType, ValType>, List<Operation<VarType, ValType>>> reads = new HashMap<>();
     protected final Map<Pair<VarType, ValType>, List<Operation<VarType, ValType>>> readsWithoutWrites = new HashMap<>();
-    protected final Map<VarType, Set<Node<VarType, ValType>>> writeNodes = new HashMap<>();
+    protected final WriterIndex<VarType, ValType> writerIndex = new WriterIndex<>();
     protected final Map<VarType, Set<Pair<Node<VarType, ValType>, Node<VarType, ValType>>>> WREdges = new HashMap<>();
     protected final Map<Pair<Node<VarType, ValType>, Node<VarType, ValType>>, List<Pair<Operation<VarType, ValType>, Operation<VarType, ValType>>>> WRNodesToOp = new HashMap<>();
     protected final Map<Operation<VarType, ValType>, Node<VarType, ValType>> op2node = new HashMap<>();
     protected final Set<Operation<VarType, ValType>> internalWrites = new HashSet<>();
+    protected final Map<Long, Node<VarType, ValType>> prevNodes = new HashMap<>();
+    // position of each node in its session
+    protected final Map<Node<VarType, ValType>, Integer> sessionIndexes = new HashMap<>();
+    // writes of transactions collected by OnlinePlume, oldest first
+    protected final LinkedHashMap<Pair<VarType, ValType>, RetiredWrite> retiredWrites = new LinkedHashMap<>();
 
     protected Object ZERO = 0L;
+    protected int parallelism = 1;
+
+    // stop as soon as the verdict of every level of verdictLevels is known
+    protected boolean failFast = false;
+    // count at most this many occurrences of each TAP, 0 for no budget
+    protected int tapBudget = 0;
+    // levels whose verdicts are wanted, only the checked level if null
+    protected Set<IsolationLevel> verdictLevels = null;
+    // wall-clock limit of validate() in milliseconds, 0 for no limit
+    protected long timeLimit = 0;
+    // print the phase timings of validate() to stdout
+    protected boolean verbose = true;
+    // order in which buildCO adds the transactions
+    @NonNull
+    protected TransactionOrder transactionOrder = TransactionOrder.ROUND_ROBIN;
+    // reads added before their writer, each one is linked again when the writer arrives
+    @Setter(AccessLevel.NONE)
+    protected long lateReads = 0;
+    // a cycle of CO and AO edges found by the last buildAO, null if there is none
+    @Setter(AccessLevel.NONE)
+    protected List<Node<VarType, ValType>> aoCycle = null;
+    // order of the graph while buildAO adds edges, and the nodes to propagate AO reachability from
+    @Setter(AccessLevel.NONE)
+    protected IncrementalTopologicalOrder<VarType, ValType> aoOrder = null;
+    protected final Set<Node<VarType, ValType>> aoSources = new HashSet<>();
+
+    @Setter(AccessLevel.NONE)
+    protected volatile StopReason stopReason = null;
+    // phase of validate() running, or the last one that ran
+    @Setter(AccessLevel.NONE)
+    protected volatile Phase phase = Phase.BUILD_CO;
+    @Setter(AccessLevel.NONE)
+    protected final List<Phase> skippedPhases = new ArrayList<>();
+    @Setter(AccessLevel.NONE)
+    protected long deadline = Long.MAX_VALUE;
+    // measurements of validate(), none unless a caller passes its own, which may hold phases such as loading
+    @NonNull
+    protected Metrics metrics = Metrics.none();
+    // the first witnesses of each TAP, none unless setWitnessLimit is called
+    @Setter(AccessLevel.NONE)
+    protected WitnessCollector witnesses = new WitnessCollector(0);
     protected static final Map<IsolationLevel, Set<TAP>> PROHIBITED_TAPS = new HashMap<>();
     static {
         Set<TAP> RCTAPs = new HashSet<>(List.of(new TAP[]{
@@ -48,6 +106,7 @@ public class Plume<VarType, ValType> {
                 TAP.FutureRead,
                 TAP.NotMyOwnWrite,
                 TAP.NotMyLastWrite,
+                TAP.IncompatibleOrder,
                 TAP.IntermediateRead,
                 TAP.CyclicCO,
                 TAP.NonMonoReadCO,
@@ -71,375 +130,879 @@ public class Plume<VarType, ValType> {
 
 
     public void validate() {
-        long startConstruction = System.nanoTime();
-        buildCO();
-        long endConstruction = System.nanoTime();
-        long construction = (endConstruction - startConstruction) / 1_000_000;
-        System.out.println("Construction: " + construction + "ms");
-
-        long startTraversal = System.nanoTime();
-        checkCOTAP();
-        if (isolationLevel == IsolationLevel.RC) {
-            return;
-        }
-        syncClock();
-        buildAO();
-        if (!hasCircle(Edge.Type.AO)) {
+        deadline = timeLimit > 0 ? System.nanoTime() + timeLimit * 1_000_000 : Long.MAX_VALUE;
+        phase = Phase.BUILD_CO;
+        try {
+            long startConstruction = System.nanoTime();
+            metrics.phase(phase.getMetricName(), this::buildCO);
+            long endConstruction = System.nanoTime();
+            long construction = (endConstruction - startConstruction) / 1_000_000;
+            log("Construction: " + construction + "ms");
+
+            long startTraversal = System.nanoTime();
+            phase = Phase.CHECK_CO_TAP;
+            checkStop();
+            metrics.phase(phase.getMetricName(), this::checkCOTAP);
+            endCOPhase();
+            if (isolationLevel == IsolationLevel.RC) {
+                return;
+            }
+            phase = Phase.BUILD_AO;
+            checkStop();
+            boolean hasAOCycle = metrics.phase(phase.getMetricName(), () -> {
+                syncClock();
+                buildAO();
+                return hasAOCycle();
+            });
+            if (!hasAOCycle) {
+                long endTraversal = System.nanoTime();
+                long traversal = (endTraversal - startTraversal) / 1_000_000; // 转换为毫秒
+                log("Traversal: " + traversal + "ms");
+                return;
+            }
+            phase = Phase.CHECK_AO_TAP;
+            checkStop();
+            metrics.phase(phase.getMetricName(), this::checkAOTAP);
+
             long endTraversal = System.nanoTime();
             long traversal = (endTraversal - startTraversal) / 1_000_000; // 转换为毫秒
-            System.out.println("Traversal: " + traversal + "ms");
-            return;
+            log("Traversal: " + traversal + "ms");
+        } catch (CheckStoppedException e) {
+            if (phase.compareTo(Phase.CHECK_CO_TAP) <= 0) {
+                endCOPhase();
+            }
+            for (var p : Phase.values()) {
+                if (p.compareTo(phase) >= 0 && p.compareTo(lastPhase(isolationLevel)) <= 0) {
+                    skippedPhases.add(p);
+                }
+            }
+            log("Stopped by " + stopReason + " in " + phase + ", skipped " + skippedPhases);
+        } finally {
+            if (metrics.isEnabled()) {
+                recordSizes();
+            }
+            if (enableGraphviz) {
+                renderWitnesses();
+            }
         }
-        checkAOTAP();
+    }
 
-        long endTraversal = System.nanoTime();
-        long traversal = (endTraversal - startTraversal) / 1_000_000; // 转换为毫秒
-        System.out.println("Traversal: " + traversal + "ms");
+    private void renderWitnesses() {
+        metrics.phase("render", () -> {
+            var dir = new File("graphviz");
+            dir.mkdirs();
+            try {
+                WitnessRenderer.render(witnesses.getAll(), dir);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
     }
 
-    protected void buildCO() {
-        var hist = history.getFlatTransactions();
-        Map<Long, Node<VarType, ValType>> prevNodes = new HashMap<>();
+    /**
+     * Keep at most limit witnesses of each TAP, graphviz renders them after validate().
+     */
+    public void setWitnessLimit(int limit) {
+        witnesses = new WitnessCollector(limit);
+    }
 
+    public List<Witness> getWitnesses(TAP tap) {
+        return witnesses.get(tap);
+    }
+
+    /**
+     * Witnesses of tap found by the phases the verdict of level depends on, like {@link #getBadPatternCount(IsolationLevel)}.
+     */
+    public List<Witness> getWitnesses(TAP tap, IsolationLevel level) {
+        if (!PROHIBITED_TAPS.get(level).contains(tap)) {
+            return List.of();
+        }
+        if (counterOf(level) == coPhaseCounter) {
+            return witnesses.get(tap, coPhaseWitnesses[tap.ordinal()]);
+        }
+        return witnesses.get(tap);
+    }
+
+    /**
+     * Record the counts and witnesses of the CO phases, the verdict of RC when a stronger level is checked.
+     */
+    void endCOPhase() {
+        coPhaseCounter.restore(badPatternCounter.snapshot());
+        coPhaseWitnesses = witnesses.sizes();
+    }
+
+    private void recordSizes() {
+        metrics.set("late_reads", lateReads);
+        metrics.set("nodes", graph.size());
+        graph.countEdges().forEach((type, count) -> metrics.set("edges_" + type.name().toLowerCase(Locale.ROOT), count));
+    }
+
+    private void log(String message) {
+        if (verbose) {
+            System.out.println(message);
+        }
+    }
+
+    public boolean isStopped() {
+        return stopReason != null;
+    }
+
+    /**
+     * Whether every phase the verdict of level depends on ran to the end, RC only depends on the CO phases.
+     */
+    public boolean isComplete(IsolationLevel level) {
+        return skippedPhases.stream().noneMatch((p) -> p.compareTo(lastPhase(level)) <= 0);
+    }
+
+    private static Phase lastPhase(IsolationLevel level) {
+        return level == IsolationLevel.RC ? Phase.CHECK_CO_TAP : Phase.CHECK_AO_TAP;
+    }
+
+    /**
+     * Choose the graph backend, only before the first transaction is added.
+     */
+    public void setGraphType(GraphType graphType) {
+        if (graph.size() > 0) {
+            throw new IllegalStateException("The graph backend cannot change once transactions are added");
+        }
+        switch (graphType) {
+            case HASH:
+                graph = new HashGraph<>();
+                break;
+            case DENSE:
+                graph = new DenseGraph<>();
+                break;
+            default:
+                throw new RuntimeException();
+        }
+        propagator = new ReachabilityPropagator<>(graph);
+    }
+
+    protected void buildCO() {
+        var hist = history.getTransactions(transactionOrder);
         for (var txn: hist) {
+            checkTimeLimit();
+            addTransaction(txn);
+        }
+    }
 
-            // update node with prev node
-            var prev = prevNodes.get(txn.getSession().getId());
-            var node = constructNode(txn, prev);
-            graph.addVertex(node);
-            prevNodes.put(txn.getSession().getId(), node);
-            if (prev != null) {
-                graph.addEdge(prev, node, new Edge<>(Edge.Type.SO, null));
-            }
+    /**
+     * Add one transaction to the CO graph. Transactions of the same session must arrive in session order,
+     * reads whose writer has not arrived yet wait in readsWithoutWrites.
+     */
+    protected void addTransaction(Transaction<VarType, ValType> txn) {
+        // update node with prev node
+        var prev = prevNodes.get(txn.getSession().getId());
+        var node = constructNode(txn, prev);
+        graph.addVertex(node);
+        sessionIndexes.put(node, prev == null ? 0 : sessionIndexes.get(prev) + 1);
+        prevNodes.put(txn.getSession().getId(), node);
+        if (prev != null) {
+            graph.addEdge(prev, node, new Edge<>(Edge.Type.SO, null));
+        }
 
-            var nearestRW = new HashMap<VarType, Operation<VarType, ValType>>();
-            var writesInTxn = new HashMap<VarType, Operation<VarType, ValType>>();
+        var nearestRW = new HashMap<VarType, Operation<VarType, ValType>>();
+        var writesInTxn = new HashMap<VarType, Operation<VarType, ValType>>();
 
-            for (var op: txn.getOps()) {
-                var key = new Pair<>(op.getVariable(), op.getValue());
-                op2node.put(op, node);
+        for (var op: txn.getOps()) {
+            var key = new Pair<>(op.getVariable(), op.getValue());
+            op2node.put(op, node);
 
-                // if op is a read
-                if (op.getType() == Operation.Type.READ) {
+            // if op is a read
+            if (op.getType() == Operation.Type.READ) {
 
-                    // check NonRepeatableRead and NotMyOwnWrite
-                    var prevRW = nearestRW.get(op.getVariable());
-                    if (prevRW != null && !op.getValue().equals(prevRW.getValue())) {
-                        if (prevRW.getType() == Operation.Type.READ) {
-                            findTAP(TAP.NonRepeatableRead);
-                        } else {
-                            boolean findNotMyLastWrite = false;
-                            for (var prevOp: txn.getOps()) {
-                                if (prevOp.getId() < prevRW.getId() &&
-                                prevOp.getType() == Operation.Type.WRITE &&
-                                prevOp.getVariable().equals(op.getVariable()) &&
-                                prevOp.getValue().equals(op.getValue())
-                                ) {
-                                    findNotMyLastWrite = true;
-                                    findTAP(TAP.NotMyLastWrite);
-                                }
-                            }
-                            if (!findNotMyLastWrite) {
-                                findTAP(TAP.NotMyOwnWrite);
+                // check NonRepeatableRead and NotMyOwnWrite
+                var prevRW = nearestRW.get(op.getVariable());
+                if (prevRW != null && !op.getValue().equals(prevRW.getValue())) {
+                    if (prevRW.getType() == Operation.Type.READ) {
+                        findTAP(TAP.NonRepeatableRead, (w) -> addOps(w, prevRW, op));
+                    } else {
+                        boolean findNotMyLastWrite = false;
+                        for (var prevOp: txn.getIndex().getWrites(op.getVariable(), op.getValue())) {
+                            if (prevOp.getId() < prevRW.getId()) {
+                                findNotMyLastWrite = true;
+                                findTAP(TAP.NotMyLastWrite, (w) -> addOps(w, prevOp, prevRW, op));
                             }
                         }
+                        if (!findNotMyLastWrite) {
+                            findTAP(TAP.NotMyOwnWrite, (w) -> addOps(w, prevRW, op));
+                        }
                     }
-                    nearestRW.put(op.getVariable(), op);
+                }
+                nearestRW.put(op.getVariable(), op);
 
-                    var write = writes.get(key);
-                    if (write != null) {
-                        // if write -> op
-                        // add op to reads
-                        reads.computeIfAbsent(key, k -> new ArrayList<>()).add(op);
-
-                        var writeNode = op2node.get(write);
-                        if (!writeNode.equals(node)) {
-                            if (!writeNode.canReachByCO(node)) {
-                                node.updateCOReachability(writeNode);
-                            }
+                var write = writes.get(key);
+                if (write != null) {
+                    // if write -> op
+                    // add op to reads
+                    reads.computeIfAbsent(key, k -> new ArrayList<>()).add(op);
+
+                    var writeNode = op2node.get(write);
+                    if (!writeNode.equals(node)) {
+                        boolean reached = writeNode.canReachByCO(node);
+                        if (!reached) {
+                            node.updateCOReachability(writeNode);
+                        }
+                        if (keepsWREdge(reached)) {
                             graph.addEdge(writeNode, node, new Edge<>(Edge.Type.WR, op.getVariable()));
-                            WREdges.computeIfAbsent(op.getVariable(), k -> new HashSet<>()).add(new Pair<>(writeNode, node));
-                            WRNodesToOp.computeIfAbsent(new Pair<>(writeNode, node), wr -> new ArrayList<>()).add(new Pair<>(write, op));
                         }
-                    } else if (op.getValue().equals(ZERO)) {
-                        // if no write -> op, but op reads zero
-                        reads.computeIfAbsent(key, k -> new ArrayList<>()).add(op);
-                    } else {
-                        readsWithoutWrites.computeIfAbsent(key, k -> new ArrayList<>()).add(op);
+                        WREdges.computeIfAbsent(op.getVariable(), k -> new HashSet<>()).add(new Pair<>(writeNode, node));
+                        WRNodesToOp.computeIfAbsent(new Pair<>(writeNode, node), wr -> new ArrayList<>()).add(new Pair<>(write, op));
                     }
+                } else if (op.getValue().equals(ZERO) || retiredWrites.containsKey(key)) {
+                    // if no write -> op, but op reads zero or a collected write
+                    reads.computeIfAbsent(key, k -> new ArrayList<>()).add(op);
                 } else {
-                    // if op is a write
-                    if (op.getValue().equals(ZERO)) {
-                        // ignore write 0
-                        continue;
-                    }
-                    writes.put(key, op);
-                    writeNodes.computeIfAbsent(op.getVariable(), k -> new HashSet<>()).add(node);
+                    readsWithoutWrites.computeIfAbsent(key, k -> new ArrayList<>()).add(op);
+                    lateReads++;
+                }
+            } else {
+                // if op is a write
+                if (op.getValue().equals(ZERO)) {
+                    // ignore write 0
+                    continue;
+                }
+                writes.put(key, op);
+                addWriteNode(op.getVariable(), node);
 
-                    nearestRW.put(op.getVariable(), op);
+                nearestRW.put(op.getVariable(), op);
 
-                    // check internal write
-                    var internalWrite = writesInTxn.get(op.getVariable());
-                    if (internalWrite != null) {
-                        internalWrites.add(internalWrite);
-                    }
-                    writesInTxn.put(op.getVariable(), op);
-
-                    var pendingReads = readsWithoutWrites.get(key);
-                    if (pendingReads != null) {
-                        reads.computeIfAbsent(key, k -> new ArrayList<>()).addAll(pendingReads);
-                        for (var pendingRead: pendingReads) {
-                            var pendingReadNode = op2node.get(pendingRead);
-                            if (!node.equals(pendingReadNode)) {
-                                graph.addEdge(node, pendingReadNode, new Edge<>(Edge.Type.WR, op.getVariable()));
-                                WREdges.computeIfAbsent(op.getVariable(), k -> new HashSet<>()).add(new Pair<>(node, pendingReadNode));
-                                WRNodesToOp.computeIfAbsent(new Pair<>(node, pendingReadNode), wr -> new ArrayList<>()).add(new Pair<>(op, pendingRead));
-                            }
+                // check internal write
+                var internalWrite = writesInTxn.get(op.getVariable());
+                if (internalWrite != null) {
+                    internalWrites.add(internalWrite);
+                }
+                writesInTxn.put(op.getVariable(), op);
+
+                var pendingReads = readsWithoutWrites.get(key);
+                if (pendingReads != null) {
+                    reads.computeIfAbsent(key, k -> new ArrayList<>()).addAll(pendingReads);
+                    for (var pendingRead: pendingReads) {
+                        var pendingReadNode = op2node.get(pendingRead);
+                        if (!node.equals(pendingReadNode)) {
+                            graph.addEdge(node, pendingReadNode, new Edge<>(Edge.Type.WR, op.getVariable()));
+                            WREdges.computeIfAbsent(op.getVariable(), k -> new HashSet<>()).add(new Pair<>(node, pendingReadNode));
+                            WRNodesToOp.computeIfAbsent(new Pair<>(node, pendingReadNode), wr -> new ArrayList<>()).add(new Pair<>(op, pendingRead));
                         }
                     }
-                    readsWithoutWrites.remove(key);
                 }
+                readsWithoutWrites.remove(key);
             }
-            updateVec(new HashSet<>(), node, node, Edge.Type.CO);
         }
+        updateVec(node, Edge.Type.CO);
+    }
+
+    /**
+     * Whether the WR edge of a read whose writer has arrived goes into the graph, reached tells if the writer
+     * already CO-preceded the reading transaction. The clock of the reader is joined either way.
+     */
+    protected boolean keepsWREdge(boolean reached) {
+        return true;
+    }
+
+    protected void addWriteNode(VarType variable, Node<VarType, ValType> node) {
+        writerIndex.add(variable, node);
     }
 
     protected void checkCOTAP() {
         // check aborted read and thin air
         if (readsWithoutWrites.size() > 0) {
             AtomicInteger count = new AtomicInteger();
-            readsWithoutWrites.keySet().forEach((key) -> {
+            readsWithoutWrites.forEach((key, pendingReads) -> {
                 if (history.getAbortedWrites().contains(key)) {
                     // find aborted read
-                    findTAP(TAP.AbortedRead);
+                    findTAP(TAP.AbortedRead, (w) -> addOps(w, pendingReads.get(0)));
                     count.addAndGet(1);
                 }
             });
             if (count.get() != readsWithoutWrites.size()) {
                 // find thin air read
-                findTAP(TAP.ThinAirRead);
+                findTAP(TAP.ThinAirRead, (w) -> readsWithoutWrites.entrySet().stream()
+                        .filter((entry) -> !history.getAbortedWrites().contains(entry.getKey()))
+                        .findFirst().ifPresent((entry) -> addOps(w, entry.getValue().get(0))));
             }
         }
 
         // for each read
-        reads.values().forEach((readList) -> {
-            readList.forEach((read) -> {
-                var key = new Pair<>(read.getVariable(), read.getValue());
-                var node = op2node.get(read);
-
-                // read(x, 0)
-                if (read.getValue().equals(ZERO)) {
-                    var writeRelNodes = writeNodes.get(read.getVariable());
-
-                    // no write(x, k)
-                    if (writeRelNodes == null) {
-                        return;
-                    }
+        forEachPartition(reads.values(), (readList) -> {
+            readList.forEach(this::checkRead);
+        });
 
-                    // check if write(x, k) co-> read
-                    writeRelNodes.forEach((writeNode) -> {
-                        if (writeNode.equals(node)) {
-                            return;
+        // check CyclicCO
+        // iter wr edge (t1 wr-> t2)
+        forEachPartition(WREdges.values(), (edgesX) -> {
+            edgesX.forEach((edge) -> checkCyclicCO(edge.getKey(), edge.getValue()));
+        });
+    }
+
+    protected void checkRead(Operation<VarType, ValType> read) {
+        var key = new Pair<>(read.getVariable(), read.getValue());
+        var node = op2node.get(read);
+
+        // read(x, 0)
+        if (read.getValue().equals(ZERO)) {
+            // check if write(x, k) co-> read, these writers are a prefix of each session
+            var readIndex = node.getTransaction().getIndex();
+            for (var writers : writerIndex.get(read.getVariable())) {
+                int reachRead = WriterIndex.countReaching(writers, node);
+                for (int i = 0; i < reachRead; i++) {
+                    var writeNode = writers.get(i);
+                    if (writeNode.equals(node)) {
+                        continue;
+                    }
+                    // there are 3 cases: initReadMono initReadWR or writeCOInitRead
+                    boolean findSubTap = false;
+                    for (var writeY : writeNode.getTransaction().getIndex().getWrites()) {
+                        if (writeY.getVariable().equals(read.getVariable())) {
+                            continue;
                         }
-                        if (writeNode.canReachByCO(node)) {
-                            // there are 3 cases: initReadMono initReadWR or writeCOInitRead
-                            boolean findSubTap = false;
-                            for (var writeY : writeNode.getTransaction().getOps()) {
-                                for (var readY : node.getTransaction().getOps()) {
-                                    if (!writeY.getVariable().equals(read.getVariable()) &&
-                                            writeY.getType().equals(Operation.Type.WRITE) &&
-                                            readY.getType().equals(Operation.Type.READ) &&
-                                            writeY.getVariable().equals(readY.getVariable()) &&
-                                            writeY.getValue().equals(readY.getValue())) {
-                                        // find w(y, v_y) wr-> r(y, v_y)
-                                        findSubTap = true;
-                                        if (readY.getId() < read.getId()) {
-                                            // find nonMonoReadCO  if read y precedes read x
-                                            findTAP(TAP.NonMonoReadCO);
-                                        } else {
-                                            // find initReadWR
-                                            findTAP(TAP.FracturedReadCO);
-                                        }
-                                    }
-                                }
-                            }
-                            if (!findSubTap) {
-                                // find initReadCO if not InitReadMono or InitReadWR
-                                findTAP(TAP.COConflictAO);
+                        for (var readY : readIndex.getReads(writeY.getVariable(), writeY.getValue())) {
+                            // find w(y, v_y) wr-> r(y, v_y)
+                            findSubTap = true;
+                            Consumer<Witness> witness = (w) -> describeInitRead(w, writeNode, node, read, writeY, readY);
+                            if (readY.getId() < read.getId()) {
+                                // find nonMonoReadCO  if read y precedes read x
+                                findTAP(TAP.NonMonoReadCO, witness);
+                            } else {
+                                // find initReadWR
+                                findTAP(TAP.FracturedReadCO, witness);
                             }
                         }
-                    });
-                    return;
+                    }
+                    if (!findSubTap) {
+                        // find initReadCO if not InitReadMono or InitReadWR
+                        findTAP(TAP.COConflictAO, (w) -> describeInitRead(w, writeNode, node, read, null, null));
+                    }
                 }
+            }
+            return;
+        }
 
-                // write wr-> read
-                var write = writes.get(key);
-                var writeNode = op2node.get(write);
+        // write wr-> read
+        var write = writes.get(key);
+        if (write == null) {
+            checkStaleRead(read, retiredWrites.get(key));
+            return;
+        }
+        var writeNode = op2node.get(write);
+
+        if (!writeNode.equals(node)) {
+            // in different txn
+            if (internalWrites.contains(write)) {
+                // find intermediate write
+                findTAP(TAP.IntermediateRead, (w) -> {
+                    addOps(w, write, read);
+                    addRelation(w, writeNode, node, Edge.Type.WR, read.getVariable());
+                });
+            }
+        } else {
+            // in same txn
+            if (write.getId() > read.getId()) {
+                // find future read
+                findTAP(TAP.FutureRead, (w) -> addOps(w, read, write));
+            }
+        }
+    }
 
-                if (!writeNode.equals(node)) {
-                    // in different txn
-                    if (internalWrites.contains(write)) {
-                        // find intermediate write
-                        findTAP(TAP.IntermediateRead);
+    protected void checkCyclicCO(Node<VarType, ValType> t1, Node<VarType, ValType> t2) {
+        if (t1.canReachByCO(t2) && t2.canReachByCO(t1)) {
+            // find cyclicCO
+            findTAP(TAP.CyclicCO, (w) -> {
+                var wr = WRNodesToOp.get(new Pair<>(t1, t2)).get(0);
+                addOps(w, wr.getKey(), wr.getValue());
+                addRelation(w, t1, t2, Edge.Type.WR, wr.getKey().getVariable());
+                addRelation(w, t2, t1, Edge.Type.CO, null);
+            });
+        }
+    }
+
+    /**
+     * Read of a collected write: t1 wr-> t3 with t1 co-> t2 co-> t3, where t2 is the superseding transaction.
+     * Classified as the CO branch of the triangle search would, from the ids kept in the RetiredWrite.
+     */
+    protected void checkStaleRead(Operation<VarType, ValType> read, RetiredWrite write) {
+        long t3Id = read.getTransaction().getId();
+        if (write.isIntermediate()) {
+            findTAP(TAP.IntermediateRead, (w) -> {
+                addOps(w, read);
+                w.relation(write.getWriterId(), t3Id, Edge.Type.WR.name(), read.getVariable());
+            });
+        }
+        if (isolationLevel == IsolationLevel.RC) {
+            return;
+        }
+
+        var t3 = read.getTransaction();
+        boolean findSubTAP = false;
+        if (t3.getSession().getId() == write.getSupersedingSession()
+                && sessionIndexes.get(op2node.get(read)) == write.getSupersedingIndex() + 1) {
+            findTAP(TAP.FracturedReadCO, (w) -> describeStaleRead(w, read, write)
+                    .relation(write.getSupersedingId(), t3Id, Edge.Type.SO.name(), null));
+            findSubTAP = true;
+        }
+        for (var readY : t3.getOps()) {
+            if (readY.getType() != Operation.Type.READ || readY.getVariable().equals(read.getVariable())) {
+                continue;
+            }
+            var keyY = new Pair<>(readY.getVariable(), readY.getValue());
+            var writeY = writes.get(keyY);
+            var retiredY = retiredWrites.get(keyY);
+            long writerY = writeY != null ? writeY.getTransaction().getId() : retiredY != null ? retiredY.getWriterId() : -1;
+            if (writerY != write.getSupersedingId()) {
+                continue;
+            }
+            findSubTAP = true;
+            Consumer<Witness> witness = (w) -> {
+                addOps(describeStaleRead(w, read, write), readY);
+                w.relation(write.getSupersedingId(), t3Id, Edge.Type.WR.name(), readY.getVariable());
+            };
+            if (readY.getId() < read.getId()) {
+                findTAP(TAP.NonMonoReadCO, witness);
+            } else {
+                findTAP(TAP.FracturedReadCO, witness);
+            }
+        }
+        if (!findSubTAP) {
+            findTAP(TAP.COConflictAO, (w) -> describeStaleRead(w, read, write)
+                    .relation(write.getSupersedingId(), t3Id, Edge.Type.CO.name(), null));
+        }
+    }
+
+    /**
+     * The collected writer wr-> read, overwritten by the superseding transaction co-> the writer.
+     */
+    private Witness describeStaleRead(Witness w, Operation<VarType, ValType> read, RetiredWrite write) {
+        addOps(w, read);
+        return w.relation(write.getWriterId(), read.getTransaction().getId(), Edge.Type.WR.name(), read.getVariable())
+                .relation(write.getWriterId(), write.getSupersedingId(), Edge.Type.CO.name(), null);
+    }
+
+    /**
+     * Drop collected transactions from the graph, the indexes and the history. Their reads must have been
+     * checked, their writes are replaced by the given RetiredWrites. Only the entries of the collected
+     * transactions are visited, found through their ops.
+     */
+    protected void removeTransactions(Set<Node<VarType, ValType>> retired, Map<Pair<VarType, ValType>, RetiredWrite> tombstones) {
+        // WR edges of the collected transactions, looked up before their writes and reads are dropped
+        var wrEdges = new HashSet<Pair<Node<VarType, ValType>, Node<VarType, ValType>>>();
+        var retiredTxns = new HashMap<Long, Set<Transaction<VarType, ValType>>>();
+        for (var node : retired) {
+            sessionIndexes.remove(node);
+            var txn = node.getTransaction();
+            retiredTxns.computeIfAbsent(txn.getSession().getId(), k -> new HashSet<>()).add(txn);
+            for (var op : txn.getOps()) {
+                var key = new Pair<>(op.getVariable(), op.getValue());
+                if (op.getType() == Operation.Type.READ) {
+                    var write = writes.get(key);
+                    var writeNode = write != null ? op2node.get(write) : null;
+                    if (writeNode != null && !writeNode.equals(node)) {
+                        wrEdges.add(new Pair<>(writeNode, node));
                     }
-                } else {
-                    // in same txn
-                    if (write.getId() > read.getId()) {
-                        // find future read
-                        findTAP(TAP.FutureRead);
+                } else if (op.equals(writes.get(key)) && reads.containsKey(key)) {
+                    for (var read : reads.get(key)) {
+                        var readNode = op2node.get(read);
+                        if (!readNode.equals(node)) {
+                            wrEdges.add(new Pair<>(node, readNode));
+                        }
                     }
                 }
-            });
-        });
+            }
+        }
+        for (var edge : wrEdges) {
+            var opPairs = WRNodesToOp.remove(edge);
+            if (opPairs == null) {
+                continue;
+            }
+            for (var opPair : opPairs) {
+                var variable = opPair.getKey().getVariable();
+                var edgesX = WREdges.get(variable);
+                if (edgesX != null && edgesX.remove(edge) && edgesX.isEmpty()) {
+                    WREdges.remove(variable);
+                }
+            }
+        }
 
-        // check CyclicCO
-        // iter wr edge (t1 wr-> t2)
-        WREdges.forEach((varX, edgesX) -> {
-            edgesX.forEach((edge) -> {
-                var t1 = edge.getKey();
-                var t2 = edge.getValue();
-                if (t1.canReachByCO(t2) && t2.canReachByCO(t1)) {
-                    // find cyclicCO
-                    findTAP(TAP.CyclicCO);
-                    print2TxnBp(t1, t2);
+        retiredWrites.putAll(tombstones);
+        for (var node : retired) {
+            var txn = node.getTransaction();
+            for (var op : txn.getOps()) {
+                var key = new Pair<>(op.getVariable(), op.getValue());
+                op2node.remove(op);
+                internalWrites.remove(op);
+                if (op.getType() == Operation.Type.WRITE) {
+                    writerIndex.remove(op.getVariable(), node);
+                    if (op.equals(writes.get(key))) {
+                        writes.remove(key);
+                        // the reads of it were checked
+                        reads.remove(key);
+                    }
+                } else {
+                    var readList = reads.get(key);
+                    if (readList != null) {
+                        readList.remove(op);
+                        if (readList.isEmpty()) {
+                            reads.remove(key);
+                        }
+                    }
                 }
-            });
-        });
+            }
+            history.getTransactions().remove(txn.getId());
+        }
+        // the session lists only hold the transactions not collected yet
+        retiredTxns.forEach((session, txns) -> history.getSession(session).getTransactions().removeIf(txns::contains));
+        graph.removeVertices(retired);
     }
 
+    /**
+     * Add the AO edges, watching for the first cycle they close. AO reachability is only read by checkAOTAP, which
+     * has nothing to find without a cycle, so it is only propagated once there is one.
+     */
     protected void buildAO() {
-        var pendingNodes = new HashSet<Node<VarType, ValType>>();
+        aoOrder = new IncrementalTopologicalOrder<>(graph);
+        aoCycle = aoOrder.getCycle();
+        addAOEdges();
+        if (aoCycle != null) {
+            aoSources.forEach((node) -> updateVec(node, Edge.Type.AO));
+        }
+        aoSources.clear();
+        aoOrder = null;
+    }
+
+    protected void addAOEdge(Node<VarType, ValType> from, Node<VarType, ValType> to) {
+        graph.addEdge(from, to, new Edge<>(Edge.Type.AO, null));
+        if (aoCycle == null) {
+            aoCycle = aoOrder.addEdge(from, to);
+        }
+    }
+
+    public boolean hasAOCycle() {
+        return aoCycle != null;
+    }
 
+    protected void addAOEdges() {
         WREdges.forEach((variable, edges) -> {
             edges.forEach((edge) -> {
+                checkTimeLimit();
                 var t1 = edge.getKey();
                 var t2 = edge.getValue();
-                writeNodes.get(variable).forEach((t) -> {
-                    if (!t.equals(t1) && !(t.equals(t2)) && t.canReachByCO(t2)) {
-                        // build ao edge
-                        if (t.canReachByCO(t1)) {
-                            return;
+                for (var writers : writerIndex.get(variable)) {
+                    // writers that reach t2 but not t1
+                    int reachT2 = WriterIndex.countReaching(writers, t2);
+                    for (int i = WriterIndex.countReaching(writers, t1); i < reachT2; i++) {
+                        var t = writers.get(i);
+                        if (!t.equals(t1) && !(t.equals(t2))) {
+                            // build ao edge
+                            addAOEdge(t, t1);
+                            aoSources.add(t);
                         }
-                        graph.addEdge(t, t1, new Edge<>(Edge.Type.AO, null));
-                        pendingNodes.add(t);
                     }
-                });
+                }
             });
         });
-
-        // update downstream nodes
-        pendingNodes.forEach((node) -> {
-            updateVec(new HashSet<>(), node, node, Edge.Type.AO);
-        });
     }
 
     protected void checkAOTAP() {
-        // iter wr edge (t1 wr-> t3)
-        WRNodesToOp.forEach((WRNodePair, WROpPairList) -> {
-            var t1 = WRNodePair.getKey();
-            var t3 = WRNodePair.getValue();
-            WROpPairList.forEach((WROpPair) -> {
-                var varX = WROpPair.getKey().getVariable();
-                writeNodes.get(varX).forEach((t2) -> {
-                    if (!t2.equals(t1) && !t2.equals(t3) && t2.canReachByCO(t3) && t1.canReachByCO(t2)) {
-                        // find tap triangle
-                        print3TxnBp(t1, t2, t3);
-                        boolean findSubTAP = false;
-                        var edges = graph.getEdge(t2, t3);
-                        if (edges != null) {
-                            for (var edge: edges) {
-                                if (edge.getType() == Edge.Type.SO) {
-                                    findTAP(TAP.FracturedReadCO);
-                                    findSubTAP = true;
-                                }
-                            }
-                        }
-                        if (WRNodesToOp.containsKey(new Pair<>(t2, t3))) {
-                            findSubTAP = true;
-                            var WRYOpPairList = WRNodesToOp.get(new Pair<>(t2, t3));
-                            for (var WRYOpPair : WRYOpPairList) {
-                                var readY = WRYOpPair.getValue();
-                                var varY = readY.getVariable();
-                                if (varY == varX) {
-                                    continue;
-                                }
-                                if (readY.getId() < WROpPair.getValue().getId()) {
-                                    // find NonMonoReadCO
-                                    findTAP(TAP.NonMonoReadCO);
-                                } else {
-                                    // find FracturedReadCO
-                                    findTAP(TAP.FracturedReadCO);
-                                }
-                            }
-                        }
-                        if (!findSubTAP) {
-                            // find COConflictAO
-                            findTAP(TAP.COConflictAO);
-                        }
-                    }
-                    if (!t2.equals(t1) && !t2.equals(t3) && t2.canReachByCO(t3) && !t1.canReachByCO(t2) && t1.canReachByAO(t2)) {
-                        // find tap triangle
-                        print3TxnBp(t1, t2, t3);
-                        boolean findSubTAP = false;
-                        var edges = graph.getEdge(t2, t3);
-                        if (edges != null) {
-                            for (var edge: edges) {
-                                if (edge.getType() == Edge.Type.SO) {
-                                    findTAP(TAP.FracturedReadAO);
-                                    findSubTAP = true;
-                                }
-                            }
-                        }
-                        if (WRNodesToOp.containsKey(new Pair<>(t2, t3))) {
-                            findSubTAP = true;
-                            var WRYOpPairList = WRNodesToOp.get(new Pair<>(t2, t3));
-                            for (var WRYOpPair : WRYOpPairList) {
-                                var readY = WRYOpPair.getValue();
-                                if (readY.getId() < WROpPair.getValue().getId()) {
-                                    // find NonMonoReadAO
-                                    findTAP(TAP.NonMonoReadAO);
-                                } else {
-                                    // find FracturedReadAO
-                                    findTAP(TAP.FracturedReadAO);
-                                }
-                            }
-                        }
-                        if (!findSubTAP) {
-                            // find ConflictAO
-                            findTAP(TAP.ConflictAO);
-                        }
-                    }
-                });
-            });
+        // iter wr edge (t1 wr-> t3), every entry is an independent shard of the triangle search
+        forEachPartition(WRNodesToOp.entrySet(), (entry) -> {
+            var t1 = entry.getKey().getKey();
+            var t3 = entry.getKey().getValue();
+            entry.getValue().forEach((WROpPair) -> checkTriangles(t1, t3, WROpPair));
         });
     }
 
-    protected void updateVec(Set<Node<VarType, ValType>> visited, Node<VarType, ValType> cur, Node<VarType, ValType> upNode, Edge.Type edgeType) {
-        visited.add(cur);
-        DFSCounter.increment();
-
-        var nextNodes = graph.get(cur);
-        for (var next: nextNodes) {
-            if (edgeType == Edge.Type.CO) {
-                if (visited.contains(next) || upNode.canReachByCO(next)) {
+    /**
+     * Find t2 such that t1 wr-> t3 and t2 writes the same variable between them.
+     * Only reads the clocks, so it is safe to run on several WR edges at once.
+     */
+    protected void checkTriangles(Node<VarType, ValType> t1, Node<VarType, ValType> t3,
+                                  Pair<Operation<VarType, ValType>, Operation<VarType, ValType>> WROpPair) {
+        var varX = WROpPair.getKey().getVariable();
+        for (var writers : writerIndex.get(varX)) {
+            // t2 co-> t3 holds on a prefix of the session, t1 co-> t2 and t1 ao-> t2 on suffixes
+            int reachT3 = WriterIndex.countReaching(writers, t3);
+            int reachedByCO = WriterIndex.firstReachedBy(writers, t1, Edge.Type.CO);
+            int reachedByAO = WriterIndex.firstReachedBy(writers, t1, Edge.Type.AO);
+            for (int i = Math.min(reachedByCO, reachedByAO); i < reachT3; i++) {
+                var t2 = writers.get(i);
+                if (t2.equals(t1) || t2.equals(t3)) {
                     continue;
                 }
-                next.updateCOReachability(upNode);
-                updateVec(visited, next, upNode, edgeType);
-            } else if (edgeType == Edge.Type.AO) {
-                if (visited.contains(next) || upNode.canReachByAO(next)) {
-                    continue;
+                checkTriangle(t1, t2, t3, WROpPair, i >= reachedByCO);
+            }
+        }
+    }
+
+    private void checkTriangle(Node<VarType, ValType> t1, Node<VarType, ValType> t2, Node<VarType, ValType> t3,
+                               Pair<Operation<VarType, ValType>, Operation<VarType, ValType>> WROpPair, boolean t1COt2) {
+        var varX = WROpPair.getKey().getVariable();
+        var order = t1COt2 ? Edge.Type.CO : Edge.Type.AO;
+        if (t1COt2) {
+            // find tap triangle
+            boolean findSubTAP = false;
+            if (graph.hasEdge(t2, t3, Edge.Type.SO)) {
+                findTAP(TAP.FracturedReadCO, (w) -> describeTriangle(w, t1, t2, t3, WROpPair, order, Edge.Type.SO, null));
+                findSubTAP = true;
+            }
+            if (WRNodesToOp.containsKey(new Pair<>(t2, t3))) {
+                findSubTAP = true;
+                var WRYOpPairList = WRNodesToOp.get(new Pair<>(t2, t3));
+                for (var WRYOpPair : WRYOpPairList) {
+                    var readY = WRYOpPair.getValue();
+                    var varY = readY.getVariable();
+                    if (varY == varX) {
+                        continue;
+                    }
+                    Consumer<Witness> witness = (w) -> describeTriangle(w, t1, t2, t3, WROpPair, order, Edge.Type.WR, WRYOpPair);
+                    if (readY.getId() < WROpPair.getValue().getId()) {
+                        // find NonMonoReadCO
+                        findTAP(TAP.NonMonoReadCO, witness);
+                    } else {
+                        // find FracturedReadCO
+                        findTAP(TAP.FracturedReadCO, witness);
+                    }
+                }
+            }
+            if (!findSubTAP) {
+                // find COConflictAO
+                findTAP(TAP.COConflictAO, (w) -> describeTriangle(w, t1, t2, t3, WROpPair, order, Edge.Type.CO, null));
+            }
+        } else {
+            // find tap triangle
+            boolean findSubTAP = false;
+            if (graph.hasEdge(t2, t3, Edge.Type.SO)) {
+                findTAP(TAP.FracturedReadAO, (w) -> describeTriangle(w, t1, t2, t3, WROpPair, order, Edge.Type.SO, null));
+                findSubTAP = true;
+            }
+            if (WRNodesToOp.containsKey(new Pair<>(t2, t3))) {
+                findSubTAP = true;
+                var WRYOpPairList = WRNodesToOp.get(new Pair<>(t2, t3));
+                for (var WRYOpPair : WRYOpPairList) {
+                    var readY = WRYOpPair.getValue();
+                    Consumer<Witness> witness = (w) -> describeTriangle(w, t1, t2, t3, WROpPair, order, Edge.Type.WR, WRYOpPair);
+                    if (readY.getId() < WROpPair.getValue().getId()) {
+                        // find NonMonoReadAO
+                        findTAP(TAP.NonMonoReadAO, witness);
+                    } else {
+                        // find FracturedReadAO
+                        findTAP(TAP.FracturedReadAO, witness);
+                    }
                 }
-                next.updateAOReachability(upNode);
-                updateVec(visited, next, upNode, edgeType);
             }
+            if (!findSubTAP) {
+                // find ConflictAO
+                findTAP(TAP.ConflictAO, (w) -> describeTriangle(w, t1, t2, t3, WROpPair, order, Edge.Type.CO, null));
+            }
+        }
+    }
+
+    /**
+     * t1 wr-> t3 on x, t1 order-> t2 and t2 writes x, t2 relates to t3 by type, through WRY if it is a WR edge.
+     */
+    private void describeTriangle(Witness w, Node<VarType, ValType> t1, Node<VarType, ValType> t2, Node<VarType, ValType> t3,
+                                  Pair<Operation<VarType, ValType>, Operation<VarType, ValType>> WROpPair, Edge.Type order,
+                                  Edge.Type type, Pair<Operation<VarType, ValType>, Operation<VarType, ValType>> WRY) {
+        var varX = WROpPair.getKey().getVariable();
+        addOps(w, WROpPair.getKey(), lastWriteOf(t2, varX), WROpPair.getValue());
+        addRelation(w, t1, t3, Edge.Type.WR, varX);
+        addRelation(w, t1, t2, order, null);
+        if (WRY != null) {
+            addOps(w, WRY.getKey(), WRY.getValue());
+            addRelation(w, t2, t3, type, WRY.getKey().getVariable());
+        } else {
+            addRelation(w, t2, t3, type, null);
         }
     }
 
+    /**
+     * writeNode writes x and co-> the read of the initial value of x, writeY wr-> readY if not null.
+     */
+    protected void describeInitRead(Witness w, Node<VarType, ValType> writeNode, Node<VarType, ValType> node,
+                                    Operation<VarType, ValType> read, Operation<VarType, ValType> writeY,
+                                    Operation<VarType, ValType> readY) {
+        addOps(w, lastWriteOf(writeNode, read.getVariable()), read);
+        addRelation(w, writeNode, node, Edge.Type.CO, null);
+        if (writeY != null) {
+            addOps(w, writeY, readY);
+            addRelation(w, writeNode, node, Edge.Type.WR, readY.getVariable());
+        }
+    }
+
+    protected static void addOps(Witness w, Operation<?, ?>... ops) {
+        for (var op : ops) {
+            if (op != null) {
+                w.op(op.getTransaction().getId(), op.getId(), op.getType() == Operation.Type.WRITE, op.getVariable(), op.getValue());
+            }
+        }
+    }
+
+    protected static void addRelation(Witness w, Node<?, ?> from, Node<?, ?> to, Edge.Type type, Object variable) {
+        w.relation(from.getTransaction().getId(), to.getTransaction().getId(), type.name(), variable);
+    }
+
+    private Operation<VarType, ValType> lastWriteOf(Node<VarType, ValType> node, VarType variable) {
+        Operation<VarType, ValType> last = null;
+        for (var op : node.getTransaction().getOps()) {
+            if (op.getType() == Operation.Type.WRITE && op.getVariable().equals(variable)) {
+                last = op;
+            }
+        }
+        return last;
+    }
+
+    protected void updateVec(Node<VarType, ValType> upNode, Edge.Type edgeType) {
+        propagator.propagate(upNode, edgeType);
+    }
+
+    /**
+     * Report tap, describe fills in its witness only if one is wanted.
+     */
+    protected void findTAP(TAP tap, Consumer<Witness> describe) {
+        if (!PROHIBITED_TAPS.get(isolationLevel).contains(tap) || !count(tap)) {
+            return;
+        }
+        if (witnesses.wants(tap)) {
+            var witness = new Witness(tap);
+            describe.accept(witness);
+            witnesses.add(witness);
+        }
+        checkStop();
+    }
+
     protected void findTAP(TAP tap) {
-        if (PROHIBITED_TAPS.get(isolationLevel).contains(tap)) {
-            badPatterns.add(tap);
-            badPatternCount.merge(tap.getCode(), 1, Integer::sum);
+        if (PROHIBITED_TAPS.get(isolationLevel).contains(tap) && count(tap)) {
+            checkStop();
+        }
+    }
+
+    /**
+     * Count tap, false if it already reached the budget.
+     */
+    private boolean count(TAP tap) {
+        if (tapBudget <= 0) {
+            badPatternCounter.add(tap);
+            return true;
+        }
+        return badPatternCounter.addBelow(tap, tapBudget);
+    }
+
+    /**
+     * Stop if fail-fast knows every wanted verdict, or if every TAP the remaining phases can report is over budget.
+     */
+    private void checkStop() {
+        if (failFast && (verdictLevels == null ? isDecided(isolationLevel) : verdictLevels.stream().allMatch(this::isDecided))) {
+            stop(StopReason.FAIL_FAST);
+        }
+        if (tapBudget > 0 && isBudgetSpent()) {
+            stop(StopReason.TAP_BUDGET);
+        }
+    }
+
+    /**
+     * TAPs that phase can report.
+     */
+    protected Set<TAP> reportedTAPs(Phase phase) {
+        return phase.getTAPs();
+    }
+
+    /**
+     * Whether the verdict of level is known: a TAP it prohibits was found, or the phases it depends on are over.
+     */
+    private boolean isDecided(IsolationLevel level) {
+        if (phase.compareTo(lastPhase(level)) > 0) {
+            return true;
+        }
+        for (var tap : PROHIBITED_TAPS.get(level)) {
+            if (badPatternCounter.contains(tap)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isBudgetSpent() {
+        var prohibited = PROHIBITED_TAPS.get(isolationLevel);
+        for (var p : Phase.values()) {
+            if (p.compareTo(phase) < 0 || p.compareTo(lastPhase(isolationLevel)) > 0) {
+                continue;
+            }
+            for (var tap : reportedTAPs(p)) {
+                if (prohibited.contains(tap) && badPatternCounter.get(tap) < tapBudget) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    protected void checkTimeLimit() {
+        if (deadline != Long.MAX_VALUE && System.nanoTime() > deadline) {
+            stop(StopReason.TIME_LIMIT);
+        }
+    }
+
+    private void stop(StopReason reason) {
+        if (stopReason == null) {
+            stopReason = reason;
+        }
+        throw new CheckStoppedException();
+    }
+
+    public Set<TAP> getBadPatterns() {
+        return badPatternCounter.toSet();
+    }
+
+    public Map<String, Integer> getBadPatternCount() {
+        return badPatternCounter.toCountMap();
+    }
+
+    /**
+     * TAPs violating a level weaker than or equal to the one checked, so one validate() at the strongest level
+     * gives the verdicts of all levels. RC stops before the AO phase, so its TAPs are those found by then.
+     */
+    public Set<TAP> getBadPatterns(IsolationLevel level) {
+        return counterOf(level).toSet(PROHIBITED_TAPS.get(level));
+    }
+
+    public Map<String, Integer> getBadPatternCount(IsolationLevel level) {
+        return counterOf(level).toCountMap(PROHIBITED_TAPS.get(level));
+    }
+
+    private TAPCounter counterOf(IsolationLevel level) {
+        if (level.compareTo(isolationLevel) > 0) {
+            throw new IllegalArgumentException(String.format("%s is stronger than the checked level %s", level, isolationLevel));
+        }
+        return level == IsolationLevel.RC ? coPhaseCounter : badPatternCounter;
+    }
+
+    /**
+     * Run action on every partition, on the work-stealing pool if parallelism > 1.
+     * The action may only read the graph, the indexes and the clocks, and report TAPs.
+     */
+    protected <T> void forEachPartition(Collection<T> partitions, Consumer<T> action) {
+        Consumer<T> checkedAction = (partition) -> {
+            checkTimeLimit();
+            action.accept(partition);
+        };
+        if (parallelism <= 1) {
+            partitions.forEach(checkedAction);
+            return;
+        }
+        // the pool is started for this call, so its threads are measured as a whole once it is done
+        var workers = metrics.isEnabled() ? ConcurrentHashMap.<Thread>newKeySet() : null;
+        var caller = Thread.currentThread();
+        var pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> partitions.parallelStream().forEach((partition) -> {
+                if (workers != null && Thread.currentThread() != caller) {
+                    workers.add(Thread.currentThread());
+                }
+                checkedAction.accept(partition);
+            })).join();
+            if (workers != null) {
+                metrics.addWorkers(workers);
+            }
+        } finally {
+            pool.shutdown();
         }
     }
 
@@ -450,6 +1013,8 @@ public class Plume<VarType, ValType> {
             case PLUME:
             case PLUME_LIST:
                 return new TCNode<>(graph, transaction, tid, dim, prev);
+            case PLUME_CHUNKED_TC:
+                return new ChunkedTCNode<>(graph, transaction, tid, dim, prev);
             case PLUME_WITHOUT_TC:
                 return new VCNode<>(graph, transaction, tid, dim, prev);
             case PLUME_WITHOUT_VEC:
@@ -460,58 +1025,7 @@ public class Plume<VarType, ValType> {
     }
 
     protected void syncClock() {
-        graph.getAdjMap().keySet().forEach(Node::syncCOAO);
-    }
-
-    protected boolean hasCircle(Edge.Type edgeType) {
-        return graph.getAdjMap().entrySet().stream().anyMatch((entry) -> {
-            var from = entry.getKey();
-            var toNodes = entry.getValue();
-            return toNodes.stream().anyMatch((node) -> (edgeType == Edge.Type.CO && node.canReachByCO(from)) ||
-                    (edgeType == Edge.Type.AO && node.canReachByAO(from)));
-        });
-    }
-
-    protected void print3TxnBp(Node<VarType, ValType> t1, Node<VarType, ValType> t2, Node<VarType, ValType> t3) {
-        if (!enableGraphviz) {
-            return;
-        }
-        var node1 = node("t" + t1.getTransaction().getId());
-        var node2 = node("t" + t2.getTransaction().getId());
-        var node3 = node("t" + t3.getTransaction().getId());
-        var g = graph().directed()
-                .linkAttr().with("class", "link-class")
-                .with(
-                        node1.link(node2),
-                        node2.link(node3),
-                        node2.link(node1),
-                        node1.link(node3)
-                );
-        try {
-            fromGraph(g).height(500).render(Format.PNG).toFile(new File(String.format("graphviz/%s-%s-%s.png",
-                    t1.getTransaction().getOps(), t2.getTransaction().getId(), t3.getTransaction().getId())));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    protected void print2TxnBp(Node<VarType, ValType> t1, Node<VarType, ValType> t2) {
-        if (!enableGraphviz) {
-            return;
-        }
-        var node1 = node("t" + t1.getTransaction());
-        var node2 = node("t" + t2.getTransaction());
-        var g = graph().directed()
-                .linkAttr().with("class", "link-class")
-                .with(
-                        node1.link(node2),
-                        node2.link(node1)
-                );
-        try {
-            fromGraph(g).height(500).render(Format.PNG).toFile(new File(String.format("graphviz/%s-%s.png", t1.getTransaction().getId(), t2.getTransaction().getId())));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        graph.getNodes().forEach(Node::syncCOAO);
     }
 
     private void path(Node<VarType, ValType> from, Node<VarType, ValType> to) {
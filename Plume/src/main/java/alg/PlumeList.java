@@ -1,296 +1,158 @@
 package alg;
 
 import graph.Edge;
-import graph.Node;
 import history.History;
 import history.Operation;
+import history.Transaction;
 import javafx.util.Pair;
 import loader.ElleHistoryLoader;
 import taps.TAP;
+import taps.Witness;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public class PlumeList<VarType> extends Plume<VarType, ElleHistoryLoader.ElleValue> {
+    private static final Set<TAP> CHECK_CO_TAPS;
+
+    static {
+        var taps = EnumSet.copyOf(Phase.CHECK_CO_TAP.getTAPs());
+        taps.add(TAP.IncompatibleOrder);
+        CHECK_CO_TAPS = Collections.unmodifiableSet(taps);
+    }
+
+    // version order merged from the read lists by checkCOTAP, null once a transaction is added after it
+    private VersionOrder<VarType> versionOrder = null;
+
     public PlumeList(AlgType algType, History<VarType, ElleHistoryLoader.ElleValue> history, IsolationLevel isolationLevel, boolean enableGraphviz) {
         super(algType, history, isolationLevel, enableGraphviz);
         ZERO = new ElleHistoryLoader.ElleValue(null, new ArrayList<>());
     }
 
     @Override
-    public void validate() {
-        long startConstruction = System.nanoTime();
-        buildCO();
-        long endConstruction = System.nanoTime();
-        long construction = (endConstruction - startConstruction) / 1_000_000;
-        System.out.println("Construction: " + construction + "ms");
+    protected void addTransaction(Transaction<VarType, ElleHistoryLoader.ElleValue> txn) {
+        versionOrder = null;
+        super.addTransaction(txn);
+    }
 
-        long startTraversal = System.nanoTime();
+    @Override
+    protected boolean keepsWREdge(boolean reached) {
+        // a WR edge between transactions the clocks already order is left out of the graph
+        return !reached;
+    }
 
-        checkCOTAP();
-        if (isolationLevel == IsolationLevel.RC) {
-            return;
-        }
-        syncClock();
+    @Override
+    protected void addAOEdges() {
         buildWW();
-        buildAO();
-        if (!hasCircle(Edge.Type.AO)) {
-            long endTraversal = System.nanoTime();
-            long traversal = (endTraversal - startTraversal) / 1_000_000; // 转换为毫秒
-            System.out.println("Traversal: " + traversal + "ms");
-            return;
-        }
-
-        checkAOTAP();
-        long endTraversal = System.nanoTime();
-        long traversal = (endTraversal - startTraversal) / 1_000_000; // 转换为毫秒
-        System.out.println("Traversal: " + traversal + "ms");
+        super.addAOEdges();
     }
 
+    private void buildWW() {
+        var order = versionOrder != null ? versionOrder : buildVersionOrder(false);
+        order.getEdges().forEach((edge) -> addAOEdge(edge.getKey(), edge.getValue()));
+        aoSources.addAll(order.getSources());
+    }
 
     @Override
-    protected void buildCO() {
-        var hist = history.getFlatTransactions();
-        Map<Long, Node<VarType, ElleHistoryLoader.ElleValue>> prevNodes = new HashMap<>();
-
-        for (var txn: hist) {
-
-            // update node with prev node
-            var prev = prevNodes.get(txn.getSession().getId());
-            var node = constructNode(txn, prev);
-            graph.addVertex(node);
-            prevNodes.put(txn.getSession().getId(), node);
-            if (prev != null) {
-                graph.addEdge(prev, node, new Edge<>(Edge.Type.SO, null));
-            }
-
-            var nearestRW = new HashMap<VarType, Operation<VarType, ElleHistoryLoader.ElleValue>>();
-            var writesInTxn = new HashMap<VarType, Operation<VarType, ElleHistoryLoader.ElleValue>>();
-
-            for (var op: txn.getOps()) {
-                var key = new Pair<>(op.getVariable(), op.getValue());
-                op2node.put(op, node);
-
-                // if op is a read
-                if (op.getType() == Operation.Type.READ) {
-
-                    // check NonRepeatableRead and NotMyOwnWrite
-                    var prevRW = nearestRW.get(op.getVariable());
-                    if (prevRW != null && !op.getValue().equals(prevRW.getValue())) {
-                        if (prevRW.getType() == Operation.Type.READ) {
-                            findTAP(TAP.NonRepeatableRead);
-                        } else {
-                            boolean findNotMyLastWrite = false;
-                            for (var prevOp: txn.getOps()) {
-                                if (prevOp.getId() < prevRW.getId() &&
-                                        prevOp.getType() == Operation.Type.WRITE &&
-                                        prevOp.getVariable().equals(op.getVariable()) &&
-                                        prevOp.getValue().equals(op.getValue())
-                                ) {
-                                    findNotMyLastWrite = true;
-                                    findTAP(TAP.NotMyLastWrite);
-                                }
-                            }
-                            if (!findNotMyLastWrite) {
-                                findTAP(TAP.NotMyOwnWrite);
-                            }
-                        }
-                    }
-                    nearestRW.put(op.getVariable(), op);
-
-                    var write = writes.get(key);
-                    if (write != null) {
-                        // if write -> op
-                        // add op to reads
-                        reads.computeIfAbsent(key, k -> new ArrayList<>()).add(op);
-
-                        var writeNode = op2node.get(write);
-                        if (!writeNode.equals(node)) {
-                            if (!writeNode.canReachByCO(node)) {
-                                node.updateCOReachability(writeNode);
-                                graph.addEdge(writeNode, node, new Edge<>(Edge.Type.WR, op.getVariable()));
-                            }
-                            WREdges.computeIfAbsent(op.getVariable(), k -> new HashSet<>()).add(new Pair<>(writeNode, node));
-                            WRNodesToOp.computeIfAbsent(new Pair<>(writeNode, node), wr -> new ArrayList<>()).add(new Pair<>(write, op));
-                        }
-                    } else if (op.getValue().equals(ZERO)) {
-                        // if no write -> op, but op reads zero
-                        reads.computeIfAbsent(key, k -> new ArrayList<>()).add(op);
-                    } else {
-                        readsWithoutWrites.computeIfAbsent(key, k -> new ArrayList<>()).add(op);
-                    }
-                } else {
-                    // if op is a write
-                    if (op.getValue().equals(ZERO)) {
-                        // ignore write 0
-                        continue;
-                    }
-                    writes.put(key, op);
-                    writeNodes.computeIfAbsent(op.getVariable(), k -> new HashSet<>()).add(node);
-
-                    nearestRW.put(op.getVariable(), op);
-
-                    // check internal write
-                    var internalWrite = writesInTxn.get(op.getVariable());
-                    if (internalWrite != null) {
-                        internalWrites.add(internalWrite);
-                    }
-                    writesInTxn.put(op.getVariable(), op);
+    protected void checkCOTAP() {
+        super.checkCOTAP();
+        versionOrder = buildVersionOrder(true);
+    }
 
-                    var pendingReads = readsWithoutWrites.get(key);
-                    if (pendingReads != null) {
-                        reads.computeIfAbsent(key, k -> new ArrayList<>()).addAll(pendingReads);
-                        for (var pendingRead: pendingReads) {
-                            var pendingReadNode = op2node.get(pendingRead);
-                            if (!node.equals(pendingReadNode)) {
-                                graph.addEdge(node, pendingReadNode, new Edge<>(Edge.Type.WR, op.getVariable()));
-                                WREdges.computeIfAbsent(op.getVariable(), k -> new HashSet<>()).add(new Pair<>(node, pendingReadNode));
-                                WRNodesToOp.computeIfAbsent(new Pair<>(node, pendingReadNode), wr -> new ArrayList<>()).add(new Pair<>(op, pendingRead));
-                            }
-                        }
-                    }
-                    readsWithoutWrites.remove(key);
-                }
-            }
-            updateVec(new HashSet<>(), node, node, Edge.Type.CO);
-        }
+    @Override
+    protected Set<TAP> reportedTAPs(Phase phase) {
+        return phase == Phase.CHECK_CO_TAP ? CHECK_CO_TAPS : phase.getTAPs();
     }
 
-    private void buildWW() {
-        Set<Node<VarType, ElleHistoryLoader.ElleValue>> pendingNodes = new HashSet<>();
+    /**
+     * Merge the read lists into the version order of each key, report reads that disagree on it if report is set.
+     */
+    private VersionOrder<VarType> buildVersionOrder(boolean report) {
+        var order = new VersionOrder<>(writes, op2node);
         reads.values().forEach((readList) -> {
+            checkTimeLimit();
             readList.forEach((read) -> {
-                var ref = new Object() {
-                    Node<VarType, ElleHistoryLoader.ElleValue> prev = null;
-                };
-                read.getValue().getList().forEach((val) -> {
-                    var key = new Pair<>(read.getVariable(), new ElleHistoryLoader.ElleValue(val, null));
-                    var write = writes.get(key);
-                    if (write == null) {
-                        return;
-                    }
-                    var node = op2node.get(write);
-                    if (ref.prev == null) {
-                        ref.prev = node;
-                        pendingNodes.add(ref.prev);
-                    }
-                    graph.addEdge(ref.prev, node, new Edge<>(Edge.Type.AO, null));
-                    ref.prev = node;
-                });
+                var diverged = order.add(read);
+                if (report && diverged != null) {
+                    findTAP(TAP.IncompatibleOrder, (w) -> addOps(w, diverged, read));
+                }
             });
         });
-        pendingNodes.forEach((node) -> {
-            updateVec(new HashSet<>(), node, node, Edge.Type.AO);
-        });
+        return order;
     }
 
     @Override
-    protected void checkCOTAP() {
-        // check aborted read and thin air
-        if (readsWithoutWrites.size() > 0) {
-            AtomicInteger count = new AtomicInteger();
-            readsWithoutWrites.keySet().forEach((key) -> {
-                if (history.getAbortedWrites().contains(key)) {
-                    // find aborted read
-                    findTAP(TAP.AbortedRead);
-                    count.addAndGet(1);
-                }
-            });
-            if (count.get() != readsWithoutWrites.size()) {
-                // find thin air read
-                findTAP(TAP.ThinAirRead);
-            }
-        }
-
-        // for each read
-        reads.values().forEach((readList) -> {
-            readList.forEach((read) -> {
-                read.getValue().getList().forEach((v) -> {
-                    var key = new Pair<>(read.getVariable(),  new ElleHistoryLoader.ElleValue(v, null));
-                    var node = op2node.get(read);
-
-                    // read(x, 0)
-                    if (read.getValue().equals(ZERO)) {
-                        var writeRelNodes = writeNodes.get(read.getVariable());
-
-                        // no write(x, k)
-                        if (writeRelNodes == null) {
-                            return;
+    protected void checkRead(Operation<VarType, ElleHistoryLoader.ElleValue> read) {
+        var node = op2node.get(read);
+        int size = read.getValue().getList().size();
+        for (int length = 1; length <= size; length++) {
+            // the prefix ending at an element is equal to the append of it, and shared by the interned lists
+            var value = read.getValue().prefix(length);
+            var key = new Pair<>(read.getVariable(), value);
+
+            // read(x, 0)
+            if (read.getValue().equals(ZERO)) {
+                // check if write(x, k) co-> read, these writers are a prefix of each session
+                var readIndex = node.getTransaction().getIndex();
+                for (var writers : writerIndex.get(read.getVariable())) {
+                    int reachRead = WriterIndex.countReaching(writers, node);
+                    for (int i = 0; i < reachRead; i++) {
+                        var writeNode = writers.get(i);
+                        if (writeNode.equals(node)) {
+                            continue;
                         }
-
-                        // check if write(x, k) co-> read
-                        writeRelNodes.forEach((writeNode) -> {
-                            if (writeNode.equals(node)) {
-                                return;
+                        // there are 3 cases: initReadMono initReadWR or writeCOInitRead
+                        boolean findSubTap = false;
+                        for (var writeY : writeNode.getTransaction().getIndex().getWrites()) {
+                            if (writeY.getVariable().equals(read.getVariable())) {
+                                continue;
                             }
-                            if (writeNode.canReachByCO(node)) {
-                                // there are 3 cases: initReadMono initReadWR or writeCOInitRead
-                                boolean findSubTap = false;
-                                for (var writeY : writeNode.getTransaction().getOps()) {
-                                    for (var readY : node.getTransaction().getOps()) {
-                                        if (!writeY.getVariable().equals(read.getVariable()) &&
-                                                writeY.getType().equals(Operation.Type.WRITE) &&
-                                                readY.getType().equals(Operation.Type.READ) &&
-                                                writeY.getVariable().equals(readY.getVariable()) &&
-                                                writeY.getValue().equals(readY.getValue())) {
-                                            // find w(y, v_y) wr-> r(y, v_y)
-                                            findSubTap = true;
-                                            if (readY.getId() < read.getId()) {
-                                                // find initReadMono if read y precedes read x
-                                                findTAP(TAP.NonMonoReadCO);
-                                            } else {
-                                                // find initReadWR
-                                                findTAP(TAP.FracturedReadCO);
-                                            }
-                                        }
-                                    }
-                                }
-                                if (!findSubTap) {
-                                    // find initReadCO if not InitReadMono or InitReadWR
-                                    findTAP(TAP.COConflictAO);
+                            for (var readY : readIndex.getReads(writeY.getVariable(), writeY.getValue())) {
+                                // find w(y, v_y) wr-> r(y, v_y)
+                                findSubTap = true;
+                                Consumer<Witness> witness = (w) -> describeInitRead(w, writeNode, node, read, writeY, readY);
+                                if (readY.getId() < read.getId()) {
+                                    // find initReadMono if read y precedes read x
+                                    findTAP(TAP.NonMonoReadCO, witness);
+                                } else {
+                                    // find initReadWR
+                                    findTAP(TAP.FracturedReadCO, witness);
                                 }
                             }
-                        });
-                        return;
-                    }
-
-                    // write wr-> read
-                    var write = writes.get(key);
-                    var writeNode = op2node.get(write);
-
-                    if (writeNode == null) {
-                        return;
-                    }
-
-                    if (!writeNode.equals(node)) {
-                        // in different txn, and v should be the last element in the read list
-                        if (internalWrites.contains(write) && read.getValue().getLastElement().equals(v)) {
-                            // find intermediate write
-                            findTAP(TAP.IntermediateRead);
                         }
-                    } else {
-                        // in same txn
-                        if (write.getId() > read.getId()) {
-                            // find future read
-                            findTAP(TAP.FutureRead);
+                        if (!findSubTap) {
+                            // find initReadCO if not InitReadMono or InitReadWR
+                            findTAP(TAP.COConflictAO, (w) -> describeInitRead(w, writeNode, node, read, null, null));
                         }
                     }
-                });
-            });
-        });
+                }
+                continue;
+            }
+
+            // write wr-> read
+            var write = writes.get(key);
+            var writeNode = op2node.get(write);
 
-        // check CyclicCO
-        // iter wr edge (t1 wr-> t2)
-        WREdges.forEach((varX, edgesX) -> {
-            edgesX.forEach((edge) -> {
-                var t1 = edge.getKey();
-                var t2 = edge.getValue();
-                if (t1.canReachByCO(t2) && t2.canReachByCO(t1)) {
-                    // find cyclicCO
-                    findTAP(TAP.CyclicCO);
-                    print2TxnBp(t1, t2);
+            if (writeNode == null) {
+                continue;
+            }
+
+            if (!writeNode.equals(node)) {
+                // in different txn, and the appended value should be the last element in the read list
+                if (internalWrites.contains(write) && read.getValue().equals(value)) {
+                    // find intermediate write
+                    findTAP(TAP.IntermediateRead, (w) -> {
+                        addOps(w, write, read);
+                        addRelation(w, writeNode, node, Edge.Type.WR, read.getVariable());
+                    });
                 }
-            });
-        });
+            } else {
+                // in same txn
+                if (write.getId() > read.getId()) {
+                    // find future read
+                    findTAP(TAP.FutureRead, (w) -> addOps(w, read, write));
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,19 @@
+package alg;
+
+import lombok.Data;
+
+/**
+ * What is left of a write once its transaction is collected by {@link OnlinePlume}: enough to classify the
+ * reads of it that arrive later. Such a read is stale, the writer CO-precedes a newer write of the same
+ * variable which itself CO-precedes every transaction added after the collection.
+ */
+@Data
+public class RetiredWrite {
+    private final long writerId;
+    // the newer write of the variable, by a transaction dominated at collection time
+    private final long supersedingId;
+    // session and position in it of the superseding transaction, which may be collected as well
+    private final long supersedingSession;
+    private final int supersedingIndex;
+    private final boolean intermediate;
+}
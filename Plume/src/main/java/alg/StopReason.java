@@ -0,0 +1,13 @@
+package alg;
+
+/**
+ * Why {@link Plume#validate()} stopped before running all its phases.
+ */
+public enum StopReason {
+    // the verdicts of the wanted levels were known
+    FAIL_FAST,
+    // every TAP the remaining phases can report reached the budget
+    TAP_BUDGET,
+    // the wall-clock limit passed
+    TIME_LIMIT,
+}
@@ -0,0 +1,61 @@
+package alg;
+
+import taps.Witness;
+import util.Json;
+
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Verdicts of a validated {@link Plume}, one per isolation level.
+ */
+public class Verdicts {
+    private Verdicts() {
+    }
+
+    /**
+     * REJECT if a TAP prohibited by level was found, UNKNOWN if the check stopped without one before the phases
+     * level depends on were over, ACCEPT otherwise.
+     */
+    public static String verdict(Plume<?, ?> plume, IsolationLevel level) {
+        if (!plume.getBadPatterns(level).isEmpty()) {
+            return "REJECT";
+        }
+        // some phases did not run, absence of TAPs proves nothing
+        return plume.isComplete(level) ? "ACCEPT" : "UNKNOWN";
+    }
+
+    /**
+     * The verdicts of levels with the count and the witnesses of each TAP found, plus why the check stopped if it did.
+     */
+    public static String toJson(Plume<?, ?> plume, Collection<IsolationLevel> levels) {
+        var sb = new StringBuilder("{\"levels\":[");
+        boolean firstLevel = true;
+        for (var level : new TreeSet<>(levels)) {
+            var counts = plume.getBadPatternCount(level);
+            sb.append(firstLevel ? "" : ",")
+                    .append("{\"level\":\"").append(level)
+                    .append("\",\"verdict\":\"").append(verdict(plume, level))
+                    .append("\",\"taps\":[");
+            boolean firstTAP = true;
+            for (var tap : plume.getBadPatterns(level)) {
+                sb.append(firstTAP ? "" : ",")
+                        .append("{\"name\":").append(Json.quote(tap.name()))
+                        .append(",\"code\":").append(Json.quote(tap.getCode()))
+                        .append(",\"count\":").append(counts.get(tap.getCode()))
+                        .append(",\"witnesses\":[")
+                        .append(plume.getWitnesses(tap, level).stream().map(Witness::toJson).collect(Collectors.joining(",")))
+                        .append("]}");
+                firstTAP = false;
+            }
+            sb.append("]}");
+            firstLevel = false;
+        }
+        sb.append("],\"stopped\":").append(plume.isStopped() ? Json.quote(plume.getStopReason().name()) : "null")
+                .append(",\"skipped_phases\":[")
+                .append(plume.getSkippedPhases().stream().map((phase) -> Json.quote(phase.name())).collect(Collectors.joining(",")))
+                .append("]}");
+        return sb.toString();
+    }
+}
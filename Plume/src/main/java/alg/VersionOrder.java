@@ -0,0 +1,101 @@
+package alg;
+
+import graph.Node;
+import history.Operation;
+import javafx.util.Pair;
+import loader.ElleHistoryLoader;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Version order of the keys of a list-append history, the read lists of each key merged into a prefix trie.
+ * <p>
+ * A read list is a path from the root of the trie of its key. Its elements only create a trie node, and an edge
+ * from the writer of the previous element to their writer, the first time they are read after that prefix, so
+ * every edge is emitted once. Elements whose writer is unknown are skipped, the edge then comes from the nearest
+ * writer before them. A trie node with a second child means two reads disagree on the order of the key.
+ */
+public class VersionOrder<VarType> {
+    private static class TrieNode<VarType> {
+        final Integer value;
+        // writer of this element, or of the nearest element before it that has one
+        final Node<VarType, ElleHistoryLoader.ElleValue> writer;
+        // the read that created this node
+        final Operation<VarType, ElleHistoryLoader.ElleValue> read;
+        // most nodes have a single child, the others go to children
+        TrieNode<VarType> firstChild;
+        Map<Integer, TrieNode<VarType>> children;
+
+        TrieNode(Integer value, Node<VarType, ElleHistoryLoader.ElleValue> writer, Operation<VarType, ElleHistoryLoader.ElleValue> read) {
+            this.value = value;
+            this.writer = writer;
+            this.read = read;
+        }
+
+        TrieNode<VarType> child(Integer value) {
+            if (firstChild != null && firstChild.value.equals(value)) {
+                return firstChild;
+            }
+            return children == null ? null : children.get(value);
+        }
+    }
+
+    // writer of each appended value, by key
+    private final Map<VarType, Map<Integer, Node<VarType, ElleHistoryLoader.ElleValue>>> writers = new HashMap<>();
+    private final Map<VarType, TrieNode<VarType>> roots = new HashMap<>();
+
+    // WW edges in the order they were found, and the first writer of every read list
+    @Getter
+    private final List<Pair<Node<VarType, ElleHistoryLoader.ElleValue>, Node<VarType, ElleHistoryLoader.ElleValue>>> edges = new ArrayList<>();
+    @Getter
+    private final Set<Node<VarType, ElleHistoryLoader.ElleValue>> sources = new LinkedHashSet<>();
+
+    public VersionOrder(Map<Pair<VarType, ElleHistoryLoader.ElleValue>, Operation<VarType, ElleHistoryLoader.ElleValue>> writes,
+                        Map<Operation<VarType, ElleHistoryLoader.ElleValue>, Node<VarType, ElleHistoryLoader.ElleValue>> op2node) {
+        writes.forEach((key, write) -> writers.computeIfAbsent(key.getKey(), k -> new HashMap<>())
+                .put(key.getValue().getLastElement(), op2node.get(write)));
+    }
+
+    /**
+     * Add the list of read, and return an earlier read whose list diverges from it, or null.
+     */
+    public Operation<VarType, ElleHistoryLoader.ElleValue> add(Operation<VarType, ElleHistoryLoader.ElleValue> read) {
+        var variable = read.getVariable();
+        var keyWriters = writers.getOrDefault(variable, Map.of());
+        var node = roots.computeIfAbsent(variable, k -> new TrieNode<>(null, null, null));
+        Operation<VarType, ElleHistoryLoader.ElleValue> diverged = null;
+        for (var value : read.getValue().getList()) {
+            var next = node.child(value);
+            if (next == null) {
+                var writer = keyWriters.get(value);
+                if (writer == null) {
+                    writer = node.writer;
+                } else if (node.writer == null) {
+                    sources.add(writer);
+                } else if (!node.writer.equals(writer)) {
+                    edges.add(new Pair<>(node.writer, writer));
+                }
+                next = new TrieNode<>(value, writer, read);
+                if (node.firstChild == null) {
+                    node.firstChild = next;
+                } else {
+                    if (diverged == null) {
+                        diverged = node.firstChild.read;
+                    }
+                    if (node.children == null) {
+                        node.children = new HashMap<>();
+                    }
+                    node.children.put(value, next);
+                }
+            }
+            node = next;
+        }
+        return diverged;
+    }
+}
@@ -0,0 +1,81 @@
+package alg;
+
+import graph.Edge;
+import graph.Node;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Writers of each variable grouped by session, in session order.
+ * <p>
+ * Reachability is monotone along a session: if a writer reaches a transaction, so do the earlier writers of
+ * its session, and if a transaction reaches a writer, it also reaches the later ones. The writers related to
+ * a transaction are therefore a prefix or a suffix of every session list and are found by binary search,
+ * O(sessions * log n) clock comparisons instead of one per writer.
+ */
+public class WriterIndex<VarType, ValType> {
+    private final Map<VarType, Map<Long, List<Node<VarType, ValType>>>> writers = new HashMap<>();
+
+    public void add(VarType variable, Node<VarType, ValType> node) {
+        var sessionWriters = writers.computeIfAbsent(variable, k -> new HashMap<>())
+                .computeIfAbsent(node.getTransaction().getSession().getId(), k -> new ArrayList<>());
+        if (sessionWriters.isEmpty() || !sessionWriters.get(sessionWriters.size() - 1).equals(node)) {
+            sessionWriters.add(node);
+        }
+    }
+
+    public void remove(VarType variable, Node<VarType, ValType> node) {
+        var bySession = writers.get(variable);
+        if (bySession == null) {
+            return;
+        }
+        var session = node.getTransaction().getSession().getId();
+        var sessionWriters = bySession.get(session);
+        if (sessionWriters == null || !sessionWriters.remove(node)) {
+            return;
+        }
+        if (sessionWriters.isEmpty()) {
+            bySession.remove(session);
+            if (bySession.isEmpty()) {
+                writers.remove(variable);
+            }
+        }
+    }
+
+    public Collection<List<Node<VarType, ValType>>> get(VarType variable) {
+        var bySession = writers.get(variable);
+        return bySession == null ? List.of() : bySession.values();
+    }
+
+    /**
+     * Number of writers at the head of sessionWriters that reach node by CO.
+     */
+    public static <VarType, ValType> int countReaching(List<Node<VarType, ValType>> sessionWriters, Node<VarType, ValType> node) {
+        return firstMatch(sessionWriters, (writer) -> !writer.canReachByCO(node));
+    }
+
+    /**
+     * Index of the first writer in sessionWriters that node reaches by CO or AO, or the size of the list.
+     */
+    public static <VarType, ValType> int firstReachedBy(List<Node<VarType, ValType>> sessionWriters, Node<VarType, ValType> node, Edge.Type edgeType) {
+        if (edgeType == Edge.Type.CO) {
+            return firstMatch(sessionWriters, node::canReachByCO);
+        }
+        return firstMatch(sessionWriters, node::canReachByAO);
+    }
+
+    private static <T> int firstMatch(List<T> list, Predicate<T> predicate) {
+        int low = 0;
+        int high = list.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (predicate.test(list.get(mid))) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,197 @@
+package cli;
+
+import alg.AlgType;
+import alg.IsolationLevel;
+import alg.Plume;
+import alg.Verdicts;
+import graph.GraphType;
+import history.TransactionOrder;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+import picocli.CommandLine.Parameters;
+import picocli.CommandLine.Spec;
+import taps.TAP;
+import util.Json;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+@Command(name = "batch", mixinStandardHelpOptions = true, description = "Check every history of a directory on a pool of workers, one Plume per file.\n")
+public class BatchCommand implements Callable<Integer> {
+
+    @Spec
+    private CommandSpec spec;
+
+    @Parameters(index = "0", description = "Directory, searched recursively")
+    private File dir;
+
+    @Option(names = "-t", description = "Algorithm of text histories, .edn files are always checked by PLUME_LIST. Candidates: ${COMPLETION-CANDIDATES}")
+    private AlgType algType = AlgType.PLUME;
+
+    @Option(names = "-i", split = ",", description = "One or more levels, checked in a single run. Candidates: ${COMPLETION-CANDIDATES}")
+    private List<IsolationLevel> isolationLevels = List.of(IsolationLevel.TCC);
+
+    @Option(names = "--glob", description = "Files to check, matched against the file name (default: ${DEFAULT-VALUE})")
+    private String glob = "*.{txt,edn}";
+
+    @Option(names = "--workers", description = "Histories checked at the same time (default: number of processors)")
+    private int workers = Runtime.getRuntime().availableProcessors();
+
+    @Option(names = "--graph", description = "Graph backend, candidates: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})")
+    private GraphType graphType = GraphType.HASH;
+
+    @Option(names = "--order", description = "Order in which transactions are added, candidates: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})")
+    private TransactionOrder transactionOrder = TransactionOrder.ROUND_ROBIN;
+
+    @Option(names = "--time-limit", description = "Stop a history after this many seconds, 0 for no limit (default: ${DEFAULT-VALUE})")
+    private long timeLimit = 0;
+
+    @Option(names = "--json", description = "Print one JSON object per file and a JSON summary")
+    private boolean json;
+
+    @Option(names = "--witnesses", description = "Witnesses kept per TAP with --json (default: ${DEFAULT-VALUE})")
+    private int witnesses = 3;
+
+    /**
+     * Outcome of one file, the line is printed as is.
+     */
+    private static class Result {
+        String line;
+        Map<IsolationLevel, String> verdicts = new EnumMap<>(IsolationLevel.class);
+        // TAP counts at the strongest level
+        Map<String, Integer> counts = Collections.emptyMap();
+        boolean error;
+    }
+
+    @Override
+    public Integer call() throws IOException, InterruptedException, ExecutionException {
+        if (!dir.isDirectory()) {
+            throw new ParameterException(spec.commandLine(), String.format("%s is not a directory", dir));
+        }
+        if (workers <= 0) {
+            throw new ParameterException(spec.commandLine(), "--workers must be positive");
+        }
+        var matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        List<Path> files;
+        try (var paths = Files.walk(dir.toPath())) {
+            files = paths.filter(Files::isRegularFile).filter((path) -> matcher.matches(path.getFileName()))
+                    .sorted().collect(Collectors.toList());
+        }
+
+        long start = System.nanoTime();
+        var pool = Executors.newFixedThreadPool(workers);
+        var results = new ArrayList<Result>();
+        try {
+            var futures = new ArrayList<Future<Result>>();
+            for (var file : files) {
+                futures.add(pool.submit(() -> check(file)));
+            }
+            // printed in file order, whichever finishes first
+            for (var future : futures) {
+                var result = future.get();
+                System.out.println(result.line);
+                results.add(result);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        printSummary(results, (System.nanoTime() - start) / 1_000_000);
+        return results.stream().anyMatch((result) -> result.error) ? 1 : 0;
+    }
+
+    private Result check(Path path) {
+        var result = new Result();
+        var name = dir.toPath().relativize(path).toString();
+        try {
+            var type = path.getFileName().toString().endsWith(".edn") ? AlgType.PLUME_LIST : algType;
+            var plume = HistoryFiles.load(path.toFile(), type, Collections.max(isolationLevels), false, 1);
+            plume.setGraphType(graphType);
+            plume.setTransactionOrder(transactionOrder);
+            plume.setTimeLimit(timeLimit * 1000);
+            plume.setVerbose(false);
+            if (json) {
+                plume.setWitnessLimit(witnesses);
+            }
+            plume.validate();
+            for (var level : isolationLevels) {
+                result.verdicts.put(level, Verdicts.verdict(plume, level));
+            }
+            result.counts = plume.getBadPatternCount(Collections.max(isolationLevels));
+            result.line = json ? "{\"file\":" + Json.quote(name) + ",\"result\":" + Verdicts.toJson(plume, isolationLevels) + "}"
+                    : name + ": " + textVerdicts(plume);
+        } catch (Exception | StackOverflowError | OutOfMemoryError e) {
+            result.error = true;
+            result.line = json ? "{\"file\":" + Json.quote(name) + ",\"error\":" + Json.quote(String.valueOf(e)) + "}"
+                    : name + ": ERROR " + e;
+        }
+        return result;
+    }
+
+    private String textVerdicts(Plume<?, ?> plume) {
+        var parts = new ArrayList<String>();
+        for (var level : new TreeSet<>(isolationLevels)) {
+            var verdict = Verdicts.verdict(plume, level);
+            var part = isolationLevels.size() == 1 ? verdict : level + " " + verdict;
+            parts.add(verdict.equals("REJECT") ? part + " " + plume.getBadPatterns(level) : part);
+        }
+        return String.join(", ", parts);
+    }
+
+    private void printSummary(List<Result> results, long millis) {
+        long errors = results.stream().filter((result) -> result.error).count();
+        // verdict -> number of files, per level
+        var verdicts = new TreeMap<IsolationLevel, Map<String, Integer>>();
+        for (var level : isolationLevels) {
+            var byVerdict = new TreeMap<String, Integer>();
+            results.forEach((result) -> {
+                if (!result.error) {
+                    byVerdict.merge(result.verdicts.get(level), 1, Integer::sum);
+                }
+            });
+            verdicts.put(level, byVerdict);
+        }
+        var files = new EnumMap<TAP, Integer>(TAP.class);
+        var occurrences = new EnumMap<TAP, Long>(TAP.class);
+        for (var tap : TAP.values()) {
+            for (var result : results) {
+                var count = result.counts.get(tap.getCode());
+                if (count != null) {
+                    files.merge(tap, 1, Integer::sum);
+                    occurrences.merge(tap, (long) count, Long::sum);
+                }
+            }
+        }
+
+        if (json) {
+            System.out.println("{\"summary\":{\"files\":" + results.size() + ",\"errors\":" + errors + ",\"millis\":" + millis +
+                    ",\"verdicts\":{" + verdicts.entrySet().stream().map((entry) -> Json.quote(entry.getKey().name()) + ":{" +
+                    entry.getValue().entrySet().stream().map((v) -> Json.quote(v.getKey()) + ":" + v.getValue())
+                            .collect(Collectors.joining(",")) + "}").collect(Collectors.joining(",")) +
+                    "},\"taps\":[" + files.keySet().stream().map((tap) -> String.format("{\"name\":%s,\"code\":%s,\"files\":%d,\"count\":%d}",
+                    Json.quote(tap.name()), Json.quote(tap.getCode()), files.get(tap), occurrences.get(tap)))
+                    .collect(Collectors.joining(",")) + "]}}");
+            return;
+        }
+        System.out.println("Batch: " + results.size() + " files, " + errors + " errors, " + millis + "ms");
+        verdicts.forEach((level, byVerdict) -> System.out.println(level + ": " + byVerdict.entrySet().stream()
+                .map((entry) -> entry.getValue() + " " + entry.getKey()).collect(Collectors.joining(", "))));
+        files.forEach((tap, count) -> System.out.println(tap + ": " + count + " files, " + occurrences.get(tap) + " occurrences"));
+    }
+}
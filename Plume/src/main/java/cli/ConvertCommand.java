@@ -0,0 +1,43 @@
+package cli;
+
+import alg.AlgType;
+import loader.BinaryHistoryWriter;
+import loader.ElleHistoryLoader;
+import loader.MappedTextHistoryLoader;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+@Command(name = "convert", mixinStandardHelpOptions = true, description = "Convert a text or Elle history to the binary history format.\n")
+public class ConvertCommand implements Callable<Integer> {
+
+    @Parameters(index = "0", description = "Input file")
+    private File input;
+
+    @Parameters(index = "1", description = "Output file")
+    private File output;
+
+    @Option(names = "-t", description = "Format of the input, Elle for PLUME_LIST, text otherwise. Candidates: ${COMPLETION-CANDIDATES}")
+    private AlgType algType = AlgType.PLUME;
+
+    @Option(names = "--threads", description = "Number of threads used by the loader (default: ${DEFAULT-VALUE})")
+    private int threads = 1;
+
+    @Override
+    public Integer call() throws IOException {
+        long start = System.nanoTime();
+        if (algType.equals(AlgType.PLUME_LIST)) {
+            var historyLoader = new ElleHistoryLoader(input);
+            historyLoader.setParallelism(threads);
+            BinaryHistoryWriter.writeElle(historyLoader.loadHistory(), output);
+        } else {
+            BinaryHistoryWriter.writeText(new MappedTextHistoryLoader(input, threads).loadHistory(), output);
+        }
+        System.out.println("Convert: " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        return 0;
+    }
+}
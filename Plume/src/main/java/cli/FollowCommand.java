@@ -0,0 +1,146 @@
+package cli;
+
+import alg.AlgType;
+import alg.IsolationLevel;
+import alg.OnlinePlume;
+import alg.Plume;
+import alg.PlumeList;
+import graph.GraphType;
+import loader.ElleHistoryStream;
+import loader.HistoryStream;
+import loader.TextHistoryStream;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+import picocli.CommandLine.Parameters;
+import picocli.CommandLine.Spec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+
+@Command(name = "follow", mixinStandardHelpOptions = true, description = "Check a history while it is being written, reading a growing file or stdin.\n")
+public class FollowCommand implements Callable<Integer> {
+
+    @Spec
+    private CommandSpec spec;
+
+    @Parameters(index = "0", arity = "0..1", description = "Input file, stdin if absent or \"-\"")
+    private String file;
+
+    @Option(names = "-t", description = "Candidates: ${COMPLETION-CANDIDATES}")
+    private AlgType algType = AlgType.PLUME;
+
+    @Option(names = "-i", description = "Candidates: ${COMPLETION-CANDIDATES}")
+    private IsolationLevel isolationLevel = IsolationLevel.TCC;
+
+    @Option(names = "--sessions", required = true, description = "Upper bound of the number of sessions in the history")
+    private int sessions;
+
+    @Option(names = "--graph", description = "Graph backend, candidates: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})")
+    private GraphType graphType = GraphType.HASH;
+
+    @Option(names = "--checkpoint", description = "Transactions between two checkpoints (default: ${DEFAULT-VALUE})")
+    private int checkpointInterval = 1000;
+
+    @Option(names = "--ao-checkpoint", description = "Transactions between two AO phases (default: ${DEFAULT-VALUE})")
+    private int aoInterval = 100_000;
+
+    @Option(names = "--poll", description = "Milliseconds to wait for the file to grow (default: ${DEFAULT-VALUE})")
+    private long pollMillis = 500;
+
+    @Option(names = "--idle-timeout", description = "Stop after the file has not grown for this many seconds, 0 to follow forever (default: ${DEFAULT-VALUE})")
+    private long idleTimeout = 30;
+
+    @Option(names = "--gc", description = "Drop transactions that precede every session and whose writes are superseded, bounds the memory but makes the verdict approximate: AO-level TAPs may be missed")
+    private boolean garbageCollection = false;
+
+    @Option(names = "--gc-retired-writes", description = "Writes of collected transactions to remember with --gc, a later read of a forgotten one is a thin air read (default: ${DEFAULT-VALUE})")
+    private int retiredWriteLimit = 1_000_000;
+
+    @Override
+    public Integer call() throws IOException, InterruptedException {
+        if (algType.equals(AlgType.PLUME_LIST)) {
+            if (garbageCollection) {
+                throw new ParameterException(spec.commandLine(), "--gc only supports read-write histories");
+            }
+            var stream = new ElleHistoryStream(sessions);
+            var plume = new PlumeList<>(algType, stream.getHistory(), isolationLevel, false);
+            return follow(stream, plume);
+        } else {
+            var stream = new TextHistoryStream(sessions);
+            var plume = new Plume<>(algType, stream.getHistory(), isolationLevel, false);
+            return follow(stream, plume);
+        }
+    }
+
+    private <VarType, ValType> int follow(HistoryStream<VarType, ValType> stream, Plume<VarType, ValType> plume) throws IOException, InterruptedException {
+        plume.setGraphType(graphType);
+        var ref = new Object() {
+            OnlinePlume<VarType, ValType> online = null;
+        };
+        ref.online = new OnlinePlume<>(plume, (tap) ->
+                System.out.println("[" + ref.online.getTransactionCount() + " txns] " + tap), checkpointInterval, aoInterval);
+        var online = ref.online;
+        online.setGarbageCollection(garbageCollection);
+        online.setRetiredWriteLimit(retiredWriteLimit);
+
+        boolean isStdin = file == null || file.equals("-");
+        try (var in = isStdin ? System.in : new FileInputStream(new File(file))) {
+            var line = new ByteArrayOutputStream();
+            var buffer = new byte[1 << 16];
+            long idleSince = System.currentTimeMillis();
+            while (true) {
+                if (in.available() == 0) {
+                    // input paused, check what has arrived so far
+                    online.checkpoint();
+                    if (!isStdin) {
+                        if (idleTimeout > 0 && System.currentTimeMillis() - idleSince >= idleTimeout * 1000) {
+                            break;
+                        }
+                        Thread.sleep(pollMillis);
+                        continue;
+                    }
+                }
+                int n = in.read(buffer);
+                if (n < 0) {
+                    break;
+                }
+                idleSince = System.currentTimeMillis();
+                for (int i = 0; i < n; i++) {
+                    if (buffer[i] != '\n') {
+                        line.write(buffer[i]);
+                        continue;
+                    }
+                    feed(stream, online, line.toString(StandardCharsets.UTF_8));
+                    line.reset();
+                }
+            }
+            feed(stream, online, line.toString(StandardCharsets.UTF_8));
+        }
+
+        stream.flush().forEach(online::accept);
+        online.close();
+        if (garbageCollection) {
+            System.out.println("Collected " + online.getCollectedCount() + " of " + online.getTransactionCount() + " transactions");
+        }
+        if (online.getBadPatterns().size() > 0) {
+            System.out.println("REJECT");
+            System.out.println(online.getBadPatterns());
+        } else {
+            System.out.println("ACCEPT");
+        }
+        return 0;
+    }
+
+    private <VarType, ValType> void feed(HistoryStream<VarType, ValType> stream, OnlinePlume<VarType, ValType> online, String line) {
+        if (line.isBlank()) {
+            return;
+        }
+        stream.parseLine(line.strip()).forEach(online::accept);
+    }
+}
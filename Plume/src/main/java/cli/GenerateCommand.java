@@ -0,0 +1,69 @@
+package cli;
+
+import generator.HistoryFormat;
+import generator.HistoryGenerator;
+import generator.WorkloadConfig;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+import taps.TAP;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+@Command(name = "generate", mixinStandardHelpOptions = true, description = "Generate a synthetic history, optionally with injected TAPs.\n")
+public class GenerateCommand implements Callable<Integer> {
+
+    @Parameters(index = "0", description = "Output file, a directory for COBRA")
+    private File output;
+
+    @Option(names = "--format", description = "Candidates: ${COMPLETION-CANDIDATES}. ELLE keeps every written value in memory to print the reads, 8 bytes per write, the other formats only keep a fixed amount per key (default: ${DEFAULT-VALUE})")
+    private HistoryFormat format = HistoryFormat.TEXT;
+
+    @Option(names = "--sessions", description = "Number of sessions (default: ${DEFAULT-VALUE})")
+    private int sessions = 10;
+
+    @Option(names = "--txns", description = "Workload transactions per session (default: ${DEFAULT-VALUE})")
+    private int txnsPerSession = 100;
+
+    @Option(names = "--ops", description = "Operations per workload transaction (default: ${DEFAULT-VALUE})")
+    private int opsPerTxn = 8;
+
+    @Option(names = "--keys", description = "Number of keys of the workload (default: ${DEFAULT-VALUE})")
+    private int keys = 1000;
+
+    @Option(names = "--read-ratio", description = "Ratio of reads among the operations (default: ${DEFAULT-VALUE})")
+    private double readRatio = 0.5;
+
+    @Option(names = "--zipf", description = "Zipfian constant of the key distribution in (0, 1), 0 for uniform (default: ${DEFAULT-VALUE})")
+    private double zipf = 0;
+
+    @Option(names = "--seed", description = "Random seed (default: ${DEFAULT-VALUE})")
+    private long seed = 0;
+
+    @Option(names = "--inject", split = ",", description = "TAPs to inject with their rate per workload transaction, e.g. FracturedReadCO=0.01,CyclicCO=0.001")
+    private Map<TAP, Double> injections = Map.of();
+
+    @Override
+    public Integer call() throws IOException {
+        var config = new WorkloadConfig();
+        config.setSessions(sessions);
+        config.setTxnsPerSession(txnsPerSession);
+        config.setOpsPerTxn(opsPerTxn);
+        config.setKeys(keys);
+        config.setReadRatio(readRatio);
+        config.setZipf(zipf);
+        config.setSeed(seed);
+        injections.forEach(config::inject);
+
+        long start = System.nanoTime();
+        var generator = new HistoryGenerator(config);
+        try (var writer = format.open(output)) {
+            generator.generate(writer);
+        }
+        System.out.println("Generate: " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        return 0;
+    }
+}
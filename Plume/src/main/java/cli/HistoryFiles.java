@@ -0,0 +1,37 @@
+package cli;
+
+import alg.AlgType;
+import alg.IsolationLevel;
+import alg.Plume;
+import alg.PlumeList;
+import loader.BinaryHistoryLoader;
+import loader.ElleHistoryLoader;
+import loader.MappedTextHistoryLoader;
+
+import java.io.File;
+
+/**
+ * Loading of whole history files, shared by the commands that check them.
+ */
+public class HistoryFiles {
+    private HistoryFiles() {
+    }
+
+    /**
+     * Load file, Elle for PLUME_LIST and text otherwise, either possibly binary, into a Plume ready to validate.
+     */
+    public static Plume<?, ?> load(File file, AlgType algType, IsolationLevel isolationLevel, boolean enableGraphviz, int threads) {
+        if (algType.equals(AlgType.PLUME_LIST)) {
+            if (BinaryHistoryLoader.isBinary(file)) {
+                return new PlumeList<>(algType, BinaryHistoryLoader.elle(file).loadHistory(), isolationLevel, enableGraphviz);
+            }
+            var historyLoader = new ElleHistoryLoader(file);
+            historyLoader.setParallelism(threads);
+            return new PlumeList<>(algType, historyLoader.loadHistory(), isolationLevel, enableGraphviz);
+        }
+        if (BinaryHistoryLoader.isBinary(file)) {
+            return new Plume<>(algType, BinaryHistoryLoader.text(file).loadHistory(), isolationLevel, enableGraphviz);
+        }
+        return new Plume<>(algType, new MappedTextHistoryLoader(file, threads).loadHistory(), isolationLevel, enableGraphviz);
+    }
+}
@@ -0,0 +1,156 @@
+package cli;
+
+import alg.AlgType;
+import alg.IsolationLevel;
+import alg.Plume;
+import alg.Verdicts;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import graph.GraphType;
+import history.TransactionOrder;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import util.Json;
+import util.Metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps a JVM resident and checks histories sent over HTTP on localhost, so that checking many small histories
+ * does not pay the JVM startup and warm-up every time.
+ * <pre>
+ * POST /check?t=PLUME&amp;i=RC,TCC&amp;path=/abs/history.txt   check a file readable by the server
+ * POST /check?t=PLUME_LIST&amp;i=TCC                       check the history in the request body
+ * GET  /health
+ * POST /shutdown
+ * </pre>
+ * Other parameters of /check: witnesses, time-limit in seconds, graph and order. The response is a JSON object with the
+ * verdict, as printed by --json, and the metrics of the check.
+ */
+@Command(name = "serve", mixinStandardHelpOptions = true, description = "Check histories sent over HTTP on localhost, in a resident JVM.\n")
+public class ServeCommand implements Callable<Integer> {
+
+    @Option(names = "--port", description = "Port on 127.0.0.1, 0 for any free port (default: ${DEFAULT-VALUE})")
+    private int port = 8080;
+
+    @Option(names = "--workers", description = "Requests checked at the same time (default: number of processors)")
+    private int workers = Runtime.getRuntime().availableProcessors();
+
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    @Override
+    public Integer call() throws IOException, InterruptedException {
+        var server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        var pool = Executors.newFixedThreadPool(workers);
+        server.setExecutor(pool);
+        server.createContext("/check", this::check);
+        server.createContext("/health", (exchange) -> respond(exchange, 200, "{\"status\":\"ok\"}"));
+        server.createContext("/shutdown", (exchange) -> {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                respond(exchange, 405, error("Use POST"));
+                return;
+            }
+            respond(exchange, 200, "{\"status\":\"stopping\"}");
+            stopped.countDown();
+        });
+        server.start();
+        System.out.println("Listening on http://127.0.0.1:" + server.getAddress().getPort());
+        stopped.await();
+        server.stop(0);
+        pool.shutdown();
+        return 0;
+    }
+
+    private void check(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            respond(exchange, 405, error("Use POST"));
+            return;
+        }
+        File temp = null;
+        try {
+            var params = parseQuery(exchange.getRequestURI().getRawQuery());
+            var algType = AlgType.valueOf(params.getOrDefault("t", AlgType.PLUME.name()));
+            var levels = new ArrayList<IsolationLevel>();
+            for (var level : params.getOrDefault("i", IsolationLevel.TCC.name()).split(",")) {
+                levels.add(IsolationLevel.valueOf(level));
+            }
+            File file;
+            if (params.containsKey("path")) {
+                file = new File(params.get("path"));
+                if (!file.isFile()) {
+                    respond(exchange, 400, error(String.format("%s is not a file", file)));
+                    return;
+                }
+            } else {
+                // the loaders map files, an inline history goes through a temporary one
+                temp = File.createTempFile("plume-serve", ".history");
+                try (var body = exchange.getRequestBody()) {
+                    Files.copy(body, temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                file = temp;
+            }
+
+            // requests run concurrently, their heap peaks are those of the JVM
+            var metrics = Metrics.shared();
+            var checked = file;
+            var plume = metrics.phase("load", () -> HistoryFiles.load(checked, algType, Collections.max(levels), false, 1));
+            plume.setGraphType(GraphType.valueOf(params.getOrDefault("graph", GraphType.HASH.name())));
+            plume.setTransactionOrder(TransactionOrder.valueOf(params.getOrDefault("order", TransactionOrder.ROUND_ROBIN.name())));
+            plume.setTimeLimit(Long.parseLong(params.getOrDefault("time-limit", "0")) * 1000);
+            plume.setWitnessLimit(Integer.parseInt(params.getOrDefault("witnesses", "3")));
+            plume.setVerbose(false);
+            plume.setMetrics(metrics);
+            plume.validate();
+            respond(exchange, 200, "{\"verdict\":" + Verdicts.toJson(plume, levels) + ",\"metrics\":" + metrics.toJson() + "}");
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, error(String.valueOf(e.getMessage())));
+        } catch (Exception | StackOverflowError | OutOfMemoryError e) {
+            respond(exchange, 500, error(String.valueOf(e)));
+        } finally {
+            if (temp != null) {
+                Files.deleteIfExists(temp.toPath());
+            }
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        var params = new HashMap<String, String>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (var pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            var key = eq < 0 ? pair : pair.substring(0, eq);
+            var value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + Json.quote(message) + "}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        var bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (var out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package generator;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes Cobra logs, one file T&lt;session&gt;.log per session in a directory. Values are unique, so they double
+ * as Cobra write ids. Cobra logs have no aborted transactions and every read names its writer, so reads of
+ * aborted or never written values cannot be written.
+ */
+public class CobraHistoryWriter implements HistoryWriter {
+    static final long INIT_ID = 0xbebeebeeL;
+
+    private final File directory;
+    private final Map<Integer, DataOutputStream> outs = new HashMap<>();
+
+    public CobraHistoryWriter(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException(String.format("Cannot create directory %s", directory));
+        }
+        this.directory = directory;
+    }
+
+    @Override
+    public void write(GeneratedTransaction txn) throws IOException {
+        if (txn.isAborted()) {
+            throw new IllegalArgumentException("Cobra logs cannot hold aborted transactions");
+        }
+        var out = outs.get(txn.getSession());
+        if (out == null) {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+                    new File(directory, String.format("T%d.log", txn.getSession()))), 1 << 16));
+            outs.put(txn.getSession(), out);
+        }
+        out.writeByte('S');
+        out.writeLong(txn.getId());
+        for (var op : txn.getOps()) {
+            if (op.isWrite()) {
+                out.writeByte('W');
+                out.writeLong(op.getValue());
+                out.writeLong(op.getKey());
+                out.writeLong(op.getValue());
+            } else {
+                if (op.getWriterId() == -1 && op.getValue() != 0) {
+                    throw new IllegalArgumentException("Cobra logs cannot hold reads without a writer");
+                }
+                out.writeByte('R');
+                out.writeLong(op.getValue() == 0 ? INIT_ID : op.getWriterId());
+                out.writeLong(op.getValue() == 0 ? INIT_ID : op.getValue());
+                out.writeLong(op.getKey());
+                out.writeLong(op.getValue());
+            }
+        }
+        out.writeByte('C');
+        out.writeLong(txn.getId());
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (var out : outs.values()) {
+            out.close();
+        }
+    }
+}
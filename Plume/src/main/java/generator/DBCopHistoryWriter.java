@@ -0,0 +1,92 @@
+package generator;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.TreeMap;
+
+/**
+ * Writes DBCop histories (the bincode encoding of its History, little-endian). The format groups transactions
+ * by session behind length prefixes, so each session is spooled to a temporary file and the file is assembled
+ * on close.
+ */
+public class DBCopHistoryWriter implements HistoryWriter {
+    private final File file;
+    private final TreeMap<Integer, Spool> spools = new TreeMap<>();
+    private final BitSet keys = new BitSet();
+    private long transactionCount = 0;
+    private long eventCount = 0;
+
+    private static class Spool {
+        final File file;
+        final DataOutputStream out;
+        long transactionCount = 0;
+
+        Spool(File file) throws IOException {
+            this.file = file;
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        }
+    }
+
+    public DBCopHistoryWriter(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public void write(GeneratedTransaction txn) throws IOException {
+        var spool = spools.get(txn.getSession());
+        if (spool == null) {
+            spool = new Spool(File.createTempFile("dbcop-session-", ".bin"));
+            spools.put(txn.getSession(), spool);
+        }
+        var out = spool.out;
+        out.writeLong(Long.reverseBytes(txn.getOps().size()));
+        for (var op : txn.getOps()) {
+            out.writeBoolean(op.isWrite());
+            out.writeLong(Long.reverseBytes(op.getKey()));
+            out.writeLong(Long.reverseBytes(op.getValue()));
+            out.writeBoolean(true);
+            keys.set((int) op.getKey());
+        }
+        out.writeBoolean(!txn.isAborted());
+        spool.transactionCount++;
+        transactionCount++;
+        eventCount += txn.getOps().size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeLong(0);
+            out.writeLong(Long.reverseBytes(spools.size()));
+            out.writeLong(Long.reverseBytes(keys.cardinality()));
+            out.writeLong(Long.reverseBytes(transactionCount));
+            out.writeLong(Long.reverseBytes(eventCount));
+            var date = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX").format(new Date());
+            writeString(out, "generated by Plume");
+            writeString(out, date);
+            writeString(out, date);
+
+            out.writeLong(Long.reverseBytes(spools.size()));
+            for (var spool : spools.values()) {
+                spool.out.close();
+                out.writeLong(Long.reverseBytes(spool.transactionCount));
+                Files.copy(spool.file.toPath(), out);
+            }
+        } finally {
+            for (var spool : spools.values()) {
+                spool.out.close();
+                spool.file.delete();
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        var bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeLong(Long.reverseBytes(bytes.length));
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,90 @@
+package generator;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes Elle list-append histories as read by {@link loader.ElleHistoryLoader}: writes become appends, reads
+ * print the list of the key. The lists of all keys are kept to print the reads, so unlike the other formats
+ * the memory grows with the number of writes.
+ */
+public class ElleHistoryWriter implements HistoryWriter {
+    private final BufferedWriter out;
+    private final Map<Long, long[]> lists = new HashMap<>();
+    private final Map<Long, Integer> sizes = new HashMap<>();
+    private long index = 0;
+
+    public ElleHistoryWriter(File file) throws IOException {
+        this.out = new BufferedWriter(new FileWriter(file), 1 << 16);
+    }
+
+    @Override
+    public void write(GeneratedTransaction txn) throws IOException {
+        out.write("{:type ");
+        out.write(txn.isAborted() ? ":fail" : ":ok");
+        out.write(", :f :txn, :value [");
+        boolean first = true;
+        for (var op : txn.getOps()) {
+            if (!first) {
+                out.write(' ');
+            }
+            first = false;
+            if (op.isWrite()) {
+                out.write("[:append ");
+                out.write(Long.toString(op.getKey()));
+                out.write(' ');
+                out.write(Long.toString(op.getValue()));
+                out.write(']');
+                if (!txn.isAborted()) {
+                    append(op.getKey(), op.getValue());
+                }
+            } else {
+                out.write("[:r ");
+                out.write(Long.toString(op.getKey()));
+                out.write(" [");
+                var list = lists.get(op.getKey());
+                for (int i = 0; i < op.getPrefix(); i++) {
+                    if (i > 0) {
+                        out.write(' ');
+                    }
+                    out.write(Long.toString(list[i]));
+                }
+                if (op.getValue() != 0) {
+                    if (op.getPrefix() > 0) {
+                        out.write(' ');
+                    }
+                    out.write(Long.toString(op.getValue()));
+                }
+                out.write("]]");
+            }
+        }
+        out.write("], :process ");
+        out.write(Integer.toString(txn.getSession()));
+        out.write(", :time ");
+        out.write(Long.toString(txn.getTime()));
+        out.write(", :index ");
+        out.write(Long.toString(index++));
+        out.write("}\n");
+    }
+
+    private void append(long key, long value) {
+        int size = sizes.getOrDefault(key, 0);
+        var list = lists.get(key);
+        if (list == null || list.length == size) {
+            list = list == null ? new long[4] : Arrays.copyOf(list, size * 2);
+            lists.put(key, list);
+        }
+        list[size] = value;
+        sizes.put(key, size + 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,35 @@
+package generator;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A transaction handed to a {@link HistoryWriter}, in commit order.
+ */
+@Data
+public class GeneratedTransaction {
+    private final long id;
+    private final int session;
+    // logical commit time
+    private final long time;
+    private final boolean aborted;
+    private final List<Op> ops = new ArrayList<>();
+
+    /**
+     * A read returns value, written by writerId, after prefix earlier versions of the key, which is what
+     * list-append formats print: the first prefix appends to the key followed by value unless it is 0.
+     * writerId is -1 for the initial value and for values no committed transaction wrote.
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Op {
+        private final boolean write;
+        private final long key;
+        private final long value;
+        private final long writerId;
+        private final int prefix;
+    }
+}
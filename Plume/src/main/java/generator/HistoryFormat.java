@@ -0,0 +1,27 @@
+package generator;
+
+import java.io.File;
+import java.io.IOException;
+
+public enum HistoryFormat {
+    TEXT,
+    ELLE,
+    // a directory of per-session logs
+    COBRA,
+    DBCOP;
+
+    public HistoryWriter open(File output) throws IOException {
+        switch (this) {
+            case TEXT:
+                return new TextHistoryWriter(output);
+            case ELLE:
+                return new ElleHistoryWriter(output);
+            case COBRA:
+                return new CobraHistoryWriter(output);
+            case DBCOP:
+                return new DBCopHistoryWriter(output);
+            default:
+                throw new RuntimeException();
+        }
+    }
+}
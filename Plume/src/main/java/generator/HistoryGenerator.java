@@ -0,0 +1,344 @@
+package generator;
+
+import taps.TAP;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates histories for benchmarks, streamed to a {@link HistoryWriter} with memory bounded by the key count.
+ * <p>
+ * The workload runs transactions of random sessions one after the other against a single store, every read
+ * returns the latest write, so the history is serializable. After each workload transaction every TAP of
+ * {@link WorkloadConfig#getInjections()} is injected with its rate: a few transactions that form the TAP on
+ * fresh keys, committed one after the other so that the workload cannot add CO edges between them. The
+ * patterns are built for read-write histories, checkers of list-append histories may classify some differently.
+ */
+public class HistoryGenerator {
+    /**
+     * TAPs the generator has a pattern for, list-append TAPs cannot be expressed in a read-write history.
+     */
+    public static final Set<TAP> INJECTABLE_TAPS = Collections.unmodifiableSet(EnumSet.complementOf(EnumSet.of(TAP.IncompatibleOrder)));
+
+    private final WorkloadConfig config;
+    private final Random random;
+    private final ZipfianGenerator zipfian;
+
+    private final long[] latest;
+    private final long[] latestWriter;
+    private final int[] versions;
+
+    private HistoryWriter writer;
+    private long nextTxnId = 0;
+    private long nextValue = 0;
+    private long nextFreshKey;
+    private long time = 0;
+
+    public HistoryGenerator(WorkloadConfig config) {
+        if (config.getSessions() <= 0 || config.getKeys() <= 0 || config.getOpsPerTxn() <= 0) {
+            throw new IllegalArgumentException("Sessions, keys and ops per transaction must be positive");
+        }
+        for (var tap : config.getInjections().keySet()) {
+            if (!INJECTABLE_TAPS.contains(tap)) {
+                throw new IllegalArgumentException(String.format("Cannot inject %s, candidates: %s", tap, INJECTABLE_TAPS));
+            }
+            if (sessionsOf(tap) > config.getSessions()) {
+                throw new IllegalArgumentException(String.format("Injecting %s needs %d sessions", tap, sessionsOf(tap)));
+            }
+        }
+        this.config = config;
+        this.random = new Random(config.getSeed());
+        this.zipfian = config.getZipf() > 0 ? new ZipfianGenerator(random, config.getKeys(), config.getZipf()) : null;
+        this.latest = new long[config.getKeys()];
+        this.latestWriter = new long[config.getKeys()];
+        this.versions = new int[config.getKeys()];
+        Arrays.fill(latestWriter, -1);
+        this.nextFreshKey = config.getKeys();
+    }
+
+    /**
+     * Write the whole history, the writer is not closed.
+     */
+    public void generate(HistoryWriter writer) throws IOException {
+        this.writer = writer;
+        int sessions = config.getSessions();
+        var remaining = new int[sessions];
+        Arrays.fill(remaining, config.getTxnsPerSession());
+        // sessions with transactions left are [0, active) of order
+        var order = new int[sessions];
+        for (int i = 0; i < sessions; i++) {
+            order[i] = i;
+        }
+        int active = config.getTxnsPerSession() > 0 ? sessions : 0;
+
+        while (active > 0) {
+            int pick = random.nextInt(active);
+            int session = order[pick];
+            workloadTransaction(session);
+            if (--remaining[session] == 0) {
+                order[pick] = order[--active];
+                order[active] = session;
+            }
+            for (var injection : config.getInjections().entrySet()) {
+                if (random.nextDouble() < injection.getValue()) {
+                    inject(injection.getKey());
+                }
+            }
+        }
+    }
+
+    private void workloadTransaction(int session) throws IOException {
+        var txn = begin(session, false);
+        for (int i = 0; i < config.getOpsPerTxn(); i++) {
+            int key = (int) (zipfian != null ? zipfian.next() : random.nextInt(config.getKeys()));
+            if (random.nextDouble() < config.getReadRatio()) {
+                txn.getOps().add(new GeneratedTransaction.Op(false, key, latest[key], latestWriter[key],
+                        Math.max(0, versions[key] - 1)));
+            } else {
+                long value = ++nextValue;
+                txn.getOps().add(new GeneratedTransaction.Op(true, key, value, txn.getId(), 0));
+                latest[key] = value;
+                latestWriter[key] = txn.getId();
+                versions[key]++;
+            }
+        }
+        writer.write(txn);
+    }
+
+    private GeneratedTransaction begin(int session, boolean aborted) {
+        return new GeneratedTransaction(aborted ? -1 : nextTxnId++, session, time++, aborted);
+    }
+
+    /**
+     * Fresh keys are only used by one injected pattern, the pattern tracks their versions itself.
+     */
+    private long freshKey() {
+        return nextFreshKey++;
+    }
+
+    private long freshValue() {
+        return ++nextValue;
+    }
+
+    private static GeneratedTransaction.Op write(GeneratedTransaction txn, long key, long value) {
+        var op = new GeneratedTransaction.Op(true, key, value, txn.getId(), 0);
+        txn.getOps().add(op);
+        return op;
+    }
+
+    private static void read(GeneratedTransaction txn, long key, long value, long writerId, int prefix) {
+        txn.getOps().add(new GeneratedTransaction.Op(false, key, value, writerId, prefix));
+    }
+
+    private static void read(GeneratedTransaction txn, GeneratedTransaction writer, long key, long value, int prefix) {
+        read(txn, key, value, writer.getId(), prefix);
+    }
+
+    private static int sessionsOf(TAP tap) {
+        switch (tap) {
+            case ThinAirRead:
+            case FutureRead:
+            case NotMyOwnWrite:
+            case NotMyLastWrite:
+                return 1;
+            case AbortedRead:
+            case IntermediateRead:
+            case NonRepeatableRead:
+            case CyclicCO:
+            case FracturedReadCO:
+            case NonMonoReadCO:
+            case COConflictAO:
+                return 2;
+            case FracturedReadAO:
+            case NonMonoReadAO:
+            case ConflictAO:
+                return 3;
+            default:
+                throw new IllegalArgumentException(String.format("Cannot inject %s", tap));
+        }
+    }
+
+    /**
+     * Distinct random sessions, as many as the pattern of tap needs.
+     */
+    private int[] pickSessions(TAP tap) {
+        int n = sessionsOf(tap);
+        var picked = new int[n];
+        for (int i = 0; i < n; i++) {
+            boolean fresh;
+            do {
+                picked[i] = random.nextInt(config.getSessions());
+                fresh = true;
+                for (int j = 0; j < i; j++) {
+                    fresh &= picked[j] != picked[i];
+                }
+            } while (!fresh);
+        }
+        return picked;
+    }
+
+    private void inject(TAP tap) throws IOException {
+        var s = pickSessions(tap);
+        long x = freshKey();
+        var txns = new ArrayList<GeneratedTransaction>();
+        switch (tap) {
+            case ThinAirRead: {
+                var t = begin(s[0], false);
+                read(t, x, freshValue(), -1, 0);
+                txns.add(t);
+                break;
+            }
+            case AbortedRead: {
+                var aborted = begin(s[0], true);
+                long a = write(aborted, x, freshValue()).getValue();
+                var t = begin(s[1], false);
+                read(t, x, a, -1, 0);
+                txns.addAll(List.of(aborted, t));
+                break;
+            }
+            case FutureRead: {
+                var t = begin(s[0], false);
+                long a = freshValue();
+                read(t, x, a, t.getId(), 0);
+                write(t, x, a);
+                txns.add(t);
+                break;
+            }
+            case NotMyOwnWrite: {
+                var t = begin(s[0], false);
+                write(t, x, freshValue());
+                read(t, x, 0, -1, 0);
+                txns.add(t);
+                break;
+            }
+            case NotMyLastWrite: {
+                var t = begin(s[0], false);
+                long a = write(t, x, freshValue()).getValue();
+                write(t, x, freshValue());
+                read(t, t, x, a, 0);
+                txns.add(t);
+                break;
+            }
+            case IntermediateRead: {
+                var t1 = begin(s[0], false);
+                long a = write(t1, x, freshValue()).getValue();
+                write(t1, x, freshValue());
+                var t2 = begin(s[1], false);
+                read(t2, t1, x, a, 0);
+                txns.addAll(List.of(t1, t2));
+                break;
+            }
+            case NonRepeatableRead: {
+                // t2 reads the initial value of x, then the write of t1
+                var t1 = begin(s[0], false);
+                long a = write(t1, x, freshValue()).getValue();
+                var t2 = begin(s[1], false);
+                read(t2, x, 0, -1, 0);
+                read(t2, t1, x, a, 0);
+                txns.addAll(List.of(t1, t2));
+                break;
+            }
+            case CyclicCO: {
+                // t1 and t2 read each other's write
+                long y = freshKey();
+                var t1 = begin(s[0], false);
+                var t2 = begin(s[1], false);
+                long a = write(t1, x, freshValue()).getValue();
+                long b = freshValue();
+                read(t1, t2, y, b, 0);
+                write(t2, y, b);
+                read(t2, t1, x, a, 0);
+                txns.addAll(List.of(t1, t2));
+                break;
+            }
+            case FracturedReadCO:
+            case NonMonoReadCO:
+            case COConflictAO: {
+                // t1 so-> t2 both write x, t3 reads x from t1 and is after t2
+                long y = freshKey();
+                var t1 = begin(s[0], false);
+                long a = write(t1, x, freshValue()).getValue();
+                var t2 = begin(s[0], false);
+                write(t2, x, freshValue());
+                long c = write(t2, y, freshValue()).getValue();
+                txns.addAll(List.of(t1, t2));
+                if (tap == TAP.COConflictAO) {
+                    // t2 wr-> t4 so-> t3
+                    var t4 = begin(s[1], false);
+                    read(t4, t2, y, c, 0);
+                    var t3 = begin(s[1], false);
+                    read(t3, t1, x, a, 0);
+                    txns.addAll(List.of(t4, t3));
+                } else {
+                    var t3 = begin(s[1], false);
+                    if (tap == TAP.FracturedReadCO) {
+                        read(t3, t1, x, a, 0);
+                        read(t3, t2, y, c, 0);
+                    } else {
+                        read(t3, t2, y, c, 0);
+                        read(t3, t1, x, a, 0);
+                    }
+                    txns.add(t3);
+                }
+                break;
+            }
+            case FracturedReadAO:
+            case NonMonoReadAO:
+            case ConflictAO: {
+                // r sees t1's w and still reads t2's z, so t1 ao-> t2, t3 reads x from t1 and is after t2
+                long y = freshKey();
+                long z = freshKey();
+                long w = freshKey();
+                var t1 = begin(s[0], false);
+                long a = write(t1, x, freshValue()).getValue();
+                write(t1, z, freshValue());
+                long d = write(t1, w, freshValue()).getValue();
+                var t2 = begin(s[1], false);
+                write(t2, x, freshValue());
+                long q = write(t2, z, freshValue()).getValue();
+                long c = write(t2, y, freshValue()).getValue();
+                txns.addAll(List.of(t1, t2));
+                if (tap == TAP.ConflictAO) {
+                    // t1 wr-> r0 so-> r and t2 wr-> t4 so-> t3, no direct edge closes a triangle
+                    var r0 = begin(s[2], false);
+                    read(r0, t1, w, d, 0);
+                    var r = begin(s[2], false);
+                    read(r, t2, z, q, 1);
+                    var t4 = begin(s[2], false);
+                    read(t4, t2, y, c, 0);
+                    var t3 = begin(s[2], false);
+                    read(t3, t1, x, a, 0);
+                    txns.addAll(List.of(r0, r, t4, t3));
+                } else {
+                    boolean fractured = tap == TAP.FracturedReadAO;
+                    var r = begin(s[2], false);
+                    var t3 = begin(s[2], false);
+                    if (fractured) {
+                        read(r, t2, z, q, 1);
+                        read(r, t1, w, d, 0);
+                        read(t3, t1, x, a, 0);
+                        read(t3, t2, y, c, 0);
+                    } else {
+                        read(r, t1, w, d, 0);
+                        read(r, t2, z, q, 1);
+                        read(t3, t2, y, c, 0);
+                        read(t3, t1, x, a, 0);
+                    }
+                    txns.addAll(List.of(r, t3));
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException(String.format("Cannot inject %s", tap));
+        }
+        for (var txn : txns) {
+            writer.write(txn);
+        }
+    }
+}
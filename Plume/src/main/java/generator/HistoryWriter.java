@@ -0,0 +1,11 @@
+package generator;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Sink of {@link HistoryGenerator}, receives the transactions one at a time.
+ */
+public interface HistoryWriter extends Closeable {
+    void write(GeneratedTransaction txn) throws IOException;
+}
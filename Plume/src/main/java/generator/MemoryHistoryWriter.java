@@ -0,0 +1,36 @@
+package generator;
+
+import history.History;
+import history.Operation;
+import lombok.Getter;
+
+/**
+ * Builds the History in memory, as the text format would load but keeping the session ids of the generator.
+ */
+public class MemoryHistoryWriter implements HistoryWriter {
+    @Getter
+    private final History<Long, Long> history = new History<>();
+
+    @Override
+    public void write(GeneratedTransaction txn) {
+        if (txn.isAborted()) {
+            txn.getOps().stream().filter(GeneratedTransaction.Op::isWrite)
+                    .forEach((op) -> history.addAbortedWrite(op.getKey(), op.getValue()));
+            return;
+        }
+        var session = history.getSession(txn.getSession());
+        if (session == null) {
+            session = history.addSession(txn.getSession());
+        }
+        var transaction = history.addTransaction(session, txn.getId());
+        for (var op : txn.getOps()) {
+            history.addOperation(transaction, op.isWrite() ? Operation.Type.WRITE : Operation.Type.READ,
+                    op.getKey(), op.getValue());
+        }
+    }
+
+    @Override
+    public void close() {
+        history.setSessionSize(history.getSessions().keySet().stream().mapToInt(Long::intValue).max().orElse(-1) + 1);
+    }
+}
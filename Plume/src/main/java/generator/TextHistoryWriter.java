@@ -0,0 +1,39 @@
+package generator;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Writes the format of {@link loader.TextHistoryLoader}, writes of aborted transactions get the txn id -1.
+ */
+public class TextHistoryWriter implements HistoryWriter {
+    private final BufferedWriter out;
+
+    public TextHistoryWriter(File file) throws IOException {
+        this.out = new BufferedWriter(new FileWriter(file), 1 << 16);
+    }
+
+    @Override
+    public void write(GeneratedTransaction txn) throws IOException {
+        long id = txn.isAborted() ? -1 : txn.getId();
+        for (var op : txn.getOps()) {
+            out.write(op.isWrite() ? 'w' : 'r');
+            out.write('(');
+            out.write(Long.toString(op.getKey()));
+            out.write(',');
+            out.write(Long.toString(op.getValue()));
+            out.write(',');
+            out.write(Integer.toString(txn.getSession()));
+            out.write(',');
+            out.write(Long.toString(id));
+            out.write(")\n");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,29 @@
+package generator;
+
+import lombok.Data;
+import taps.TAP;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Parameters of {@link HistoryGenerator}, the same config gives the same history.
+ */
+@Data
+public class WorkloadConfig {
+    private int sessions = 10;
+    private int txnsPerSession = 100;
+    private int opsPerTxn = 8;
+    private int keys = 1000;
+    private double readRatio = 0.5;
+    // 0 for uniform keys, otherwise the Zipfian constant, below 1
+    private double zipf = 0;
+    private long seed = 0;
+    // probability to inject the TAP after each transaction of the workload
+    private final Map<TAP, Double> injections = new EnumMap<>(TAP.class);
+
+    public WorkloadConfig inject(TAP tap, double rate) {
+        injections.put(tap, rate);
+        return this;
+    }
+}
@@ -0,0 +1,48 @@
+package generator;
+
+import java.util.Random;
+
+/**
+ * Zipfian distribution over [0, items) with item 0 the most popular, the algorithm of Gray et al.,
+ * "Quickly generating billion-record synthetic databases", as used by YCSB.
+ */
+class ZipfianGenerator {
+    private final Random random;
+    private final long items;
+    private final double theta;
+    private final double zetan;
+    private final double alpha;
+    private final double eta;
+
+    ZipfianGenerator(Random random, long items, double theta) {
+        if (theta <= 0 || theta >= 1) {
+            throw new IllegalArgumentException("The Zipfian constant must be in (0, 1)");
+        }
+        this.random = random;
+        this.items = items;
+        this.theta = theta;
+        this.zetan = zeta(items, theta);
+        this.alpha = 1 / (1 - theta);
+        this.eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta(2, theta) / zetan);
+    }
+
+    long next() {
+        double u = random.nextDouble();
+        double uz = u * zetan;
+        if (uz < 1) {
+            return 0;
+        }
+        if (uz < 1 + Math.pow(0.5, theta)) {
+            return Math.min(1, items - 1);
+        }
+        return Math.min(items - 1, (long) (items * Math.pow(eta * u - eta + 1, alpha)));
+    }
+
+    private static double zeta(long n, double theta) {
+        double sum = 0;
+        for (long i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+}
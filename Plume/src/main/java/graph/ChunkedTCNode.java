@@ -0,0 +1,62 @@
+package graph;
+
+import history.Transaction;
+import util.ChunkedTreeClock;
+
+/**
+ * {@link TCNode} on {@link ChunkedTreeClock}s. The clock of a node starts as a copy of the clock of its
+ * session predecessor and the AO clock as a copy of the CO clock, so a node only pays for the chunks its
+ * joins change.
+ */
+public class ChunkedTCNode<VarType, ValType> extends Node<VarType, ValType> {
+    private final ChunkedTreeClock clock;
+    private ChunkedTreeClock clockVO;
+
+    public ChunkedTCNode(Graph<VarType, ValType> graph, Transaction<VarType, ValType> transaction, short tid, int dim, Node<VarType, ValType> prev) {
+        super(graph, transaction);
+        if (prev != null) {
+            // prev is rooted at the same session, joining it into an empty clock is copying it
+            this.clock = ((ChunkedTCNode<VarType, ValType>) prev).clock.snapshot();
+        } else {
+            this.clock = new ChunkedTreeClock(tid, dim);
+        }
+        this.clock.incrementBy(1);
+    }
+
+    @Override
+    public boolean canReachByCO(Node<VarType, ValType> other) {
+        if (!(other instanceof ChunkedTCNode)) {
+            throw new RuntimeException("Type mismatch");
+        }
+        return this.clock.isLessThanOrEqual(((ChunkedTCNode<VarType, ValType>) other).clock);
+    }
+
+    @Override
+    public boolean canReachByAO(Node<VarType, ValType> other) {
+        if (!(other instanceof ChunkedTCNode)) {
+            throw new RuntimeException("Type mismatch");
+        }
+        return this.clockVO.isLessThanOrEqual(((ChunkedTCNode<VarType, ValType>) other).clockVO);
+    }
+
+    @Override
+    public void updateCOReachability(Node<VarType, ValType> other) {
+        if (!(other instanceof ChunkedTCNode)) {
+            throw new RuntimeException("Type mismatch");
+        }
+        this.clock.join(((ChunkedTCNode<VarType, ValType>) other).clock);
+    }
+
+    @Override
+    public void updateAOReachability(Node<VarType, ValType> other) {
+        if (!(other instanceof ChunkedTCNode)) {
+            throw new RuntimeException("Type mismatch");
+        }
+        this.clockVO.join(((ChunkedTCNode<VarType, ValType>) other).clockVO);
+    }
+
+    @Override
+    public void syncCOAO() {
+        clockVO = clock.snapshot();
+    }
+}
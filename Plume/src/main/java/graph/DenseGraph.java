@@ -0,0 +1,278 @@
+package graph;
+
+import java.util.*;
+
+/**
+ * Graph stored in growable primitive arrays, indexed by {@link Node#getIndex()}.
+ * <p>
+ * The out-edges of a vertex form a chain of edge slots (forward star) kept in insertion order. A slot holds
+ * the destination, the next slot of the chain and a bitmask of the edge types between the two vertices, the
+ * variable of a WR edge is kept in a parallel array. Parallel edges added one after the other share a slot,
+ * unless they are WR edges on different variables, so two such edges of the same type count as one, see
+ * {@link Graph}. An edge costs about 20 bytes instead of the map entries, pairs, list cells and {@link Edge}
+ * objects of {@link HashGraph}. The successor lists are walked from a cursor, ascending lookups by index are
+ * amortized constant time but others restart from the head of the chain.
+ */
+public class DenseGraph<VarType, ValType> implements Graph<VarType, ValType> {
+    private static final int NONE = -1;
+    private static final Edge.Type[] TYPES = Edge.Type.values();
+
+    private final List<Node<VarType, ValType>> nodes = new ArrayList<>();
+
+    // per vertex
+    private int[] head = new int[16];
+    private int[] tail = new int[16];
+    private int[] degree = new int[16];
+
+    // per edge slot
+    private int[] target = new int[16];
+    private int[] next = new int[16];
+    private byte[] types = new byte[16];
+    private Object[] variables = new Object[16];
+    private int edgeCount = 0;
+
+    @Override
+    public void addVertex(Node<VarType, ValType> node) {
+        if (contains(node)) {
+            return;
+        }
+        int index = nodes.size();
+        if (index == head.length) {
+            int capacity = index * 2;
+            head = Arrays.copyOf(head, capacity);
+            tail = Arrays.copyOf(tail, capacity);
+            degree = Arrays.copyOf(degree, capacity);
+        }
+        head[index] = NONE;
+        tail[index] = NONE;
+        degree[index] = 0;
+        node.setIndex(index);
+        nodes.add(node);
+    }
+
+    @Override
+    public void addEdge(Node<VarType, ValType> src, Node<VarType, ValType> dest, Edge<VarType> edge) {
+        if (!contains(src)) {
+            throw new RuntimeException();
+        }
+        int from = src.getIndex();
+        int to = dest.getIndex();
+        byte bit = bit(edge.getType());
+
+        int last = tail[from];
+        if (last != NONE && target[last] == to && (edge.getType() != Edge.Type.WR
+                || (types[last] & bit) == 0 || Objects.equals(variables[last], edge.getVariable()))) {
+            types[last] |= bit;
+            if (edge.getType() == Edge.Type.WR) {
+                variables[last] = edge.getVariable();
+            }
+            return;
+        }
+
+        if (edgeCount == target.length) {
+            int capacity = edgeCount * 2;
+            target = Arrays.copyOf(target, capacity);
+            next = Arrays.copyOf(next, capacity);
+            types = Arrays.copyOf(types, capacity);
+            variables = Arrays.copyOf(variables, capacity);
+        }
+        int slot = edgeCount++;
+        target[slot] = to;
+        next[slot] = NONE;
+        types[slot] = bit;
+        variables[slot] = edge.getType() == Edge.Type.WR ? edge.getVariable() : null;
+        link(from, slot);
+    }
+
+    @Override
+    public List<Node<VarType, ValType>> get(Node<VarType, ValType> node) {
+        int index = node.getIndex();
+        return new AbstractList<>() {
+            // position of the last lookup, so that ascending lookups continue from it
+            private int cursor = 0;
+            private int cursorSlot = NONE;
+
+            @Override
+            public Node<VarType, ValType> get(int i) {
+                if (i < 0 || i >= degree[index]) {
+                    throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + degree[index]);
+                }
+                if (i < cursor || cursorSlot == NONE) {
+                    cursor = 0;
+                    cursorSlot = head[index];
+                }
+                for (; cursor < i; cursor++) {
+                    cursorSlot = next[cursorSlot];
+                }
+                return nodes.get(target[cursorSlot]);
+            }
+
+            @Override
+            public int size() {
+                return degree[index];
+            }
+
+            @Override
+            public Iterator<Node<VarType, ValType>> iterator() {
+                return new Iterator<>() {
+                    private int slot = head[index];
+
+                    @Override
+                    public boolean hasNext() {
+                        return slot != NONE;
+                    }
+
+                    @Override
+                    public Node<VarType, ValType> next() {
+                        if (slot == NONE) {
+                            throw new NoSuchElementException();
+                        }
+                        var node = nodes.get(target[slot]);
+                        slot = next[slot];
+                        return node;
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Edge<VarType>> getEdge(Node<VarType, ValType> src, Node<VarType, ValType> dest) {
+        List<Edge<VarType>> result = null;
+        int to = dest.getIndex();
+        for (int slot = head[src.getIndex()]; slot != NONE; slot = next[slot]) {
+            if (target[slot] != to) {
+                continue;
+            }
+            for (var type : TYPES) {
+                if ((types[slot] & bit(type)) != 0) {
+                    if (result == null) {
+                        result = new ArrayList<>();
+                    }
+                    result.add(new Edge<>(type, type == Edge.Type.WR ? (VarType) variables[slot] : null));
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean hasEdge(Node<VarType, ValType> src, Node<VarType, ValType> dest, Edge.Type type) {
+        int to = dest.getIndex();
+        byte bit = bit(type);
+        for (int slot = head[src.getIndex()]; slot != NONE; slot = next[slot]) {
+            if (target[slot] == to && (types[slot] & bit) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Clear the type from every slot and compact the slots left without any type.
+     */
+    @Override
+    public void removeEdges(Edge.Type type) {
+        int[] remap = new int[nodes.size()];
+        for (int i = 0; i < remap.length; i++) {
+            remap[i] = i;
+        }
+        compact((byte) ~bit(type), remap, nodes.size());
+    }
+
+    @Override
+    public void removeVertices(Set<Node<VarType, ValType>> removed) {
+        int[] remap = new int[nodes.size()];
+        var remaining = new ArrayList<Node<VarType, ValType>>(nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            var node = nodes.get(i);
+            if (removed.contains(node)) {
+                remap[i] = NONE;
+            } else {
+                remap[i] = remaining.size();
+                node.setIndex(remaining.size());
+                remaining.add(node);
+            }
+        }
+        compact((byte) ~0, remap, remaining.size());
+        nodes.clear();
+        nodes.addAll(remaining);
+    }
+
+    /**
+     * Rebuild the slots keeping the types of mask, vertex i becomes remap[i] and is dropped if it is NONE,
+     * along with the edges to it.
+     */
+    private void compact(byte mask, int[] remap, int vertexCount) {
+        var oldHead = head;
+        var oldTarget = target;
+        var oldNext = next;
+        var oldTypes = types;
+        var oldVariables = variables;
+        head = new int[Math.max(16, vertexCount)];
+        tail = new int[head.length];
+        degree = new int[head.length];
+        target = new int[oldTarget.length];
+        next = new int[oldNext.length];
+        types = new byte[oldTypes.length];
+        variables = new Object[oldVariables.length];
+        edgeCount = 0;
+
+        for (int i = 0; i < remap.length; i++) {
+            int from = remap[i];
+            if (from == NONE) {
+                continue;
+            }
+            head[from] = NONE;
+            tail[from] = NONE;
+            for (int slot = oldHead[i]; slot != NONE; slot = oldNext[slot]) {
+                byte remaining = (byte) (oldTypes[slot] & mask);
+                int to = remap[oldTarget[slot]];
+                if (remaining == 0 || to == NONE) {
+                    continue;
+                }
+                int copy = edgeCount++;
+                target[copy] = to;
+                next[copy] = NONE;
+                types[copy] = remaining;
+                variables[copy] = (remaining & bit(Edge.Type.WR)) != 0 ? oldVariables[slot] : null;
+                link(from, copy);
+            }
+        }
+    }
+
+    @Override
+    public Node<VarType, ValType> getNode(int index) {
+        return nodes.get(index);
+    }
+
+    @Override
+    public List<Node<VarType, ValType>> getNodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    private boolean contains(Node<VarType, ValType> node) {
+        int index = node.getIndex();
+        return index >= 0 && index < nodes.size() && nodes.get(index) == node;
+    }
+
+    private void link(int from, int slot) {
+        if (tail[from] == NONE) {
+            head[from] = slot;
+        } else {
+            next[tail[from]] = slot;
+        }
+        tail[from] = slot;
+        degree[from]++;
+    }
+
+    private static byte bit(Edge.Type type) {
+        return (byte) (1 << type.ordinal());
+    }
+}
@@ -1,37 +1,67 @@
 package graph;
 
-import javafx.util.Pair;
-import lombok.Data;
-
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
-@Data
-public class Graph<VarType, ValType> {
-    private final Map<Node<VarType, ValType>, List<Node<VarType, ValType>>> adjMap = new HashMap<>();
+/**
+ * Directed multigraph of transactions. Every vertex gets a dense index in insertion order,
+ * see {@link Node#getIndex()}.
+ * <p>
+ * A backend may keep parallel edges of the same type, and of the same variable for WR edges, as one edge:
+ * {@link DenseGraph} does so when they are added one after the other, {@link HashGraph} keeps every edge.
+ * {@link #get(Node)}, {@link #getEdge(Node, Node)} and {@link #countEdges()} then see it once.
+ */
+public interface Graph<VarType, ValType> {
+    void addVertex(Node<VarType, ValType> node);
 
-    private final Map<Pair<Node<VarType, ValType>, Node<VarType, ValType>>, List<Edge<VarType>>> edges = new HashMap<>();
+    void addEdge(Node<VarType, ValType> src, Node<VarType, ValType> dest, Edge<VarType> edge);
 
-    public void addVertex(Node<VarType, ValType> node) {
-        adjMap.put(node, new LinkedList<>());
-    }
+    /**
+     * Successors of node, in the order their edges were added. The list is meant to be iterated, it does not
+     * implement {@link java.util.RandomAccess} and a lookup by index may walk the list.
+     */
+    List<Node<VarType, ValType>> get(Node<VarType, ValType> node);
 
-    public void addEdge(Node<VarType, ValType> src, Node<VarType, ValType> dest, Edge<VarType> edge){
-        var destSet = adjMap.get(src);
-        if (destSet == null) {
-            throw new RuntimeException();
-        }
-        destSet.add(dest);
-        edges.computeIfAbsent(new Pair<>(src, dest), k -> new LinkedList<>()).add(edge);
-    }
+    /**
+     * Edges from src to dest, null if there is none.
+     */
+    List<Edge<VarType>> getEdge(Node<VarType, ValType> src, Node<VarType, ValType> dest);
 
-    public List<Node<VarType, ValType>> get(Node<VarType, ValType> node) {
-        return adjMap.get(node);
+    default boolean hasEdge(Node<VarType, ValType> src, Node<VarType, ValType> dest, Edge.Type type) {
+        var edges = getEdge(src, dest);
+        return edges != null && edges.stream().anyMatch((edge) -> edge.getType() == type);
     }
 
-    public List<Edge<VarType>> getEdge(Node<VarType, ValType> src, Node<VarType, ValType> dest) {
-        return edges.get(new Pair<>(src, dest));
+    void removeEdges(Edge.Type type);
+
+    /**
+     * Remove the vertices and their edges, the remaining vertices get new dense indexes.
+     */
+    void removeVertices(Set<Node<VarType, ValType>> removed);
+
+    Node<VarType, ValType> getNode(int index);
+
+    List<Node<VarType, ValType>> getNodes();
+
+    int size();
+
+    /**
+     * Number of edges of each type.
+     */
+    default Map<Edge.Type, Long> countEdges() {
+        var counts = new EnumMap<Edge.Type, Long>(Edge.Type.class);
+        for (var type : Edge.Type.values()) {
+            counts.put(type, 0L);
+        }
+        for (var src : getNodes()) {
+            // a successor appears once per edge to it
+            for (var dest : new HashSet<>(get(src))) {
+                getEdge(src, dest).forEach((edge) -> counts.merge(edge.getType(), 1L, Long::sum));
+            }
+        }
+        return counts;
     }
 }
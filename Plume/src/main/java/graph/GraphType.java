@@ -0,0 +1,6 @@
+package graph;
+
+public enum GraphType {
+    HASH,
+    DENSE,
+}
@@ -0,0 +1,134 @@
+package graph;
+
+import javafx.util.Pair;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Data
+public class HashGraph<VarType, ValType> implements Graph<VarType, ValType> {
+    private final Map<Node<VarType, ValType>, List<Node<VarType, ValType>>> adjMap = new HashMap<>();
+
+    private final Map<Pair<Node<VarType, ValType>, Node<VarType, ValType>>, List<Edge<VarType>>> edges = new HashMap<>();
+
+    private final List<Node<VarType, ValType>> nodes = new ArrayList<>();
+
+    // distinct predecessors of each vertex, so that removing a vertex only visits its own edges
+    private final Map<Node<VarType, ValType>, Set<Node<VarType, ValType>>> predecessors = new HashMap<>();
+
+    // pairs joined by an AO edge, an online check removes them after every AO phase
+    private final Set<Pair<Node<VarType, ValType>, Node<VarType, ValType>>> aoPairs = new HashSet<>();
+
+    @Override
+    public void addVertex(Node<VarType, ValType> node) {
+        if (adjMap.put(node, new LinkedList<>()) == null) {
+            predecessors.put(node, new HashSet<>());
+            node.setIndex(nodes.size());
+            nodes.add(node);
+        }
+    }
+
+    @Override
+    public Node<VarType, ValType> getNode(int index) {
+        return nodes.get(index);
+    }
+
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    @Override
+    public void addEdge(Node<VarType, ValType> src, Node<VarType, ValType> dest, Edge<VarType> edge){
+        var destSet = adjMap.get(src);
+        if (destSet == null) {
+            throw new RuntimeException();
+        }
+        destSet.add(dest);
+        predecessors.get(dest).add(src);
+        var pair = new Pair<>(src, dest);
+        edges.computeIfAbsent(pair, k -> new LinkedList<>()).add(edge);
+        if (edge.getType() == Edge.Type.AO) {
+            aoPairs.add(pair);
+        }
+    }
+
+    @Override
+    public List<Node<VarType, ValType>> get(Node<VarType, ValType> node) {
+        return adjMap.get(node);
+    }
+
+    @Override
+    public List<Edge<VarType>> getEdge(Node<VarType, ValType> src, Node<VarType, ValType> dest) {
+        return edges.get(new Pair<>(src, dest));
+    }
+
+    /**
+     * Remove the vertices through their own edges, only the renumbering of the remaining vertices walks them all.
+     */
+    @Override
+    public void removeVertices(Set<Node<VarType, ValType>> removed) {
+        var touched = new HashSet<Node<VarType, ValType>>();
+        for (var node : removed) {
+            for (var dest : new HashSet<>(adjMap.remove(node))) {
+                removePair(new Pair<>(node, dest));
+                if (!removed.contains(dest)) {
+                    predecessors.get(dest).remove(node);
+                }
+            }
+            for (var src : predecessors.remove(node)) {
+                removePair(new Pair<>(src, node));
+                if (!removed.contains(src)) {
+                    touched.add(src);
+                }
+            }
+        }
+        touched.forEach((src) -> adjMap.get(src).removeIf(removed::contains));
+        nodes.removeIf(removed::contains);
+        for (int i = 0; i < nodes.size(); i++) {
+            nodes.get(i).setIndex(i);
+        }
+    }
+
+    private void removePair(Pair<Node<VarType, ValType>, Node<VarType, ValType>> pair) {
+        edges.remove(pair);
+        aoPairs.remove(pair);
+    }
+
+    /**
+     * AO edges are found through the pairs recorded when they were added, the other types scan every edge.
+     */
+    @Override
+    public void removeEdges(Edge.Type type) {
+        if (type == Edge.Type.AO) {
+            aoPairs.forEach((pair) -> removeEdges(pair, edges.get(pair), type));
+            aoPairs.clear();
+            return;
+        }
+        for (var pair : new ArrayList<>(edges.keySet())) {
+            removeEdges(pair, edges.get(pair), type);
+        }
+    }
+
+    private void removeEdges(Pair<Node<VarType, ValType>, Node<VarType, ValType>> pair, List<Edge<VarType>> edgeList,
+                             Edge.Type type) {
+        var destList = adjMap.get(pair.getKey());
+        var edgeIter = edgeList.iterator();
+        while (edgeIter.hasNext()) {
+            if (edgeIter.next().getType() == type) {
+                edgeIter.remove();
+                destList.remove(pair.getValue());
+            }
+        }
+        if (edgeList.isEmpty()) {
+            edges.remove(pair);
+            predecessors.get(pair.getValue()).remove(pair.getKey());
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package graph;
+
+import util.EventCounter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Topological order of a graph kept up to date while edges are added, after Pearce and Kelly, "A dynamic
+ * topological sort algorithm for directed acyclic graphs".
+ * <p>
+ * The order is seeded from the edges already in the graph. An edge added afterwards that goes backwards in the
+ * order only reorders the nodes between its ends: those reachable from its head and those reaching its tail.
+ * If its head reaches its tail, the edge closes a cycle, which is returned and the order is no longer kept.
+ * Edges must be added to the graph before they are passed to {@link #addEdge(Node, Node)}. Successors come from
+ * the graph, predecessors are recorded here. Not thread-safe.
+ */
+public class IncrementalTopologicalOrder<VarType, ValType> {
+    private final Graph<VarType, ValType> graph;
+
+    // position of each node index in the order
+    private final int[] ord;
+    private final int[][] preds;
+    private final int[] predCount;
+
+    private final int[] visited;
+    private final int[] parent;
+    private int[] queue = new int[16];
+    private int epoch = 0;
+
+    private List<Node<VarType, ValType>> cycle;
+
+    public IncrementalTopologicalOrder(Graph<VarType, ValType> graph) {
+        this.graph = graph;
+        int size = graph.size();
+        ord = new int[size];
+        preds = new int[size][];
+        predCount = new int[size];
+        visited = new int[size];
+        parent = new int[size];
+        Arrays.fill(preds, new int[0]);
+
+        var inDegree = new int[size];
+        for (int i = 0; i < size; i++) {
+            for (var next : graph.get(graph.getNode(i))) {
+                inDegree[next.getIndex()]++;
+                addPred(next.getIndex(), i);
+            }
+        }
+        // Kahn, nodes left without a position are on or behind a cycle
+        var order = new int[size];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < size; i++) {
+            if (inDegree[i] == 0) {
+                order[tail++] = i;
+            }
+        }
+        while (head < tail) {
+            int cur = order[head];
+            ord[cur] = head++;
+            for (var next : graph.get(graph.getNode(cur))) {
+                if (--inDegree[next.getIndex()] == 0) {
+                    order[tail++] = next.getIndex();
+                }
+            }
+        }
+        if (tail < size) {
+            cycle = findCycle(inDegree);
+        }
+    }
+
+    /**
+     * A cycle of the graph, null while it is acyclic.
+     */
+    public List<Node<VarType, ValType>> getCycle() {
+        return cycle;
+    }
+
+    /**
+     * Record the edge from -> to, already added to the graph, and return the cycle it closes or null.
+     */
+    public List<Node<VarType, ValType>> addEdge(Node<VarType, ValType> from, Node<VarType, ValType> to) {
+        if (cycle != null) {
+            return cycle;
+        }
+        int x = from.getIndex();
+        int y = to.getIndex();
+        addPred(y, x);
+        if (x == y) {
+            cycle = List.of(from);
+            return cycle;
+        }
+        int lowerBound = ord[y];
+        int upperBound = ord[x];
+        if (lowerBound > upperBound) {
+            return null;
+        }
+
+        // nodes reachable from y that are not after x, finding x closes a cycle
+        nextEpoch();
+        int forwardEnd = search(y, x, upperBound, true);
+        if (forwardEnd < 0) {
+            cycle = new ArrayList<>();
+            for (int cur = x; cur != y; cur = parent[cur]) {
+                cycle.add(graph.getNode(cur));
+            }
+            cycle.add(to);
+            Collections.reverse(cycle);
+            return cycle;
+        }
+        var forward = sortByOrder(forwardEnd);
+        // nodes reaching x that are not before y, none of them was reached from y
+        nextEpoch();
+        var backward = sortByOrder(search(x, -1, lowerBound, false));
+
+        // the backward nodes take the first of the freed positions, in their relative order
+        var positions = new int[backward.length + forward.length];
+        int i = 0;
+        for (int node : backward) {
+            positions[i++] = ord[node];
+        }
+        for (int node : forward) {
+            positions[i++] = ord[node];
+        }
+        Arrays.sort(positions);
+        i = 0;
+        for (int node : backward) {
+            ord[node] = positions[i++];
+        }
+        for (int node : forward) {
+            ord[node] = positions[i++];
+        }
+        return null;
+    }
+
+    /**
+     * Visit from start, forward up to the bound position or backward down to it, and return the number of visited
+     * nodes, left at the start of the queue. Returns -1 as soon as target is reached.
+     */
+    private int search(int start, int target, int bound, boolean forward) {
+        int head = 0;
+        int top = 0;
+        push(top++, start);
+        visited[start] = epoch;
+        while (head < top) {
+            int cur = queue[head++];
+            EventCounter.DFS_VISITS.increment();
+            if (forward) {
+                for (var next : graph.get(graph.getNode(cur))) {
+                    int index = next.getIndex();
+                    if (index == target) {
+                        parent[index] = cur;
+                        return -1;
+                    }
+                    if (visited[index] != epoch && ord[index] < bound) {
+                        visited[index] = epoch;
+                        parent[index] = cur;
+                        push(top++, index);
+                    }
+                }
+            } else {
+                for (int p = 0; p < predCount[cur]; p++) {
+                    int index = preds[cur][p];
+                    if (visited[index] != epoch && ord[index] > bound) {
+                        visited[index] = epoch;
+                        push(top++, index);
+                    }
+                }
+            }
+        }
+        return top;
+    }
+
+    private int[] sortByOrder(int count) {
+        var keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = ((long) ord[queue[i]] << 32) | queue[i];
+        }
+        Arrays.sort(keys);
+        var nodes = new int[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = (int) keys[i];
+        }
+        return nodes;
+    }
+
+    private void push(int top, int node) {
+        if (top == queue.length) {
+            queue = Arrays.copyOf(queue, top * 2);
+        }
+        queue[top] = node;
+    }
+
+    private void addPred(int node, int pred) {
+        if (predCount[node] == preds[node].length) {
+            preds[node] = Arrays.copyOf(preds[node], Math.max(2, predCount[node] * 2));
+        }
+        preds[node][predCount[node]++] = pred;
+    }
+
+    private void nextEpoch() {
+        if (++epoch == 0) {
+            Arrays.fill(visited, 0);
+            epoch = 1;
+        }
+    }
+
+    /**
+     * Walk back through predecessors left by Kahn until a node repeats, every such node has one.
+     */
+    private List<Node<VarType, ValType>> findCycle(int[] inDegree) {
+        int cur = 0;
+        while (inDegree[cur] == 0) {
+            cur++;
+        }
+        nextEpoch();
+        while (visited[cur] != epoch) {
+            visited[cur] = epoch;
+            int next = cur;
+            for (int p = 0; p < predCount[cur]; p++) {
+                if (inDegree[preds[cur][p]] > 0) {
+                    next = preds[cur][p];
+                    break;
+                }
+            }
+            parent[cur] = next;
+            cur = next;
+        }
+        // cur is on the cycle, parent points backwards along it
+        var result = new ArrayList<Node<VarType, ValType>>();
+        int start = cur;
+        do {
+            result.add(graph.getNode(cur));
+            cur = parent[cur];
+        } while (cur != start);
+        Collections.reverse(result);
+        return result;
+    }
+}
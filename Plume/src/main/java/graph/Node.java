@@ -15,6 +15,9 @@ public abstract class Node<VarType, ValType> {
     @ToString.Include
     private final Transaction<VarType, ValType> transaction;
 
+    // dense position in the graph, assigned by Graph.addVertex
+    private int index = -1;
+
     public abstract boolean canReachByCO(Node<VarType, ValType> other);
 
     public abstract boolean canReachByAO(Node<VarType, ValType> other);
@@ -1,7 +1,7 @@
 package graph;
 
 import history.Transaction;
-import util.DFSCounter;
+import util.EventCounter;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -16,7 +16,7 @@ public class NormalNode<VarType, ValType> extends Node<VarType, ValType>{
         if (cur.equals(target)) {
             return true;
         }
-        DFSCounter.increment();
+        EventCounter.DFS_VISITS.increment();
         reachable.add(cur);
         for (var next : getGraph().get(cur)) {
             if (reachable.contains(next)) {
@@ -0,0 +1,76 @@
+package graph;
+
+import util.EventCounter;
+
+import java.util.Arrays;
+
+/**
+ * Pushes the clock of a node to everything downstream of it in the graph.
+ * <p>
+ * The traversal is iterative with an explicit stack of node indexes, so long session chains cannot overflow
+ * the call stack. Visited marks live in an array indexed by {@link Node#getIndex()} and stamped with the
+ * number of the current traversal, starting a new traversal only increments that number instead of
+ * allocating or clearing a set. Not thread-safe, one instance per graph.
+ */
+public class ReachabilityPropagator<VarType, ValType> {
+    private final Graph<VarType, ValType> graph;
+
+    private int[] visited = new int[16];
+    private int[] stack = new int[16];
+    private int epoch = 0;
+
+    public ReachabilityPropagator(Graph<VarType, ValType> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Update the CO or AO reachability of every node reachable from upNode that upNode does not reach yet.
+     */
+    public void propagate(Node<VarType, ValType> upNode, Edge.Type edgeType) {
+        nextEpoch();
+        int top = 0;
+        stack[top++] = upNode.getIndex();
+        visited[upNode.getIndex()] = epoch;
+
+        while (top > 0) {
+            var cur = graph.getNode(stack[--top]);
+            EventCounter.DFS_VISITS.increment();
+            for (var next : graph.get(cur)) {
+                int index = next.getIndex();
+                if (visited[index] == epoch) {
+                    continue;
+                }
+                if (edgeType == Edge.Type.CO) {
+                    if (upNode.canReachByCO(next)) {
+                        continue;
+                    }
+                    next.updateCOReachability(upNode);
+                } else if (edgeType == Edge.Type.AO) {
+                    if (upNode.canReachByAO(next)) {
+                        continue;
+                    }
+                    next.updateAOReachability(upNode);
+                } else {
+                    continue;
+                }
+                visited[index] = epoch;
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top++] = index;
+            }
+        }
+    }
+
+    private void nextEpoch() {
+        int size = graph.size();
+        if (visited.length < size) {
+            visited = Arrays.copyOf(visited, Math.max(size, visited.length * 2));
+        }
+        if (++epoch == 0) {
+            // the stamp wrapped around, old marks could collide with the new one
+            Arrays.fill(visited, 0);
+            epoch = 1;
+        }
+    }
+}
@@ -1,17 +1,19 @@
 package graph;
 
 import history.Transaction;
-import util.VectorClock;
+import util.IntVectorClock;
 
 public class VCNode<VarType, ValType> extends Node<VarType, ValType>{
-    private final VectorClock clock;
-    private VectorClock clockVO;
+    private final IntVectorClock clock;
+    private IntVectorClock clockVO;
 
     public VCNode(Graph<VarType, ValType> graph, Transaction<VarType, ValType> transaction, short tid, int dim, Node<VarType, ValType> prev) {
         super(graph, transaction);
-        this.clock = new VectorClock(tid, dim);
         if (prev != null) {
-            this.clock.join(((VCNode<VarType, ValType>) prev).clock);
+            // prev belongs to the same session, joining it into a zero clock is copying it
+            this.clock = new IntVectorClock(((VCNode<VarType, ValType>) prev).clock);
+        } else {
+            this.clock = new IntVectorClock(tid, dim);
         }
         this.clock.incrementBy(1);
     }
@@ -48,6 +50,6 @@ public class VCNode<VarType, ValType> extends Node<VarType, ValType>{
 
     @Override
     public void syncCOAO() {
-        clockVO = new VectorClock(clock);
+        clockVO = new IntVectorClock(clock);
     }
 }
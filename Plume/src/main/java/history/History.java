@@ -4,6 +4,7 @@ import javafx.util.Pair;
 import lombok.Data;
 
 import java.util.*;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 @Data
@@ -56,7 +57,7 @@ public class History<VarType, ValType> {
                 .map(List::size)
                 .max(Integer::compareTo)
                 .orElse(0);
-        var result = new LinkedList<Transaction<VarType, ValType>>();
+        var result = new ArrayList<Transaction<VarType, ValType>>(transactions.size());
         for (int i = 0; i < maxLength; ++i) {
             for (Session<VarType, ValType> session : sessions.values()) {
                 if (session.getTransactions().size() <= i) {
@@ -67,4 +68,125 @@ public class History<VarType, ValType> {
         }
         return result;
     }
+
+    public List<Transaction<VarType, ValType>> getTransactions(TransactionOrder order) {
+        switch (order) {
+            case ROUND_ROBIN:
+                return getFlatTransactions();
+            case TIMESTAMP:
+                return getTransactionsByTime();
+            case TOPOLOGICAL:
+                return getTopologicalTransactions();
+            default:
+                throw new RuntimeException();
+        }
+    }
+
+    /**
+     * Merge of the sessions by commit time, a session whose times go backwards keeps its order.
+     */
+    public List<Transaction<VarType, ValType>> getTransactionsByTime() {
+        if (transactions.values().stream().anyMatch((txn) -> txn.getTime() < 0)) {
+            return getFlatTransactions();
+        }
+        var sessionList = new ArrayList<List<Transaction<VarType, ValType>>>();
+        sessions.values().forEach((session) -> sessionList.add(session.getTransactions()));
+        // {session, position} of the next transaction of each session, by its time
+        var heads = new PriorityQueue<int[]>(Comparator
+                .comparingLong((int[] head) -> sessionList.get(head[0]).get(head[1]).getTime())
+                .thenComparingInt((int[] head) -> head[0]));
+        for (int s = 0; s < sessionList.size(); s++) {
+            if (!sessionList.get(s).isEmpty()) {
+                heads.add(new int[]{s, 0});
+            }
+        }
+        var result = new ArrayList<Transaction<VarType, ValType>>(transactions.size());
+        while (!heads.isEmpty()) {
+            var head = heads.poll();
+            var txns = sessionList.get(head[0]);
+            result.add(txns.get(head[1]));
+            if (++head[1] < txns.size()) {
+                heads.add(head);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Approximate topological order of SO and WR: the next transaction of a session is taken once the writers
+     * of all its reads are taken. When no session can go on, because of a cycle or of reads from a later
+     * transaction of the same session, the one waiting for the fewest writers goes first.
+     */
+    public List<Transaction<VarType, ValType>> getTopologicalTransactions() {
+        var writers = new HashMap<Pair<VarType, ValType>, Transaction<VarType, ValType>>();
+        transactions.values().forEach((txn) -> txn.getOps().forEach((op) -> {
+            if (op.getType() == Operation.Type.WRITE) {
+                writers.put(new Pair<>(op.getVariable(), op.getValue()), txn);
+            }
+        }));
+
+        var sessionList = new ArrayList<List<Transaction<VarType, ValType>>>();
+        var sessionIndex = new HashMap<Session<VarType, ValType>, Integer>();
+        sessions.values().forEach((session) -> {
+            sessionIndex.put(session, sessionList.size());
+            sessionList.add(session.getTransactions());
+        });
+        int total = sessionList.stream().mapToInt(List::size).sum();
+        var next = new int[sessionList.size()];
+        // writers not taken yet of the next transaction of each session
+        var missing = new int[sessionList.size()];
+        // transactions waiting for a writer, by writer
+        var waiting = new HashMap<Transaction<VarType, ValType>, List<Transaction<VarType, ValType>>>();
+        var taken = new HashSet<Transaction<VarType, ValType>>();
+        var ready = new ArrayDeque<Integer>();
+        var result = new ArrayList<Transaction<VarType, ValType>>(total);
+
+        IntConsumer advance = (s) -> {
+            if (next[s] == sessionList.get(s).size()) {
+                return;
+            }
+            var head = sessionList.get(s).get(next[s]);
+            var waitFor = new HashSet<Transaction<VarType, ValType>>();
+            for (var op : head.getOps()) {
+                var writer = op.getType() == Operation.Type.READ ? writers.get(new Pair<>(op.getVariable(), op.getValue())) : null;
+                if (writer != null && writer != head && !taken.contains(writer)) {
+                    waitFor.add(writer);
+                }
+            }
+            missing[s] = waitFor.size();
+            if (waitFor.isEmpty()) {
+                ready.add(s);
+            }
+            waitFor.forEach((writer) -> waiting.computeIfAbsent(writer, k -> new ArrayList<>()).add(head));
+        };
+        for (int s = 0; s < sessionList.size(); s++) {
+            advance.accept(s);
+        }
+
+        while (result.size() < total) {
+            if (ready.isEmpty()) {
+                int closest = -1;
+                for (int s = 0; s < sessionList.size(); s++) {
+                    if (next[s] < sessionList.get(s).size() && (closest < 0 || missing[s] < missing[closest])) {
+                        closest = s;
+                    }
+                }
+                ready.add(closest);
+            }
+            int s = ready.poll();
+            var txn = sessionList.get(s).get(next[s]++);
+            taken.add(txn);
+            result.add(txn);
+            for (var waiter : waiting.getOrDefault(txn, List.of())) {
+                int w = sessionIndex.get(waiter.getSession());
+                // a waiter taken when a wait was broken is no longer the next transaction of its session
+                if (next[w] < sessionList.get(w).size() && sessionList.get(w).get(next[w]) == waiter && --missing[w] == 0) {
+                    ready.add(w);
+                }
+            }
+            waiting.remove(txn);
+            advance.accept(s);
+        }
+        return result;
+    }
 }
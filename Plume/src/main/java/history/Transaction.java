@@ -1,7 +1,9 @@
 package history;
 
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Setter;
 import lombok.ToString;
 
 import java.util.ArrayList;
@@ -21,4 +23,24 @@ public class Transaction <VarType, ValType> {
 
     List<Operation<VarType, ValType>> ops = new ArrayList<>();
 
+    // commit time, the :time of Elle histories, -1 if unknown
+    private long time = -1;
+
+    // built on first use, read by the checks of several threads
+    @Setter(AccessLevel.NONE)
+    private volatile TransactionIndex<VarType, ValType> index;
+
+    /**
+     * Index of the ops, built again if ops were added since. The index of a small transaction only scans
+     * the ops, it is kept all the same so that the checks do not allocate one per probe.
+     */
+    public TransactionIndex<VarType, ValType> getIndex() {
+        var current = index;
+        if (current == null || current.getSize() != ops.size()) {
+            current = new TransactionIndex<>(ops);
+            index = current;
+        }
+        return current;
+    }
+
 }
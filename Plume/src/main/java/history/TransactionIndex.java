@@ -0,0 +1,86 @@
+package history;
+
+import javafx.util.Pair;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Reads and writes of one transaction by (variable, value), so that checks comparing the ops of two
+ * transactions, or the ops of one transaction with each other, probe instead of scanning every op.
+ * Transactions of fewer than {@link #MIN_INDEXED_SIZE} ops are scanned, a probe would not be cheaper than
+ * a few comparisons and the maps would outweigh the ops. Every list is in op order.
+ */
+public class TransactionIndex<VarType, ValType> {
+    static final int MIN_INDEXED_SIZE = 16;
+
+    private final List<Operation<VarType, ValType>> ops;
+    @Getter
+    private final List<Operation<VarType, ValType>> writes = new ArrayList<>();
+    // null if the ops are scanned
+    private final Map<Pair<VarType, ValType>, List<Operation<VarType, ValType>>> readsByKey;
+    private final Map<Pair<VarType, ValType>, List<Operation<VarType, ValType>>> writesByKey;
+    // number of indexed ops, to tell whether the transaction grew since
+    @Getter
+    private final int size;
+
+    TransactionIndex(List<Operation<VarType, ValType>> ops) {
+        this.ops = ops;
+        size = ops.size();
+        boolean indexed = size >= MIN_INDEXED_SIZE;
+        readsByKey = indexed ? new HashMap<>() : null;
+        writesByKey = indexed ? new HashMap<>() : null;
+        for (int i = 0; i < size; i++) {
+            var op = ops.get(i);
+            if (op.getType() == Operation.Type.WRITE) {
+                writes.add(op);
+            }
+            if (!indexed) {
+                continue;
+            }
+            var key = new Pair<>(op.getVariable(), op.getValue());
+            if (op.getType() == Operation.Type.READ) {
+                readsByKey.computeIfAbsent(key, k -> new ArrayList<>(1)).add(op);
+            } else {
+                writesByKey.computeIfAbsent(key, k -> new ArrayList<>(1)).add(op);
+            }
+        }
+    }
+
+    boolean isIndexed() {
+        return readsByKey != null;
+    }
+
+    public List<Operation<VarType, ValType>> getReads(VarType variable, ValType value) {
+        if (readsByKey == null) {
+            return scan(Operation.Type.READ, variable, value);
+        }
+        return readsByKey.getOrDefault(new Pair<>(variable, value), Collections.emptyList());
+    }
+
+    public List<Operation<VarType, ValType>> getWrites(VarType variable, ValType value) {
+        if (writesByKey == null) {
+            return scan(Operation.Type.WRITE, variable, value);
+        }
+        return writesByKey.getOrDefault(new Pair<>(variable, value), Collections.emptyList());
+    }
+
+    private List<Operation<VarType, ValType>> scan(Operation.Type type, VarType variable, ValType value) {
+        List<Operation<VarType, ValType>> result = Collections.emptyList();
+        for (int i = 0; i < size; i++) {
+            var op = ops.get(i);
+            if (op.getType() == type && Objects.equals(op.getVariable(), variable) && Objects.equals(op.getValue(), value)) {
+                if (result.isEmpty()) {
+                    result = new ArrayList<>(1);
+                }
+                result.add(op);
+            }
+        }
+        return result;
+    }
+}
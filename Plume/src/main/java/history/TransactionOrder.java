@@ -0,0 +1,13 @@
+package history;
+
+/**
+ * Order in which buildCO adds the transactions, every order keeps the session order.
+ */
+public enum TransactionOrder {
+    // the i-th transactions of all sessions, then the (i+1)-th
+    ROUND_ROBIN,
+    // by commit time, round-robin if a transaction has no time
+    TIMESTAMP,
+    // writers before their readers where SO and WR allow it
+    TOPOLOGICAL,
+}
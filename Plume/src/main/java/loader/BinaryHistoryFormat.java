@@ -0,0 +1,47 @@
+package loader;
+
+/**
+ * Layout of binary histories, all numbers big-endian.
+ * <pre>
+ * header, 64 bytes
+ *   magic "PLMH", version u16, kind u8, flags u8,
+ *   session count i32, history session size i32, key count i32, padding i32,
+ *   transaction count i64, op count i64, list value count i64, aborted write count i64, reserved i64
+ * sessions, only with FLAG_SESSION_INDEX, 16 bytes each
+ *   session id i64, first transaction i32, transaction count i32
+ * transactions, grouped by session in session order, 32 bytes each
+ *   transaction id i64, session id i64, op count i32, padding i32, commit time i64 (-1 if unknown)
+ * ops, in transaction order, 24 bytes each
+ *   type u8 (0 read, 1 write), padding u8[3], list length i32, key i64, value i64
+ *   for a read of an Elle list the value is the index of its first element in the list values
+ * list values, i32 each
+ * aborted writes, 16 bytes each
+ *   key i64, value i64
+ * </pre>
+ * Version 1 had no commit time, its transaction records are 24 bytes long.
+ */
+final class BinaryHistoryFormat {
+    static final int MAGIC = 0x504C4D48;
+    static final short VERSION = 2;
+
+    // histories of TextHistoryLoader, Long keys and values
+    static final byte KIND_TEXT = 0;
+    // histories of ElleHistoryLoader, Integer keys and list values
+    static final byte KIND_ELLE = 1;
+
+    static final byte FLAG_SESSION_INDEX = 1;
+
+    static final int HEADER_SIZE = 64;
+    static final int SESSION_SIZE = 16;
+    static final int TRANSACTION_SIZE = 32;
+    static final int TRANSACTION_SIZE_V1 = 24;
+    static final int OP_SIZE = 24;
+    static final int LIST_VALUE_SIZE = 4;
+    static final int ABORTED_WRITE_SIZE = 16;
+
+    static final byte READ = 0;
+    static final byte WRITE = 1;
+
+    private BinaryHistoryFormat() {
+    }
+}
@@ -0,0 +1,214 @@
+package loader;
+
+import history.History;
+import history.Operation;
+import history.Session;
+import lombok.SneakyThrows;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static loader.BinaryHistoryFormat.*;
+
+/**
+ * Loads histories written by {@link BinaryHistoryWriter}. The file is memory-mapped and the History is built
+ * from the fixed-width records directly, nothing is parsed.
+ */
+public class BinaryHistoryLoader<VarType, ValType> implements HistoryLoader<VarType, ValType> {
+    private final File historyFile;
+    private final byte kind;
+    // read lists of Elle histories, shared through the interner
+    private final ElleListInterner listInterner = new ElleListInterner();
+    private int[] listBuffer = new int[16];
+
+    private BinaryHistoryLoader(File historyFile, byte kind) {
+        this.historyFile = historyFile;
+        this.kind = kind;
+    }
+
+    public static BinaryHistoryLoader<Long, Long> text(File historyFile) {
+        return new BinaryHistoryLoader<>(historyFile, KIND_TEXT);
+    }
+
+    public static BinaryHistoryLoader<Integer, ElleHistoryLoader.ElleValue> elle(File historyFile) {
+        return new BinaryHistoryLoader<>(historyFile, KIND_ELLE);
+    }
+
+    /**
+     * Whether the file starts with the magic number of binary histories.
+     */
+    public static boolean isBinary(File file) {
+        try (var in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public History<VarType, ValType> loadHistory() {
+        try (var channel = FileChannel.open(historyFile.toPath(), StandardOpenOption.READ)) {
+            var header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC) {
+                throw new RuntimeException(String.format("%s is not a binary history", historyFile));
+            }
+            short version = header.getShort(4);
+            if (version != VERSION && version != 1) {
+                throw new RuntimeException(String.format("Unsupported binary history version %d", version));
+            }
+            if (header.get(6) != kind) {
+                throw new RuntimeException(String.format("%s holds a %s history", historyFile,
+                        header.get(6) == KIND_ELLE ? "list-append" : "read-write"));
+            }
+            boolean hasSessionIndex = (header.get(7) & FLAG_SESSION_INDEX) != 0;
+            int sessionCount = header.getInt(8);
+            int sessionSize = header.getInt(12);
+            long transactionCount = header.getLong(24);
+            long opCount = header.getLong(32);
+            long listValueCount = header.getLong(40);
+            long abortedCount = header.getLong(48);
+
+            long offset = HEADER_SIZE;
+            var sessions = new Section(channel, offset, hasSessionIndex ? sessionCount : 0, SESSION_SIZE);
+            offset += sessions.byteSize();
+            var transactions = new Section(channel, offset, transactionCount, version == 1 ? TRANSACTION_SIZE_V1 : TRANSACTION_SIZE);
+            offset += transactions.byteSize();
+            var ops = new Section(channel, offset, opCount, OP_SIZE);
+            offset += ops.byteSize();
+            var lists = new Section(channel, offset, listValueCount, LIST_VALUE_SIZE);
+            offset += lists.byteSize();
+            var aborted = new Section(channel, offset, abortedCount, ABORTED_WRITE_SIZE);
+
+            var history = new History<VarType, ValType>();
+            long op = 0;
+            if (hasSessionIndex) {
+                for (long s = 0; s < sessionCount; s++) {
+                    var session = history.addSession(sessions.getLong(s, 0));
+                    long first = sessions.getInt(s, 8);
+                    int count = sessions.getInt(s, 12);
+                    for (long t = first; t < first + count; t++) {
+                        op = addTransaction(history, session, transactions, t, ops, op, lists);
+                    }
+                }
+            } else {
+                for (long t = 0; t < transactionCount; t++) {
+                    long sessionId = transactions.getLong(t, 8);
+                    var session = history.getSession(sessionId);
+                    if (session == null) {
+                        session = history.addSession(sessionId);
+                    }
+                    op = addTransaction(history, session, transactions, t, ops, op, lists);
+                }
+            }
+
+            for (long i = 0; i < abortedCount; i++) {
+                history.addAbortedWrite(variable(aborted.getLong(i, 0)), writeValue(aborted.getLong(i, 8)));
+            }
+            history.setSessionSize(sessionSize);
+            return history;
+        }
+    }
+
+    private long addTransaction(History<VarType, ValType> history, Session<VarType, ValType> session,
+                                Section transactions, long t, Section ops, long op, Section lists) {
+        var txn = history.addTransaction(session, transactions.getLong(t, 0));
+        if (transactions.recordSize >= TRANSACTION_SIZE) {
+            txn.setTime(transactions.getLong(t, 24));
+        }
+        int count = transactions.getInt(t, 16);
+        for (int i = 0; i < count; i++, op++) {
+            var variable = variable(ops.getLong(op, 8));
+            if (ops.get(op, 0) == WRITE) {
+                history.addOperation(txn, Operation.Type.WRITE, variable, writeValue(ops.getLong(op, 16)));
+            } else {
+                history.addOperation(txn, Operation.Type.READ, variable, readValue((int) ops.getLong(op, 8), ops.getLong(op, 16), ops.getInt(op, 4), lists));
+            }
+        }
+        return op;
+    }
+
+    @SuppressWarnings("unchecked")
+    private VarType variable(long key) {
+        if (kind == KIND_ELLE) {
+            return (VarType) Integer.valueOf((int) key);
+        }
+        return (VarType) Long.valueOf(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ValType writeValue(long value) {
+        if (kind == KIND_ELLE) {
+            return (ValType) new ElleHistoryLoader.ElleValue((int) value, null);
+        }
+        return (ValType) Long.valueOf(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ValType readValue(int key, long value, int length, Section lists) {
+        if (kind != KIND_ELLE) {
+            return (ValType) Long.valueOf(value);
+        }
+        if (listBuffer.length < length) {
+            listBuffer = new int[Math.max(length, listBuffer.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            listBuffer[i] = lists.getInt(value + i, 0);
+        }
+        return (ValType) listInterner.intern(key, listBuffer, 0, length);
+    }
+
+    /**
+     * Fixed-width records mapped in windows of whole records, a section may be larger than one mapping.
+     */
+    private static class Section {
+        private final List<MappedByteBuffer> windows = new ArrayList<>();
+        private final long count;
+        private final int recordSize;
+        private final long recordsPerWindow;
+
+        Section(FileChannel channel, long offset, long count, int recordSize) throws IOException {
+            this.count = count;
+            this.recordSize = recordSize;
+            this.recordsPerWindow = Integer.MAX_VALUE / recordSize;
+            if (offset + count * recordSize > channel.size()) {
+                throw new RuntimeException("Truncated binary history");
+            }
+            for (long first = 0; first < count; first += recordsPerWindow) {
+                long records = Math.min(recordsPerWindow, count - first);
+                windows.add(channel.map(FileChannel.MapMode.READ_ONLY, offset + first * recordSize, records * recordSize));
+            }
+        }
+
+        long byteSize() {
+            return count * recordSize;
+        }
+
+        byte get(long record, int field) {
+            return window(record).get(position(record, field));
+        }
+
+        int getInt(long record, int field) {
+            return window(record).getInt(position(record, field));
+        }
+
+        long getLong(long record, int field) {
+            return window(record).getLong(position(record, field));
+        }
+
+        private MappedByteBuffer window(long record) {
+            return windows.get((int) (record / recordsPerWindow));
+        }
+
+        private int position(long record, int field) {
+            return (int) (record % recordsPerWindow) * recordSize + field;
+        }
+    }
+}
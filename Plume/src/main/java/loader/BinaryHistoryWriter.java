@@ -0,0 +1,149 @@
+package loader;
+
+import history.History;
+import history.Operation;
+import history.Session;
+import history.Transaction;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+import static loader.BinaryHistoryFormat.*;
+
+/**
+ * Writes histories in the format of {@link BinaryHistoryFormat}, read back by {@link BinaryHistoryLoader}.
+ */
+public class BinaryHistoryWriter {
+    private BinaryHistoryWriter() {
+    }
+
+    public static void writeText(History<Long, Long> history, File file) throws IOException {
+        write(history, file, KIND_TEXT);
+    }
+
+    public static void writeElle(History<Integer, ElleHistoryLoader.ElleValue> history, File file) throws IOException {
+        write(history, file, KIND_ELLE);
+    }
+
+    private static <VarType, ValType> void write(History<VarType, ValType> history, File file, byte kind) throws IOException {
+        var sessions = new ArrayList<>(history.getSessions().values());
+        sessions.sort(Comparator.comparingLong(Session::getId));
+        var keys = new HashSet<VarType>();
+        long transactionCount = 0;
+        long opCount = 0;
+        long listValueCount = 0;
+        for (var session : sessions) {
+            for (var txn : session.getTransactions()) {
+                transactionCount++;
+                for (var op : txn.getOps()) {
+                    opCount++;
+                    keys.add(op.getVariable());
+                    if (kind == KIND_ELLE && op.getType() == Operation.Type.READ) {
+                        listValueCount += list(op).size();
+                    }
+                }
+            }
+        }
+
+        try (var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeByte(kind);
+            out.writeByte(FLAG_SESSION_INDEX);
+            out.writeInt(sessions.size());
+            out.writeInt(history.getSessionSize());
+            out.writeInt(keys.size());
+            out.writeInt(0);
+            out.writeLong(transactionCount);
+            out.writeLong(opCount);
+            out.writeLong(listValueCount);
+            out.writeLong(history.getAbortedWrites().size());
+            out.writeLong(0);
+
+            int firstTransaction = 0;
+            for (var session : sessions) {
+                out.writeLong(session.getId());
+                out.writeInt(firstTransaction);
+                out.writeInt(session.getTransactions().size());
+                firstTransaction += session.getTransactions().size();
+            }
+
+            for (var session : sessions) {
+                for (var txn : session.getTransactions()) {
+                    out.writeLong(txn.getId());
+                    out.writeLong(session.getId());
+                    out.writeInt(txn.getOps().size());
+                    out.writeInt(0);
+                    out.writeLong(txn.getTime());
+                }
+            }
+
+            long listOffset = 0;
+            for (var session : sessions) {
+                for (var txn : session.getTransactions()) {
+                    for (var op : txn.getOps()) {
+                        out.writeByte(op.getType() == Operation.Type.READ ? READ : WRITE);
+                        out.write(new byte[3]);
+                        if (kind == KIND_ELLE && op.getType() == Operation.Type.READ) {
+                            int length = list(op).size();
+                            out.writeInt(length);
+                            out.writeLong(key(op.getVariable()));
+                            out.writeLong(listOffset);
+                            listOffset += length;
+                        } else {
+                            out.writeInt(0);
+                            out.writeLong(key(op.getVariable()));
+                            out.writeLong(value(op.getValue()));
+                        }
+                    }
+                }
+            }
+
+            if (kind == KIND_ELLE) {
+                for (var session : sessions) {
+                    for (var txn : session.getTransactions()) {
+                        writeLists(out, txn);
+                    }
+                }
+            }
+
+            for (var write : history.getAbortedWrites()) {
+                out.writeLong(key(write.getKey()));
+                out.writeLong(value(write.getValue()));
+            }
+        }
+    }
+
+    private static <VarType, ValType> void writeLists(DataOutputStream out, Transaction<VarType, ValType> txn) throws IOException {
+        for (var op : txn.getOps()) {
+            if (op.getType() == Operation.Type.READ) {
+                for (var v : list(op)) {
+                    out.writeInt(v);
+                }
+            }
+        }
+    }
+
+    private static List<Integer> list(Operation<?, ?> op) {
+        var list = ((ElleHistoryLoader.ElleValue) op.getValue()).getList();
+        return list == null ? List.of() : list;
+    }
+
+    private static long key(Object variable) {
+        return ((Number) variable).longValue();
+    }
+
+    private static long value(Object value) {
+        if (value instanceof ElleHistoryLoader.ElleValue) {
+            return ((ElleHistoryLoader.ElleValue) value).getLastElement();
+        }
+        return ((Number) value).longValue();
+    }
+}
@@ -6,277 +6,110 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.SneakyThrows;
-import org.apache.commons.lang3.tuple.Triple;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.nio.CharBuffer;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.BiFunction;
-import java.util.regex.Pattern;
-
-import static java.util.Map.entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 @Data
 public class ElleHistoryLoader implements HistoryLoader<Integer, ElleHistoryLoader.ElleValue> {
     private final File historyFile;
 
+    // threads parsing the chunks of the file
+    private int parallelism = 1;
+
     @Override
     @SneakyThrows
     public History<Integer, ElleHistoryLoader.ElleValue> loadHistory() {
-        try (var in = new BufferedReader(new FileReader(historyFile))) {
-            return parseFile(in);
-        }
-    }
+        try (var channel = FileChannel.open(historyFile.toPath(), StandardOpenOption.READ)) {
+            var chunks = MappedChunks.split(channel, Math.max(1, parallelism));
+            var pool = new ForkJoinPool(Math.max(1, parallelism));
+            List<ElleTokenizer.Lines> parsed;
+            try {
+                parsed = pool.submit(() -> chunks.parallelStream().map((chunk) -> {
+                    var lines = new ElleTokenizer.Lines();
+                    new ElleTokenizer().parse(chunk, lines);
+                    return lines;
+                }).collect(Collectors.toList())).join();
+            } finally {
+                pool.shutdown();
+            }
 
-    private History<Integer, ElleHistoryLoader.ElleValue> parseFile(BufferedReader reader) {
-        var history = new History<Integer, ElleHistoryLoader.ElleValue>();
-        reader.lines().forEachOrdered(line -> parseLine(history, CharBuffer.wrap(line)));
-        history.setSessionSize(minSessionId);
-        return history;
+            var history = new History<Integer, ElleHistoryLoader.ElleValue>();
+            parsed.forEach((lines) -> apply(history, lines));
+            history.setSessionSize(minSessionId);
+            return history;
+        }
     }
 
     private Map<Integer, Integer> sessionIdMap = new HashMap<>();
     private Integer minSessionId = 0;
+    private final ElleTokenizer tokenizer = new ElleTokenizer();
+    private final ElleTokenizer.Lines lineBuffer = new ElleTokenizer.Lines();
+    private final ElleListInterner lists = new ElleListInterner();
 
-    private void parseLine(History<Integer, ElleHistoryLoader.ElleValue> history, CharBuffer line) {
+    void parseLine(History<Integer, ElleHistoryLoader.ElleValue> history, String line) {
         // todo: Handle timeout
-        assertEq(line.charAt(0), '{');
-        advance(line, 1);
-
-        var keyRegex = Pattern.compile(":\\w+");
-
-        ArrayList<Triple<Operation.Type, Integer, ElleValue>> txnValue = null;
-        Integer txnProcess = null;
-        LogType type = null;
-        while (line.charAt(0) != '}') {
-            var result = keyRegex.matcher(line.duplicate());
-
-            if (!result.lookingAt()) {
-                throw new RuntimeException(String.format("No match in \"%s\"", line));
-            }
-            skipCommaAndSpace(advance(line, result.group().length()));
-
-            switch (result.group()) {
-                case ":type":
-                    type = parseType(line);
-                    if (type != LogType.OK && type != LogType.FAIL) {
-                        return;
-                    }
-                    break;
-                case ":f":
-                    parseF(line);
-                    break;
-                case ":value":
-                    txnValue = parseValue(line);
-                    break;
-                case ":time":
-                    parseLong(line);
-                    break;
-                case ":process":
-                    var sessionId = parseInt(line);
-                    if (sessionIdMap.containsKey(sessionId)) {
-                        txnProcess = sessionIdMap.get(sessionId);
-                    } else {
-                        txnProcess = minSessionId;
-                        minSessionId++;
-                        sessionIdMap.put(sessionId, txnProcess);
-                    }
-                    break;
-                case ":index":
-                    parseInt(line);
-                    break;
-                case ":error":
-                    parseErrorList(line);
-                    break;
-                default:
-                    throw new RuntimeException(String.format("Unknown key \"%s\"", result.group()));
-            }
-
-            skipCommaAndSpace(line);
-        }
-
-        if (txnProcess == null || txnValue == null) {
-            throw new RuntimeException(String.format("Missing :process or :value in \"%s\"", line.clear()));
-        }
-
-        if (type == LogType.FAIL) {
-            txnValue.stream().
-                    filter(v -> v.getLeft().equals(Operation.Type.WRITE))
-                    .forEach(v -> history.addAbortedWrite(v.getMiddle(), v.getRight()));
-            return;
-        }
-
-        var session = history.getSession(txnProcess);
-        if (session == null) {
-            session = history.addSession(txnProcess);
-        }
-
-        var txnId = history.getTransactions().size();
-        var txn = history.addTransaction(session, txnId);
-
-        txnValue.forEach(v -> history.addOperation(txn, v.getLeft(), v.getMiddle(), v.getRight()));
+        lineBuffer.clear();
+        tokenizer.parse(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)), lineBuffer);
+        apply(history, lineBuffer);
     }
 
-    private LogType parseType(CharBuffer s) {
-        var typeMap = Map.ofEntries(
-                entry(":invoke", LogType.INVOKE),
-                entry(":ok", LogType.OK),
-                entry(":fail", LogType.FAIL),
-                entry(":info", LogType.INFO)
-        );
-
-        for (var e : typeMap.entrySet()) {
-            if (startsWith(s, e.getKey())) {
-                advance(s, e.getKey().length());
-                return e.getValue();
+    /**
+     * Add parsed lines to the history in order, remapping sessions in order of first appearance.
+     */
+    private void apply(History<Integer, ElleHistoryLoader.ElleValue> history, ElleTokenizer.Lines lines) {
+        for (int line = 0; line < lines.lineCount; line++) {
+            Integer txnProcess = null;
+            if (lines.hasProcess[line]) {
+                txnProcess = sessionIdMap.get(lines.processes[line]);
+                if (txnProcess == null) {
+                    txnProcess = minSessionId;
+                    minSessionId++;
+                    sessionIdMap.put(lines.processes[line], txnProcess);
+                }
             }
-        }
-
-        throw new RuntimeException(String.format("Unknown :type in \"%s\"", s));
-    }
 
-    private void parseF(CharBuffer s) {
-        if (!startsWith(s, ":txn")) {
-            throw new RuntimeException(String.format("Unknown :f in \"%s\"", s));
-        }
-
-        advance(s, ":txn".length());
-    }
-
-    private ArrayList<Triple<Operation.Type, Integer, ElleValue>> parseValue(CharBuffer s) {
-        assertEq(s.charAt(0), '[');
-        advance(s, 1);
-
-        var events = new ArrayList<Triple<Operation.Type, Integer, ElleValue>>();
-        while (true) {
-            skipCommaAndSpace(s);
-            if (s.charAt(0) == ']') {
-                advance(s, 1);
-                break;
+            int opStart = lines.opStart(line);
+            int opEnd = lines.opEnds[line];
+            if (lines.kinds[line] == ElleTokenizer.Lines.SKIP) {
+                continue;
             }
-            events.add(parseEvent(s));
-        }
-
-        return events;
-    }
-
-    private Triple<Operation.Type, Integer, ElleValue> parseEvent(CharBuffer s) {
-        assertEq(s.charAt(0), '[');
-        advance(s, 1);
 
-        skipCommaAndSpace(s);
-
-        Triple<Operation.Type, Integer, ElleValue> result;
-        if (startsWith(s, ":r ")) {
-            advance(s, ":r ".length());
-            var key = parseInt(s);
-            skipCommaAndSpace(s);
-            var list = parseList(s);
-            result = Triple.of(Operation.Type.READ, key,
-                    new ElleValue(list.isEmpty() ? null : list.get(list.size() - 1), list));
-        } else if (startsWith(s, ":append ")) {
-            advance(s, ":append ".length());
-            var key = parseInt(s);
-            skipCommaAndSpace(s);
-            var value = parseInt(s);
-            result = Triple.of(Operation.Type.WRITE, key, new ElleValue(value, null));
-        } else {
-            throw new RuntimeException(String.format("Unknown event in \"%s\"", s));
-        }
-
-        assertEq(s.charAt(0), ']');
-        advance(s, 1);
-        return result;
-    }
-
-    private <T> T parseIntegerType(CharBuffer s, BiFunction<CharSequence, Integer, T> parser) {
-        int i = 0;
-        while (Character.isDigit(s.charAt(i))) {
-            i++;
-        }
-
-        var result = parser.apply(s, i);
-        advance(s, i);
-        return result;
-    }
-
-    private Integer parseInt(CharBuffer s) {
-        return parseIntegerType(s, (cs, i) -> Integer.parseInt(cs, 0, i, 10));
-    }
-
-    private Long parseLong(CharBuffer s) {
-        return parseIntegerType(s, (cs, i) -> Long.parseLong(cs, 0, i, 10));
-    }
-
-    private List<Integer> parseList(CharBuffer s) {
-        if (startsWith(s, "nil")) {
-            advance(s, "nil".length());
-            return List.of();
-        }
-
-        assertEq(s.charAt(0), '[');
-        advance(s, 1);
-
-        var list = new ArrayList<Integer>();
-        while (true) {
-            skipCommaAndSpace(s);
-            if (s.charAt(0) == ']') {
-                advance(s, 1);
-                break;
+            if (lines.kinds[line] == ElleTokenizer.Lines.ABORT) {
+                for (int op = opStart; op < opEnd; op++) {
+                    if (lines.isAppend[op]) {
+                        history.addAbortedWrite(lines.keys[op], new ElleValue(lines.values[op], null));
+                    }
+                }
+                continue;
             }
-            list.add(parseInt(s));
-        }
-
-        return list;
-    }
 
-    private void parseErrorList(CharBuffer s) {
-        if (s.charAt(0) == '[') {
-            advance(s, 1);
-
-            while (s.charAt(0) != ']') {
-                advance(s, 1);
-            }
-            advance(s, 1);
-        } else {
-            while (s.charAt(0) != ',') {
-                advance(s, 1);
+            var session = history.getSession(txnProcess);
+            if (session == null) {
+                session = history.addSession(txnProcess);
             }
-        }
-    }
-
-    private void assertEq(char a, char b) {
-        if (a != b) {
-            throw new AssertionError();
-        }
-    }
 
-    private CharBuffer skipCommaAndSpace(CharBuffer s) {
-        int i = 0;
-        while (s.charAt(i) == ',' || s.charAt(i) == ' ') {
-            i++;
-        }
-
-        return advance(s, i);
-    }
-
-    private CharBuffer advance(CharBuffer s, int length) {
-        return s.position(s.position() + length);
-    }
-
-    private boolean startsWith(CharSequence a, CharSequence b) {
-        for (int i = 0; i < b.length(); i++) {
-            if (a.charAt(i) != b.charAt(i)) {
-                return false;
+            var txnId = history.getTransactions().size();
+            var txn = history.addTransaction(session, txnId);
+            txn.setTime(lines.times[line]);
+
+            for (int op = opStart; op < opEnd; op++) {
+                if (lines.isAppend[op]) {
+                    history.addOperation(txn, Operation.Type.WRITE, lines.keys[op], new ElleValue(lines.values[op], null));
+                } else {
+                    history.addOperation(txn, Operation.Type.READ, lines.keys[op],
+                            lists.intern(lines.keys[op], lines.listValues, lines.listStarts[op], lines.listEnds[op]));
+                }
             }
         }
-
-        return true;
     }
 
     /**
@@ -298,6 +131,17 @@ public class ElleHistoryLoader implements HistoryLoader<Integer, ElleHistoryLoad
 
         List<Integer> list;
 
+        /**
+         * The read of the first length elements of list, its lastElement is the append of element length - 1.
+         * Interned lists return their shared prefix instead of a new value.
+         */
+        public ElleValue prefix(int length) {
+            if (list instanceof ElleListInterner.PrefixList) {
+                return ((ElleListInterner.PrefixList) list).prefix(length);
+            }
+            return new ElleValue(list.get(length - 1), list.subList(0, length));
+        }
+
         @Override
         public String toString() {
             if (list == null) {
@@ -307,8 +151,4 @@ public class ElleHistoryLoader implements HistoryLoader<Integer, ElleHistoryLoad
             }
         }
     }
-
-    private static enum LogType {
-        INVOKE, OK, FAIL, INFO
-    }
 }
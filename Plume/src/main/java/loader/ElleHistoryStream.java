@@ -0,0 +1,36 @@
+package loader;
+
+import history.History;
+import history.Transaction;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Streaming version of {@link ElleHistoryLoader}. Every :ok line carries a whole transaction,
+ * so transactions are complete as soon as their line is parsed.
+ */
+public class ElleHistoryStream implements HistoryStream<Integer, ElleHistoryLoader.ElleValue> {
+    @Getter
+    private final History<Integer, ElleHistoryLoader.ElleValue> history = new History<>();
+    private final ElleHistoryLoader loader = new ElleHistoryLoader(null);
+
+    public ElleHistoryStream(int sessionSize) {
+        history.setSessionSize(sessionSize);
+    }
+
+    @Override
+    public List<Transaction<Integer, ElleHistoryLoader.ElleValue>> parseLine(String line) {
+        long txnId = history.getTransactions().size();
+        loader.parseLine(history, line);
+        if (history.getTransactions().size() == txnId) {
+            return List.of();
+        }
+        return List.of(history.getTransaction(txnId));
+    }
+
+    @Override
+    public List<Transaction<Integer, ElleHistoryLoader.ElleValue>> flush() {
+        return List.of();
+    }
+}
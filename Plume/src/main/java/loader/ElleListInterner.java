@@ -0,0 +1,157 @@
+package loader;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Shares the read lists of a list-append history.
+ * <p>
+ * The lists read from a key are mostly prefixes of each other, so they are stored as prefixes of a few chains
+ * per key, a list that extends a chain appends to it and one that diverges starts a new chain. Chains are found
+ * by their key and first value, so only the chains a list may share a prefix with are compared. A chain keeps the
+ * {@link List#hashCode()} of each of its prefixes, which is a rolling hash, so a list is matched against a chain
+ * by one comparison before its elements are checked, and the lists have constant-time hashCode and equals among
+ * prefixes of one chain. Every prefix of a chain is interned when it is appended, so equal lists are the same
+ * {@link ElleHistoryLoader.ElleValue}, and {@link ElleHistoryLoader.ElleValue#prefix(int)} of a read list
+ * allocates nothing. Not thread-safe, one instance per loader.
+ */
+class ElleListInterner {
+    private static class Chain {
+        int[] values = new int[4];
+        // prefixHashes[i] is the hashCode of the first i values
+        int[] prefixHashes = new int[]{1, 0, 0, 0, 0};
+        // prefixes[i] is the value of the first i values
+        ElleHistoryLoader.ElleValue[] prefixes = new ElleHistoryLoader.ElleValue[5];
+        int size = 0;
+
+        void append(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+                prefixHashes = Arrays.copyOf(prefixHashes, size * 2 + 1);
+                prefixes = Arrays.copyOf(prefixes, size * 2 + 1);
+            }
+            values[size] = value;
+            prefixHashes[size + 1] = 31 * prefixHashes[size] + Integer.hashCode(value);
+            prefixes[size + 1] = new ElleHistoryLoader.ElleValue(value, new PrefixList(this, size + 1));
+            size++;
+        }
+    }
+
+    /**
+     * The first length values of a chain, later appends to the chain do not change it.
+     */
+    static class PrefixList extends AbstractList<Integer> implements RandomAccess {
+        private final Chain chain;
+        private final int length;
+
+        PrefixList(Chain chain, int length) {
+            this.chain = chain;
+            this.length = length;
+        }
+
+        /**
+         * The value of the first length elements, which are a prefix of the same chain.
+         */
+        ElleHistoryLoader.ElleValue prefix(int length) {
+            if (length < 1 || length > this.length) {
+                throw new IndexOutOfBoundsException("Length: " + length + ", Size: " + this.length);
+            }
+            return chain.prefixes[length];
+        }
+
+        @Override
+        public Integer get(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
+            }
+            // boxed once, by the value of the prefix ending here
+            return chain.prefixes[index + 1].getLastElement();
+        }
+
+        @Override
+        public int size() {
+            return length;
+        }
+
+        @Override
+        public int hashCode() {
+            return chain.prefixHashes[length];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof PrefixList && ((PrefixList) o).chain == chain) {
+                return ((PrefixList) o).length == length;
+            }
+            return super.equals(o);
+        }
+    }
+
+    private static final ElleHistoryLoader.ElleValue EMPTY = new ElleHistoryLoader.ElleValue(null, List.of());
+
+    // chains by key and first value
+    private final Map<Long, List<Chain>> chains = new HashMap<>();
+    // prefix hashes of the list being interned
+    private int[] hashes = new int[16];
+
+    /**
+     * The value of a read of key that returned values[from, to).
+     */
+    ElleHistoryLoader.ElleValue intern(int key, int[] values, int from, int to) {
+        int length = to - from;
+        if (length == 0) {
+            return EMPTY;
+        }
+        if (hashes.length <= length) {
+            hashes = new int[Math.max(length + 1, hashes.length * 2)];
+        }
+        hashes[0] = 1;
+        for (int i = 0; i < length; i++) {
+            hashes[i + 1] = 31 * hashes[i] + Integer.hashCode(values[from + i]);
+        }
+        int hash = hashes[length];
+
+        // a chain can only match or be extended by the list if it starts with the same value
+        var keyChains = chains.computeIfAbsent(((long) key << 32) | (values[from] & 0xffffffffL), k -> new ArrayList<>(1));
+        Chain match = null;
+        for (var chain : keyChains) {
+            if (length <= chain.size && chain.prefixHashes[length] == hash && samePrefix(chain, values, from, length)) {
+                match = chain;
+                break;
+            }
+        }
+        if (match == null) {
+            // extend a chain the list starts with, or start a new one
+            for (var chain : keyChains) {
+                if (chain.size < length && chain.prefixHashes[chain.size] == hashes[chain.size]
+                        && samePrefix(chain, values, from, chain.size)) {
+                    match = chain;
+                    break;
+                }
+            }
+            if (match == null) {
+                match = new Chain();
+                keyChains.add(match);
+            }
+            for (int i = from + match.size; i < to; i++) {
+                match.append(values[i]);
+            }
+        }
+
+        return match.prefixes[length];
+    }
+
+    private static boolean samePrefix(Chain chain, int[] values, int from, int length) {
+        for (int i = 0; i < length; i++) {
+            if (chain.values[i] != values[from + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
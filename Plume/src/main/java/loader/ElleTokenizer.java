@@ -0,0 +1,364 @@
+package loader;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Byte-level tokenizer of Elle list-append histories, one EDN map per line.
+ * <p>
+ * Lines are parsed straight from the buffer into the primitive arrays of {@link Lines}, which are reused
+ * across lines, so the tokenizer itself allocates nothing per line. Session ids are not remapped here:
+ * the raw :process is recorded and {@link ElleHistoryLoader} remaps it when the lines are applied in
+ * file order, so parsing chunks in parallel gives the same History as parsing sequentially.
+ */
+class ElleTokenizer {
+    private static final byte[] TYPE = bytes(":type");
+    private static final byte[] F = bytes(":f");
+    private static final byte[] VALUE = bytes(":value");
+    private static final byte[] TIME = bytes(":time");
+    private static final byte[] PROCESS = bytes(":process");
+    private static final byte[] INDEX = bytes(":index");
+    private static final byte[] ERROR = bytes(":error");
+
+    private static final byte[] INVOKE = bytes(":invoke");
+    private static final byte[] OK = bytes(":ok");
+    private static final byte[] FAIL = bytes(":fail");
+    private static final byte[] INFO = bytes(":info");
+    private static final byte[] TXN = bytes(":txn");
+    private static final byte[] READ = bytes(":r ");
+    private static final byte[] APPEND = bytes(":append ");
+    private static final byte[] NIL = bytes("nil");
+
+    /**
+     * Parsed lines, flattened. Line i owns the ops [opEnds[i - 1], opEnds[i]), a read op owns the list
+     * elements [listStarts[op], listEnds[op]).
+     */
+    static class Lines {
+        static final byte SKIP = 0;
+        static final byte COMMIT = 1;
+        static final byte ABORT = 2;
+
+        byte[] kinds = new byte[256];
+        boolean[] hasProcess = new boolean[256];
+        int[] processes = new int[256];
+        // :time of the line, -1 if absent
+        long[] times = new long[256];
+        int[] opEnds = new int[256];
+        int lineCount = 0;
+
+        boolean[] isAppend = new boolean[1024];
+        int[] keys = new int[1024];
+        int[] values = new int[1024];
+        int[] listStarts = new int[1024];
+        int[] listEnds = new int[1024];
+        int opCount = 0;
+
+        int[] listValues = new int[1024];
+        int listCount = 0;
+
+        void clear() {
+            lineCount = 0;
+            opCount = 0;
+            listCount = 0;
+        }
+
+        int opStart(int line) {
+            return line == 0 ? 0 : opEnds[line - 1];
+        }
+
+        private void addLine(byte kind, boolean withProcess, int process, long time) {
+            if (lineCount == kinds.length) {
+                int capacity = lineCount * 2;
+                kinds = Arrays.copyOf(kinds, capacity);
+                hasProcess = Arrays.copyOf(hasProcess, capacity);
+                processes = Arrays.copyOf(processes, capacity);
+                times = Arrays.copyOf(times, capacity);
+                opEnds = Arrays.copyOf(opEnds, capacity);
+            }
+            kinds[lineCount] = kind;
+            hasProcess[lineCount] = withProcess;
+            processes[lineCount] = process;
+            times[lineCount] = time;
+            opEnds[lineCount] = opCount;
+            lineCount++;
+        }
+
+        private int addOp(boolean append, int key) {
+            if (opCount == keys.length) {
+                int capacity = opCount * 2;
+                isAppend = Arrays.copyOf(isAppend, capacity);
+                keys = Arrays.copyOf(keys, capacity);
+                values = Arrays.copyOf(values, capacity);
+                listStarts = Arrays.copyOf(listStarts, capacity);
+                listEnds = Arrays.copyOf(listEnds, capacity);
+            }
+            isAppend[opCount] = append;
+            keys[opCount] = key;
+            return opCount++;
+        }
+
+        private void addListValue(int value) {
+            if (listCount == listValues.length) {
+                listValues = Arrays.copyOf(listValues, listCount * 2);
+            }
+            listValues[listCount++] = value;
+        }
+    }
+
+    private ByteBuffer buffer;
+    private int lineStart;
+    private int pos;
+    private int end;
+
+    /**
+     * Parse every line of buffer, from its position to its limit, into lines.
+     */
+    void parse(ByteBuffer buffer, Lines lines) {
+        this.buffer = buffer;
+        int limit = buffer.limit();
+        int next = buffer.position();
+        while (next < limit) {
+            lineStart = next;
+            end = lineStart;
+            while (end < limit && buffer.get(end) != '\n') {
+                end++;
+            }
+            next = end + 1;
+            if (end > lineStart && buffer.get(end - 1) == '\r') {
+                end--;
+            }
+            pos = lineStart;
+            skipCommaAndSpace();
+            if (pos == end) {
+                continue;
+            }
+            parseLine(lines);
+        }
+        this.buffer = null;
+    }
+
+    private void parseLine(Lines lines) {
+        expect('{');
+
+        int opStart = lines.opCount;
+        int listStart = lines.listCount;
+        byte kind = Lines.COMMIT;
+        boolean hasProcess = false;
+        boolean hasValue = false;
+        int process = 0;
+        long time = -1;
+        while (peek() != '}') {
+            int keyStart = pos;
+            expect(':');
+            while (pos < end && isWordChar(buffer.get(pos))) {
+                pos++;
+            }
+            int keyEnd = pos;
+            skipCommaAndSpace();
+
+            if (matches(keyStart, keyEnd, TYPE)) {
+                if (startsWith(OK)) {
+                    pos += OK.length;
+                } else if (startsWith(FAIL)) {
+                    pos += FAIL.length;
+                    kind = Lines.ABORT;
+                } else if (startsWith(INVOKE) || startsWith(INFO)) {
+                    // only completed transactions are kept
+                    lines.opCount = opStart;
+                    lines.listCount = listStart;
+                    lines.addLine(Lines.SKIP, hasProcess, process, time);
+                    return;
+                } else {
+                    throw error("Unknown :type in \"%s\"");
+                }
+            } else if (matches(keyStart, keyEnd, F)) {
+                if (!startsWith(TXN)) {
+                    throw error("Unknown :f in \"%s\"");
+                }
+                pos += TXN.length;
+            } else if (matches(keyStart, keyEnd, VALUE)) {
+                lines.opCount = opStart;
+                lines.listCount = listStart;
+                parseValue(lines);
+                hasValue = true;
+            } else if (matches(keyStart, keyEnd, TIME)) {
+                time = parseLong();
+            } else if (matches(keyStart, keyEnd, PROCESS)) {
+                process = parseInt();
+                hasProcess = true;
+            } else if (matches(keyStart, keyEnd, INDEX)) {
+                parseInt();
+            } else if (matches(keyStart, keyEnd, ERROR)) {
+                parseErrorList();
+            } else {
+                throw new RuntimeException(String.format("Unknown key \"%s\"", text(keyStart, keyEnd)));
+            }
+
+            skipCommaAndSpace();
+        }
+
+        if (!hasProcess || !hasValue) {
+            throw new RuntimeException(String.format("Missing :process or :value in \"%s\"", text(lineStart, end)));
+        }
+        lines.addLine(kind, true, process, time);
+    }
+
+    private void parseValue(Lines lines) {
+        expect('[');
+        while (true) {
+            skipCommaAndSpace();
+            if (peek() == ']') {
+                pos++;
+                break;
+            }
+            parseEvent(lines);
+        }
+    }
+
+    private void parseEvent(Lines lines) {
+        expect('[');
+        skipCommaAndSpace();
+
+        if (startsWith(READ)) {
+            pos += READ.length;
+            int op = lines.addOp(false, parseInt());
+            skipCommaAndSpace();
+            lines.listStarts[op] = lines.listCount;
+            parseList(lines);
+            lines.listEnds[op] = lines.listCount;
+        } else if (startsWith(APPEND)) {
+            pos += APPEND.length;
+            int op = lines.addOp(true, parseInt());
+            skipCommaAndSpace();
+            lines.values[op] = parseInt();
+        } else {
+            throw error("Unknown event in \"%s\"");
+        }
+
+        expect(']');
+    }
+
+    private void parseList(Lines lines) {
+        if (startsWith(NIL)) {
+            pos += NIL.length;
+            return;
+        }
+
+        expect('[');
+        while (true) {
+            skipCommaAndSpace();
+            if (peek() == ']') {
+                pos++;
+                break;
+            }
+            lines.addListValue(parseInt());
+        }
+    }
+
+    private void parseErrorList() {
+        if (peek() == '[') {
+            pos++;
+            while (peek() != ']') {
+                pos++;
+            }
+            pos++;
+        } else {
+            while (peek() != ',') {
+                pos++;
+            }
+        }
+    }
+
+    private int parseInt() {
+        long value = parseLong();
+        if (value > Integer.MAX_VALUE) {
+            throw error("Integer overflow in \"%s\"");
+        }
+        return (int) value;
+    }
+
+    private long parseLong() {
+        int start = pos;
+        long value = 0;
+        while (pos < end) {
+            int digit = buffer.get(pos) - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                throw error("Integer overflow in \"%s\"");
+            }
+            value = value * 10 + digit;
+            pos++;
+        }
+        if (pos == start) {
+            throw error("Expected a number in \"%s\"");
+        }
+        return value;
+    }
+
+    private void skipCommaAndSpace() {
+        while (pos < end && (buffer.get(pos) == ',' || buffer.get(pos) == ' ')) {
+            pos++;
+        }
+    }
+
+    private byte peek() {
+        if (pos >= end) {
+            throw error("Unexpected end of line in \"%s\"");
+        }
+        return buffer.get(pos);
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error("Expected '" + c + "' in \"%s\"");
+        }
+        pos++;
+    }
+
+    private boolean startsWith(byte[] prefix) {
+        if (end - pos < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(pos + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matches(int from, int to, byte[] word) {
+        if (to - from != word.length) {
+            return false;
+        }
+        for (int i = 0; i < word.length; i++) {
+            if (buffer.get(from + i) != word[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWordChar(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_';
+    }
+
+    private RuntimeException error(String format) {
+        return new RuntimeException(String.format(format, text(pos, end)));
+    }
+
+    private String text(int from, int to) {
+        var bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(from + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,18 @@
+package loader;
+
+import history.History;
+import history.Transaction;
+
+import java.util.List;
+
+/**
+ * Incremental counterpart of {@link HistoryLoader}: lines are fed one at a time and every transaction is
+ * handed out as soon as no more operations can be appended to it.
+ */
+public interface HistoryStream<VarType, ValType> {
+    History<VarType, ValType> getHistory();
+
+    List<Transaction<VarType, ValType>> parseLine(String line);
+
+    List<Transaction<VarType, ValType>> flush();
+}
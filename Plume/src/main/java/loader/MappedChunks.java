@@ -0,0 +1,50 @@
+package loader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only mappings of a file cut at line breaks, so that every chunk can be parsed on its own.
+ */
+class MappedChunks {
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+    private static final int MAX_CHUNK_SIZE = 1 << 28;
+
+    /**
+     * Cut the file into about 4 chunks per thread, each ending right after a line break or at the end of the file.
+     */
+    static List<MappedByteBuffer> split(FileChannel channel, int parallelism) throws IOException {
+        long size = channel.size();
+        long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, size / (parallelism * 4L)));
+        var chunks = new ArrayList<MappedByteBuffer>();
+        var probe = ByteBuffer.allocate(4096);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + chunkSize);
+            // move end past the next line break
+            while (end < size) {
+                probe.clear();
+                int n = channel.read(probe, end);
+                int i = 0;
+                while (i < n && probe.get(i) != '\n') {
+                    i++;
+                }
+                end += i;
+                if (i < n) {
+                    end++;
+                    break;
+                }
+            }
+            if (end - start > Integer.MAX_VALUE) {
+                throw new Error("Line too long");
+            }
+            chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+            start = end;
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,232 @@
+package loader;
+
+import history.History;
+import history.Operation;
+import history.Transaction;
+import lombok.SneakyThrows;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Loader of the same format as {@link TextHistoryLoader} for large files.
+ * <p>
+ * The file is memory-mapped in line-aligned chunks which are scanned in parallel byte by byte into primitive
+ * arrays, without regex or per-line objects. The chunks are then merged into the History in file order, so
+ * session ids are remapped in order of first appearance and the History is the one TextHistoryLoader builds.
+ */
+public class MappedTextHistoryLoader implements HistoryLoader<Long, Long> {
+    private final File textFile;
+    private final int parallelism;
+
+    public MappedTextHistoryLoader(File textFile) {
+        this(textFile, Runtime.getRuntime().availableProcessors());
+    }
+
+    public MappedTextHistoryLoader(File textFile, int parallelism) {
+        this.textFile = textFile;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    @Override
+    @SneakyThrows
+    public History<Long, Long> loadHistory() {
+        try (var channel = FileChannel.open(textFile.toPath(), StandardOpenOption.READ)) {
+            var chunks = MappedChunks.split(channel, parallelism);
+            var pool = new ForkJoinPool(parallelism);
+            try {
+                var parsed = pool.submit(() -> chunks.parallelStream()
+                        .map(MappedTextHistoryLoader::parseChunk)
+                        .collect(Collectors.toList())).join();
+                return merge(parsed);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Parsed lines of one chunk, one entry per line in all arrays.
+     */
+    private static class Chunk {
+        boolean[] isWrite = new boolean[1024];
+        long[] keys = new long[1024];
+        long[] values = new long[1024];
+        long[] sessions = new long[1024];
+        long[] txns = new long[1024];
+        int size = 0;
+
+        void add(boolean write, long key, long value, long session, long txn) {
+            if (size == keys.length) {
+                int capacity = size * 2;
+                isWrite = Arrays.copyOf(isWrite, capacity);
+                keys = Arrays.copyOf(keys, capacity);
+                values = Arrays.copyOf(values, capacity);
+                sessions = Arrays.copyOf(sessions, capacity);
+                txns = Arrays.copyOf(txns, capacity);
+            }
+            isWrite[size] = write;
+            keys[size] = key;
+            values[size] = value;
+            sessions[size] = session;
+            txns[size] = txn;
+            size++;
+        }
+    }
+
+    /**
+     * Scan lines of the form {@code r(key,value,session,txn)}, txn may be -1.
+     */
+    private static Chunk parseChunk(MappedByteBuffer buffer) {
+        var chunk = new Chunk();
+        var scanner = new Scanner(buffer);
+        while (scanner.hasLine()) {
+            byte op = scanner.next();
+            if (op != 'r' && op != 'w') {
+                throw new Error("Invalid format");
+            }
+            scanner.expect('(');
+            long key = scanner.unsigned();
+            scanner.expect(',');
+            long value = scanner.unsigned();
+            scanner.expect(',');
+            long session = scanner.unsigned();
+            scanner.expect(',');
+            long txn = scanner.signed();
+            scanner.expect(')');
+            scanner.endLine();
+            chunk.add(op == 'w', key, value, session, txn);
+        }
+        return chunk;
+    }
+
+    private static class Scanner {
+        private final MappedByteBuffer buffer;
+        private final int limit;
+        private int pos = 0;
+
+        Scanner(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+            this.limit = buffer.limit();
+        }
+
+        boolean hasLine() {
+            return pos < limit;
+        }
+
+        byte next() {
+            if (pos >= limit) {
+                throw new Error("Invalid format");
+            }
+            return buffer.get(pos++);
+        }
+
+        void expect(char c) {
+            if (next() != c) {
+                throw new Error("Invalid format");
+            }
+        }
+
+        long unsigned() {
+            int start = pos;
+            long result = 0;
+            while (pos < limit) {
+                int digit = buffer.get(pos) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                if (result > (Long.MAX_VALUE - digit) / 10) {
+                    throw new Error("Invalid format");
+                }
+                result = result * 10 + digit;
+                pos++;
+            }
+            if (pos == start) {
+                throw new Error("Invalid format");
+            }
+            return result;
+        }
+
+        long signed() {
+            if (pos < limit && buffer.get(pos) == '-') {
+                pos++;
+                return -unsigned();
+            }
+            return unsigned();
+        }
+
+        void endLine() {
+            if (pos < limit && buffer.get(pos) == '\r') {
+                pos++;
+            }
+            if (pos < limit) {
+                expect('\n');
+            }
+        }
+    }
+
+    private static History<Long, Long> merge(List<Chunk> chunks) {
+        var history = new History<Long, Long>();
+        var sessionIdMap = new HashMap<Long, Long>();
+        long minSessionId = 0;
+
+        // consecutive lines usually belong to the same session and transaction
+        long lastRawSession = -1;
+        long lastSession = -1;
+        long checkedSession = -1;
+        Transaction<Long, Long> lastTxn = null;
+
+        for (var chunk : chunks) {
+            for (int i = 0; i < chunk.size; i++) {
+                long session;
+                if (chunk.sessions[i] == lastRawSession) {
+                    session = lastSession;
+                } else {
+                    var mapped = sessionIdMap.get(chunk.sessions[i]);
+                    if (mapped == null) {
+                        mapped = minSessionId++;
+                        sessionIdMap.put(chunk.sessions[i], mapped);
+                    }
+                    session = mapped;
+                    lastRawSession = chunk.sessions[i];
+                    lastSession = session;
+                }
+
+                long txnId = chunk.txns[i];
+                // txn == -1 => aborted
+                if (txnId == -1) {
+                    if (chunk.isWrite[i]) {
+                        history.addAbortedWrite(chunk.keys[i], chunk.values[i]);
+                    }
+                    continue;
+                }
+
+                if (session != checkedSession) {
+                    if (history.getSession(session) == null) {
+                        history.addSession(session);
+                    }
+                    checkedSession = session;
+                }
+                if (lastTxn == null || lastTxn.getId() != txnId) {
+                    lastTxn = history.getTransaction(txnId);
+                    if (lastTxn == null) {
+                        lastTxn = history.addTransaction(history.getSession(session), txnId);
+                    }
+                }
+
+                history.addOperation(lastTxn,
+                        chunk.isWrite[i] ? Operation.Type.WRITE : Operation.Type.READ, chunk.keys[i],
+                        chunk.values[i]);
+            }
+        }
+        history.setSessionSize((int) minSessionId);
+        return history;
+    }
+}
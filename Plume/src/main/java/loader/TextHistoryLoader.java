@@ -14,7 +14,7 @@ import java.util.regex.Pattern;
 @AllArgsConstructor
 public class TextHistoryLoader implements HistoryLoader<Long, Long>{
     private final File textFile;
-    private static final Pattern regex = Pattern.compile("([rw])\\((\\d++),(\\d++),(\\d++),(-?\\d++)\\)");
+    static final Pattern regex = Pattern.compile("([rw])\\((\\d++),(\\d++),(\\d++),(-?\\d++)\\)");
 
     @Override
     @SneakyThrows
@@ -0,0 +1,73 @@
+package loader;
+
+import history.History;
+import history.Operation;
+import history.Transaction;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Streaming version of {@link TextHistoryLoader}. A transaction is complete once its session moves on
+ * to another transaction, the remaining open transactions are completed by {@link #flush()}.
+ */
+public class TextHistoryStream implements HistoryStream<Long, Long> {
+    @Getter
+    private final History<Long, Long> history = new History<>();
+    private final Map<Long, Long> sessionIdMap = new HashMap<>();
+    private final Map<Long, Transaction<Long, Long>> openTxns = new TreeMap<>();
+
+    public TextHistoryStream(int sessionSize) {
+        history.setSessionSize(sessionSize);
+    }
+
+    @Override
+    public List<Transaction<Long, Long>> parseLine(String line) {
+        var match = TextHistoryLoader.regex.matcher(line);
+        if (!match.matches()) {
+            throw new Error("Invalid format");
+        }
+
+        var op = match.group(1);
+        var key = Long.parseLong(match.group(2));
+        var value = Long.parseLong(match.group(3));
+        var session = sessionIdMap.computeIfAbsent(Long.parseLong(match.group(4)), s -> (long) sessionIdMap.size());
+        var txnId = Long.parseLong(match.group(5));
+
+        // txn == -1 => aborted
+        if (txnId == -1) {
+            if (op.equals("w")) {
+                history.addAbortedWrite(key, value);
+            }
+            return List.of();
+        }
+
+        var completed = new ArrayList<Transaction<Long, Long>>();
+        var txn = openTxns.get(session);
+        if (txn != null && txn.getId() != txnId) {
+            completed.add(txn);
+            txn = null;
+        }
+        if (txn == null) {
+            if (history.getSession(session) == null) {
+                history.addSession(session);
+            }
+            txn = history.addTransaction(history.getSession(session), txnId);
+            openTxns.put(session, txn);
+        }
+
+        history.addOperation(txn, op.equals("r") ? Operation.Type.READ : Operation.Type.WRITE, key, value);
+        return completed;
+    }
+
+    @Override
+    public List<Transaction<Long, Long>> flush() {
+        var completed = new ArrayList<>(openTxns.values());
+        openTxns.clear();
+        return completed;
+    }
+}
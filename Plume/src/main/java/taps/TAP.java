@@ -18,7 +18,8 @@ public enum TAP {
     FracturedReadCO("TAP-k"),
     FracturedReadAO("TAP-l"),
     COConflictAO("TAP-m"),
-    ConflictAO("TAP-n");
+    ConflictAO("TAP-n"),
+    IncompatibleOrder("TAP-o");
 
     private final String code;
 
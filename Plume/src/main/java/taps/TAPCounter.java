@@ -0,0 +1,103 @@
+package taps;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Number of occurrences of each TAP. Safe to update from parallel traversals, each TAP has
+ * its own striped adder so threads reporting TAPs never block each other. The sums do not depend
+ * on the order in which shards report, so parallel and sequential runs give the same counts. Counts
+ * with a limit are reserved by compare-and-set on a separate counter of the TAP, also without a lock.
+ */
+public class TAPCounter {
+    private final LongAdder[] counts = new LongAdder[TAP.values().length];
+    // occurrences added by addBelow
+    private final AtomicLong[] limitedCounts = new AtomicLong[TAP.values().length];
+
+    public TAPCounter() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+            limitedCounts[i] = new AtomicLong();
+        }
+    }
+
+    public void add(TAP tap) {
+        counts[tap.ordinal()].increment();
+    }
+
+    /**
+     * Add tap unless it already occurred limit times, whether it was added. Counts that use a limit must
+     * only be updated through this method.
+     */
+    public boolean addBelow(TAP tap, long limit) {
+        long added = counts[tap.ordinal()].sum();
+        var limited = limitedCounts[tap.ordinal()];
+        // once the limit is reached the count is only read
+        for (long current = limited.get(); added + current < limit; current = limited.get()) {
+            if (limited.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long get(TAP tap) {
+        return counts[tap.ordinal()].sum() + limitedCounts[tap.ordinal()].get();
+    }
+
+    public boolean contains(TAP tap) {
+        return get(tap) > 0;
+    }
+
+    public Set<TAP> toSet() {
+        return toSet(EnumSet.allOf(TAP.class));
+    }
+
+    /**
+     * TAPs among the given ones that occurred at least once.
+     */
+    public Set<TAP> toSet(Set<TAP> among) {
+        var result = EnumSet.noneOf(TAP.class);
+        for (var tap : among) {
+            if (contains(tap)) {
+                result.add(tap);
+            }
+        }
+        return result;
+    }
+
+    public Map<String, Integer> toCountMap() {
+        return toCountMap(EnumSet.allOf(TAP.class));
+    }
+
+    public Map<String, Integer> toCountMap(Set<TAP> among) {
+        var result = new HashMap<String, Integer>();
+        for (var tap : among) {
+            long count = get(tap);
+            if (count > 0) {
+                result.put(tap.getCode(), (int) count);
+            }
+        }
+        return result;
+    }
+
+    public long[] snapshot() {
+        var result = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            result[i] = counts[i].sum() + limitedCounts[i].get();
+        }
+        return result;
+    }
+
+    public void restore(long[] snapshot) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i].reset();
+            counts[i].add(snapshot[i]);
+            limitedCounts[i].set(0);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package taps;
+
+import lombok.Data;
+import util.Json;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * One occurrence of a TAP: the transactions involved, their operations and the relations between them.
+ * Relations are edge types, CO and AO stand for a path of that order, not a single edge.
+ */
+@Data
+public class Witness {
+    @Data
+    public static class Op {
+        private final long transaction;
+        private final int index;
+        private final boolean write;
+        private final String variable;
+        private final String value;
+
+        @Override
+        public String toString() {
+            return String.format("%s(%s, %s)", write ? "w" : "r", variable, value);
+        }
+    }
+
+    @Data
+    public static class Relation {
+        private final long from;
+        private final long to;
+        private final String type;
+        // variable of a WR edge, null otherwise
+        private final String variable;
+
+        public String getLabel() {
+            return variable == null ? type : String.format("%s(%s)", type, variable);
+        }
+    }
+
+    private final TAP tap;
+    private final List<Long> transactions = new ArrayList<>();
+    private final List<Op> ops = new ArrayList<>();
+    private final List<Relation> relations = new ArrayList<>();
+
+    public Witness transaction(long id) {
+        if (!transactions.contains(id)) {
+            transactions.add(id);
+        }
+        return this;
+    }
+
+    public Witness op(long transaction, int index, boolean write, Object variable, Object value) {
+        transaction(transaction);
+        ops.add(new Op(transaction, index, write, String.valueOf(variable), String.valueOf(value)));
+        return this;
+    }
+
+    public Witness relation(long from, long to, String type, Object variable) {
+        transaction(from);
+        transaction(to);
+        relations.add(new Relation(from, to, type, variable == null ? null : String.valueOf(variable)));
+        return this;
+    }
+
+    public String toJson() {
+        return "{\"transactions\":" + transactions +
+                ",\"ops\":[" + ops.stream().map((op) -> String.format("{\"transaction\":%d,\"index\":%d,\"op\":%s}",
+                op.getTransaction(), op.getIndex(), Json.quote(op.toString()))).collect(Collectors.joining(",")) +
+                "],\"edges\":[" + relations.stream().map((relation) -> String.format("{\"from\":%d,\"to\":%d,\"type\":%s}",
+                relation.getFrom(), relation.getTo(), Json.quote(relation.getLabel()))).collect(Collectors.joining(",")) +
+                "]}";
+    }
+}
@@ -0,0 +1,81 @@
+package taps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the first witnesses of each TAP, at most limit per TAP. Safe to use from parallel traversals,
+ * which witnesses are kept then depends on the scheduling.
+ */
+public class WitnessCollector {
+    private final int limit;
+    private final AtomicInteger[] reserved = new AtomicInteger[TAP.values().length];
+    private final List<Queue<Witness>> witnesses = new ArrayList<>();
+
+    public WitnessCollector(int limit) {
+        this.limit = limit;
+        for (int i = 0; i < reserved.length; i++) {
+            reserved[i] = new AtomicInteger();
+            witnesses.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /**
+     * Whether a witness of tap would be kept, checked before building one.
+     */
+    public boolean wants(TAP tap) {
+        return reserved[tap.ordinal()].get() < limit;
+    }
+
+    public void add(Witness witness) {
+        int i = witness.getTap().ordinal();
+        if (reserved[i].getAndIncrement() < limit) {
+            witnesses.get(i).add(witness);
+        }
+    }
+
+    public List<Witness> get(TAP tap) {
+        return new ArrayList<>(witnesses.get(tap.ordinal()));
+    }
+
+    /**
+     * The first count witnesses of tap, see {@link #sizes()}.
+     */
+    public List<Witness> get(TAP tap, int count) {
+        var result = get(tap);
+        return result.size() > count ? new ArrayList<>(result.subList(0, count)) : result;
+    }
+
+    /**
+     * Number of witnesses kept of each TAP, by ordinal. Witnesses are kept in the order they were added, so
+     * the sizes taken between two phases give the witnesses of the earlier phases.
+     */
+    public int[] sizes() {
+        var result = new int[witnesses.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = witnesses.get(i).size();
+        }
+        return result;
+    }
+
+    /**
+     * Drop the witnesses added since sizes were taken, not safe while witnesses are being added.
+     */
+    public void restore(int[] sizes) {
+        for (int i = 0; i < sizes.length; i++) {
+            var kept = get(TAP.values()[i], sizes[i]);
+            witnesses.get(i).clear();
+            witnesses.get(i).addAll(kept);
+            reserved[i].set(sizes[i]);
+        }
+    }
+
+    public List<Witness> getAll() {
+        var result = new ArrayList<Witness>();
+        witnesses.forEach(result::addAll);
+        return result;
+    }
+}
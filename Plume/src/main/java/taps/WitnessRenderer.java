@@ -0,0 +1,59 @@
+package taps;
+
+import guru.nidi.graphviz.attribute.Label;
+import guru.nidi.graphviz.engine.Format;
+import guru.nidi.graphviz.model.LinkTarget;
+import guru.nidi.graphviz.model.Node;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static guru.nidi.graphviz.engine.Graphviz.fromGraph;
+import static guru.nidi.graphviz.model.Factory.graph;
+import static guru.nidi.graphviz.model.Factory.node;
+import static guru.nidi.graphviz.model.Factory.to;
+
+/**
+ * Renders witnesses to PNG files with graphviz, after the check instead of inside its loops.
+ */
+public class WitnessRenderer {
+    private WitnessRenderer() {
+    }
+
+    /**
+     * Render every witness to dir/{TAP code}-{n}-{transaction ids}.png, one node per transaction with its ops,
+     * n counts the witnesses of each TAP so that witnesses of the same transactions get their own file.
+     */
+    public static void render(List<Witness> witnesses, File dir) throws IOException {
+        var ordinals = new int[TAP.values().length];
+        for (var witness : witnesses) {
+            var nodes = new HashMap<Long, Node>();
+            for (var id : witness.getTransactions()) {
+                var lines = new ArrayList<String>();
+                lines.add("t" + id);
+                witness.getOps().stream().filter((op) -> op.getTransaction() == id)
+                        .forEach((op) -> lines.add(op.toString()));
+                nodes.put(id, node(Label.lines(lines.toArray(new String[0]))));
+            }
+            var links = new HashMap<Long, List<LinkTarget>>();
+            for (var relation : witness.getRelations()) {
+                links.computeIfAbsent(relation.getFrom(), k -> new ArrayList<>())
+                        .add(to(nodes.get(relation.getTo())).with(Label.of(relation.getLabel())));
+            }
+            var g = graph().directed().with(witness.getTransactions().stream()
+                    .map((id) -> nodes.get(id).link(links.getOrDefault(id, List.of())))
+                    .collect(Collectors.toList()));
+            var name = fileName(witness, ordinals[witness.getTap().ordinal()]++);
+            fromGraph(g).height(500).render(Format.PNG).toFile(new File(dir, name));
+        }
+    }
+
+    static String fileName(Witness witness, int n) {
+        return witness.getTap().getCode() + "-" + n + "-" + witness.getTransactions().stream()
+                .map(String::valueOf).collect(Collectors.joining("-")) + ".png";
+    }
+}
@@ -0,0 +1,255 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * {@link TreeClock} stored in copy-on-write chunks of {@link #CHUNK_SIZE} entries.
+ * <p>
+ * A copy shares every chunk with its source, and a chunk is copied the first time either side writes to it,
+ * so a clock only owns the chunks that changed since it was copied. Chunks that were never written are the
+ * shared empty chunks. The traversal stack of join() is a per-thread scratch array instead of a field.
+ */
+public class ChunkedTreeClock implements Clock<ChunkedTreeClock> {
+    private static final int CHUNK_BITS = 4;
+    public static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final long[] EMPTY_CLOCKS = new long[CHUNK_SIZE];
+    private static final long[] EMPTY_TREE = new long[CHUNK_SIZE];
+    private static final ThreadLocal<short[]> STACK = ThreadLocal.withInitial(() -> new short[0]);
+
+    static {
+        Arrays.fill(EMPTY_TREE, NeibhorsHardCodeWordTricks.NULL);
+    }
+
+    public final int dim;
+    public short rootTid;
+    private final long[][] clocks;
+    private final long[][] tree;
+    // whether chunk i of clocks / tree belongs to this clock only
+    private final boolean[] ownsClocks;
+    private final boolean[] ownsTree;
+
+    public ChunkedTreeClock(short tid, int dim) {
+        this.dim = dim;
+        this.rootTid = tid;
+        int chunks = (dim + CHUNK_MASK) >>> CHUNK_BITS;
+        this.clocks = new long[chunks][];
+        this.tree = new long[chunks][];
+        this.ownsClocks = new boolean[chunks];
+        this.ownsTree = new boolean[chunks];
+        Arrays.fill(clocks, EMPTY_CLOCKS);
+        Arrays.fill(tree, EMPTY_TREE);
+    }
+
+    private ChunkedTreeClock(ChunkedTreeClock from) {
+        this.dim = from.dim;
+        this.rootTid = from.rootTid;
+        this.clocks = from.clocks.clone();
+        this.tree = from.tree.clone();
+        this.ownsClocks = new boolean[clocks.length];
+        this.ownsTree = new boolean[tree.length];
+    }
+
+    /**
+     * Copy of this clock sharing every chunk with it. This clock gives up the ownership of its chunks, so the
+     * next write to a chunk copies it on whichever side writes first. Not thread-safe: no other thread may
+     * read or write this clock meanwhile.
+     */
+    public ChunkedTreeClock snapshot() {
+        var copy = new ChunkedTreeClock(this);
+        Arrays.fill(ownsClocks, false);
+        Arrays.fill(ownsTree, false);
+        return copy;
+    }
+
+    private long clock(int tid) {
+        return clocks[tid >>> CHUNK_BITS][tid & CHUNK_MASK];
+    }
+
+    private void setClock(int tid, long value) {
+        int chunk = tid >>> CHUNK_BITS;
+        if (!ownsClocks[chunk]) {
+            clocks[chunk] = clocks[chunk].clone();
+            ownsClocks[chunk] = true;
+        }
+        clocks[chunk][tid & CHUNK_MASK] = value;
+    }
+
+    private long node(int tid) {
+        return tree[tid >>> CHUNK_BITS][tid & CHUNK_MASK];
+    }
+
+    private void setNode(int tid, long value) {
+        int chunk = tid >>> CHUNK_BITS;
+        if (!ownsTree[chunk]) {
+            tree[chunk] = tree[chunk].clone();
+            ownsTree[chunk] = true;
+        }
+        tree[chunk][tid & CHUNK_MASK] = value;
+    }
+
+    /**
+     * Number of chunks owned by this clock, shared chunks are not counted.
+     */
+    public int ownedChunks() {
+        int owned = 0;
+        for (int i = 0; i < clocks.length; i++) {
+            owned += (ownsClocks[i] ? 1 : 0) + (ownsTree[i] ? 1 : 0);
+        }
+        return owned;
+    }
+
+    private void detachFromNeighbors(short t, long node) {
+        short t_next = NeibhorsHardCodeWordTricks.getNext(node);
+        short t_prev = NeibhorsHardCodeWordTricks.getPrevious(node);
+        short t_parent = NeibhorsHardCodeWordTricks.getParent(node);
+
+        if (t_parent == -1) {
+            return;
+        }
+        long parent_node = node(t_parent);
+
+        if (NeibhorsHardCodeWordTricks.getHeadChild(parent_node) == t) {
+            setNode(t_parent, NeibhorsHardCodeWordTricks.setHeadChild(t_next, parent_node));
+        } else if (t_prev >= 0) {
+            setNode(t_prev, NeibhorsHardCodeWordTricks.setNext(t_next, node(t_prev)));
+        }
+        if (t_next >= 0) {
+            setNode(t_next, NeibhorsHardCodeWordTricks.setPrevious(t_prev, node(t_next)));
+        }
+    }
+
+    public int getLocalClock(short tid) {
+        if (this.rootTid >= 0) {
+            return PairHardCodeWordTricks.getClock(clock(tid));
+        }
+        return 0;
+    }
+
+    public long getLocalRootData() {
+        return clock(rootTid);
+    }
+
+    @Override
+    public void incrementBy(int val) {
+        setClock(rootTid, PairHardCodeWordTricks.incrementClockBy(val, clock(rootTid)));
+    }
+
+    @Override
+    public boolean isLessThanOrEqual(ChunkedTreeClock tc) {
+        if (this.rootTid < 0) {
+            return true;
+        }
+        return PairHardCodeWordTricks.getClock(clock(rootTid)) <= tc.getLocalClock(this.rootTid);
+    }
+
+    @Override
+    public boolean isEqual(ChunkedTreeClock clock) {
+        return this.isLessThanOrEqual(clock) && clock.isLessThanOrEqual(this);
+    }
+
+    /**
+     * Same traversal as {@link TreeClock#join(TreeClock)}.
+     */
+    @Override
+    public void join(ChunkedTreeClock tc) {
+        EventCounter.CLOCK_JOINS.increment();
+        if (tc.rootTid < 0) {
+            return;
+        }
+
+        short zprime_tid = tc.rootTid;
+        long zprime_clocks = tc.getLocalRootData();
+        int zprime_clock = PairHardCodeWordTricks.getClock(zprime_clocks);
+
+        long z_node = node(zprime_tid);
+        int z_clock = 0;
+        if (!NeibhorsHardCodeWordTricks.isNull(z_node)) {
+            z_clock = PairHardCodeWordTricks.getClock(clock(zprime_tid));
+            if (zprime_clock <= z_clock) {
+                return;
+            } else {
+                detachFromNeighbors(zprime_tid, z_node);
+            }
+        }
+
+        long z_clocks = PairHardCodeWordTricks.copyClockToPclock(clock(rootTid), zprime_clocks);
+        long thisRootNode = node(rootTid);
+
+        short root_head_child = NeibhorsHardCodeWordTricks.T_NULL;
+        if (!NeibhorsHardCodeWordTricks.isHeadChildNull(thisRootNode)) {
+            root_head_child = NeibhorsHardCodeWordTricks.getHeadChild(thisRootNode);
+            setNode(root_head_child, NeibhorsHardCodeWordTricks.setPrevious(zprime_tid, node(root_head_child)));
+        }
+
+        z_node = NeibhorsHardCodeWordTricks.setNextAndParent(root_head_child, rootTid, z_node);
+        setClock(zprime_tid, z_clocks);
+        setNode(zprime_tid, z_node);
+        setNode(rootTid, NeibhorsHardCodeWordTricks.setHeadChild(zprime_tid, thisRootNode));
+
+        var stack = STACK.get();
+        if (stack.length < dim) {
+            stack = new short[dim];
+            STACK.set(stack);
+        }
+        int top = pushChildren(tc, zprime_tid, z_clock, stack, -1);
+
+        while (top >= 0) {
+            short uprime_tid = stack[top--];
+            long uprime_clocks = tc.clock(uprime_tid);
+            long u_node = node(uprime_tid);
+            int u_clock = 0;
+            if (!NeibhorsHardCodeWordTricks.isNull(u_node)) {
+                u_clock = PairHardCodeWordTricks.getClock(clock(uprime_tid));
+                detachFromNeighbors(uprime_tid, u_node);
+            }
+            setClock(uprime_tid, uprime_clocks);
+            short y = NeibhorsHardCodeWordTricks.getParent(tc.node(uprime_tid));
+            long yNode = node(y);
+            short head_child = NeibhorsHardCodeWordTricks.getHeadChild(yNode);
+            if (!NeibhorsHardCodeWordTricks.isHeadChildNull(yNode)) {
+                setNode(head_child, NeibhorsHardCodeWordTricks.setPrevious(uprime_tid, node(head_child)));
+            }
+            setNode(uprime_tid, NeibhorsHardCodeWordTricks.setNextAndParent(head_child, y, u_node));
+            setNode(y, NeibhorsHardCodeWordTricks.setHeadChild(uprime_tid, yNode));
+
+            top = pushChildren(tc, uprime_tid, u_clock, stack, top);
+        }
+    }
+
+    /**
+     * Push the children of parent in tc that are ahead of this clock, until one attached before parentClock.
+     */
+    private int pushChildren(ChunkedTreeClock tc, short parent, int parentClock, short[] stack, int top) {
+        short vprime_tid = NeibhorsHardCodeWordTricks.getHeadChild(tc.node(parent));
+        while (!NeibhorsHardCodeWordTricks.isTNull(vprime_tid)) {
+            long vprime_clocks = tc.clock(vprime_tid);
+            if (getLocalClock(vprime_tid) < PairHardCodeWordTricks.getClock(vprime_clocks)) {
+                stack[++top] = vprime_tid;
+            } else if (PairHardCodeWordTricks.getPclock(vprime_clocks) <= parentClock) {
+                break;
+            }
+            vprime_tid = NeibhorsHardCodeWordTricks.getNext(tc.node(vprime_tid));
+        }
+        return top;
+    }
+
+    public String timesToString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[");
+        for (short i = 0; i < this.dim; i++) {
+            sb.append(this.getLocalClock(i));
+            if (i < this.dim - 1) {
+                sb.append(", ");
+            }
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "Dim: " + this.dim + "\nRoot Tid: " + this.rootTid + "\nTimes: " + this.timesToString();
+    }
+}
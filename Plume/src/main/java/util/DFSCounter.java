@@ -1,13 +0,0 @@
-package util;
-
-public class DFSCounter {
-    private static int count = 0;
-
-    public static void increment() {
-        count++;
-    }
-
-    public static int getCount() {
-        return count;
-    }
-}
\ No newline at end of file
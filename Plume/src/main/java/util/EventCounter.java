@@ -0,0 +1,35 @@
+package util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Events of all checks in this JVM, safe to increment from the parallel traversals. Nothing is counted unless
+ * enabled, by --count-dfs or {@link Metrics#exclusive()}.
+ */
+public class EventCounter {
+    // nodes visited by the traversals
+    public static final EventCounter DFS_VISITS = new EventCounter();
+    // clock joins, counted by every Clock implementation
+    public static final EventCounter CLOCK_JOINS = new EventCounter();
+
+    private final LongAdder count = new LongAdder();
+    // read in the innermost loops, set before the check starts
+    private boolean enabled = false;
+
+    private EventCounter() {
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void increment() {
+        if (enabled) {
+            count.increment();
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+}
@@ -0,0 +1,72 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Vector clock on a primitive int array, the loops of join() and isLessThanOrEqual() are the ones of
+ * {@link VectorOps}.
+ */
+public class IntVectorClock implements Clock<IntVectorClock> {
+    private final short tid;
+    private final int[] clock;
+
+    public IntVectorClock(short tid, int dim) {
+        this.tid = tid;
+        this.clock = new int[dim];
+    }
+
+    public IntVectorClock(IntVectorClock fromVectorClock) {
+        this.tid = fromVectorClock.tid;
+        this.clock = fromVectorClock.clock.clone();
+    }
+
+    public int getDim() {
+        return clock.length;
+    }
+
+    public int getClockIndex(int tIndex) {
+        return clock[tIndex];
+    }
+
+    /**
+     * Name of the loops in use, "scalar" or the SIMD vector size.
+     */
+    public static String implementation() {
+        return VectorOps.INSTANCE.name();
+    }
+
+    @Override
+    public boolean isLessThanOrEqual(IntVectorClock vc) {
+        checkDim(vc);
+        return VectorOps.INSTANCE.isLessThanOrEqual(clock, vc.clock);
+    }
+
+    @Override
+    public boolean isEqual(IntVectorClock vc) {
+        checkDim(vc);
+        return Arrays.equals(clock, vc.clock);
+    }
+
+    @Override
+    public void join(IntVectorClock vc) {
+        EventCounter.CLOCK_JOINS.increment();
+        checkDim(vc);
+        VectorOps.INSTANCE.max(clock, vc.clock);
+    }
+
+    @Override
+    public void incrementBy(int val) {
+        clock[tid] += val;
+    }
+
+    private void checkDim(IntVectorClock vc) {
+        if (clock.length != vc.clock.length) {
+            throw new IllegalArgumentException("Mismatch in this.dim and argument.dim");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(clock);
+    }
+}
@@ -0,0 +1,238 @@
+package util;
+
+import lombok.Data;
+import lombok.Getter;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Measurements of one check: its phases in execution order, the size of the graph and the traversal counters,
+ * exported as JSON or in the Prometheus text exposition format.
+ * <p>
+ * CPU time and allocations are those of the thread running the phase plus the worker threads passed to
+ * {@link #addWorkers(Collection)}, which is how work on other threads is counted. The DFS visits and clock joins
+ * of a phase are deltas of the JVM-wide {@link EventCounter}s, which only {@link #exclusive()}
+ * enables and reports: a check running next to others would count theirs too. The heap peaks are JVM-wide as
+ * well: {@link #exclusive()} resets them at the start of each phase, {@link #shared()} never does, so that it does
+ * not disturb checks running next to it, and reports the peaks since the JVM started.
+ */
+public class Metrics {
+    public enum Format {
+        JSON, PROMETHEUS
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    @Data
+    public static class PhaseMetrics {
+        private final String name;
+        private long wallNanos;
+        private long cpuNanos;
+        private long allocatedBytes;
+        // sum of the peaks of the heap pools, a pool may peak at another time than the others
+        private long peakHeapBytes;
+        private long dfsVisits;
+        private long clockJoins;
+    }
+
+    @Getter
+    private final List<PhaseMetrics> phases = new ArrayList<>();
+    // graph sizes and other values set once, in insertion order
+    @Getter
+    private final Map<String, Long> values = new LinkedHashMap<>();
+    @Getter
+    private final boolean enabled;
+    // the only check in the JVM, it resets the heap peaks and counts DFS visits and clock joins
+    private final boolean exclusive;
+
+    private final LongAdder workerCpu = new LongAdder();
+    private final LongAdder workerAllocated = new LongAdder();
+
+    private Metrics(boolean enabled, boolean exclusive) {
+        this.enabled = enabled;
+        this.exclusive = exclusive;
+    }
+
+    /**
+     * Measure nothing, phases only run.
+     */
+    public static Metrics none() {
+        return new Metrics(false, false);
+    }
+
+    /**
+     * Measurements of the only check running in the JVM.
+     */
+    public static Metrics exclusive() {
+        EventCounter.DFS_VISITS.setEnabled(true);
+        EventCounter.CLOCK_JOINS.setEnabled(true);
+        return new Metrics(true, true);
+    }
+
+    /**
+     * Measurements of a check that may run next to others, without DFS visits and clock joins.
+     */
+    public static Metrics shared() {
+        return new Metrics(true, false);
+    }
+
+    /**
+     * Run action as the phase called name.
+     */
+    public void phase(String name, Runnable action) {
+        phase(name, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run action as the phase called name and return its result.
+     */
+    public <T> T phase(String name, Supplier<T> action) {
+        if (!enabled) {
+            return action.get();
+        }
+        var timer = new Timer(new PhaseMetrics(name));
+        try {
+            return action.get();
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Count the CPU time and allocations of workers in the running phase. The threads must have been started
+     * for it, as all they did since is counted.
+     */
+    public void addWorkers(Collection<Thread> workers) {
+        for (var worker : workers) {
+            if (THREADS.isThreadCpuTimeSupported()) {
+                workerCpu.add(Math.max(0, THREADS.getThreadCpuTime(worker.getId())));
+            }
+            if (THREADS instanceof com.sun.management.ThreadMXBean) {
+                workerAllocated.add(Math.max(0, ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(worker.getId())));
+            }
+        }
+    }
+
+    public void set(String name, long value) {
+        if (enabled) {
+            values.put(name, value);
+        }
+    }
+
+    private class Timer {
+        private final PhaseMetrics phase;
+        private final long wall;
+        private final long cpu;
+        private final long allocated;
+        private final long dfsVisits;
+        private final long clockJoins;
+
+        private Timer(PhaseMetrics phase) {
+            this.phase = phase;
+            if (exclusive) {
+                ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+            }
+            this.dfsVisits = EventCounter.DFS_VISITS.getCount();
+            this.clockJoins = EventCounter.CLOCK_JOINS.getCount();
+            this.allocated = allocatedBytes() + workerAllocated.sum();
+            this.cpu = cpuTime() + workerCpu.sum();
+            this.wall = System.nanoTime();
+        }
+
+        private void stop() {
+            phase.setWallNanos(System.nanoTime() - wall);
+            phase.setCpuNanos(cpuTime() + workerCpu.sum() - cpu);
+            phase.setAllocatedBytes(allocatedBytes() + workerAllocated.sum() - allocated);
+            phase.setDfsVisits(EventCounter.DFS_VISITS.getCount() - dfsVisits);
+            phase.setClockJoins(EventCounter.CLOCK_JOINS.getCount() - clockJoins);
+            phase.setPeakHeapBytes(ManagementFactory.getMemoryPoolMXBeans().stream()
+                    .filter((pool) -> pool.getType() == MemoryType.HEAP)
+                    .mapToLong((pool) -> pool.getPeakUsage().getUsed()).sum());
+            phases.add(phase);
+        }
+    }
+
+    public long getPeakHeapBytes() {
+        return phases.stream().mapToLong(PhaseMetrics::getPeakHeapBytes).max().orElse(0);
+    }
+
+    public String export(Format format) {
+        return format == Format.JSON ? toJson() : toPrometheus();
+    }
+
+    public String toJson() {
+        var sb = new StringBuilder("{\"phases\":[");
+        for (int i = 0; i < phases.size(); i++) {
+            var phase = phases.get(i);
+            sb.append(i > 0 ? "," : "")
+                    .append("{\"name\":\"").append(phase.getName())
+                    .append("\",\"wall_ns\":").append(phase.getWallNanos())
+                    .append(",\"cpu_ns\":").append(phase.getCpuNanos())
+                    .append(",\"allocated_bytes\":").append(phase.getAllocatedBytes())
+                    .append(",\"peak_heap_bytes\":").append(phase.getPeakHeapBytes());
+            if (exclusive) {
+                sb.append(",\"dfs_visits\":").append(phase.getDfsVisits())
+                        .append(",\"clock_joins\":").append(phase.getClockJoins());
+            }
+            sb.append("}");
+        }
+        sb.append("],\"peak_heap_bytes\":").append(getPeakHeapBytes());
+        values.forEach((name, value) -> sb.append(",\"").append(name).append("\":").append(value));
+        return sb.append("}").toString();
+    }
+
+    public String toPrometheus() {
+        var sb = new StringBuilder();
+        phaseFamily(sb, "plume_phase_wall_seconds", (phase) -> seconds(phase.getWallNanos()));
+        phaseFamily(sb, "plume_phase_cpu_seconds", (phase) -> seconds(phase.getCpuNanos()));
+        phaseFamily(sb, "plume_phase_allocated_bytes", (phase) -> String.valueOf(phase.getAllocatedBytes()));
+        phaseFamily(sb, "plume_phase_peak_heap_bytes", (phase) -> String.valueOf(phase.getPeakHeapBytes()));
+        if (exclusive) {
+            phaseFamily(sb, "plume_phase_dfs_visits", (phase) -> String.valueOf(phase.getDfsVisits()));
+            phaseFamily(sb, "plume_phase_clock_joins", (phase) -> String.valueOf(phase.getClockJoins()));
+        }
+        sb.append("# TYPE plume_peak_heap_bytes gauge\n")
+                .append("plume_peak_heap_bytes ").append(getPeakHeapBytes()).append("\n");
+        values.forEach((name, value) -> sb.append("# TYPE plume_").append(name).append(" gauge\n")
+                .append("plume_").append(name).append(" ").append(value).append("\n"));
+        return sb.toString();
+    }
+
+    private void phaseFamily(StringBuilder sb, String family, Function<PhaseMetrics, String> value) {
+        sb.append("# TYPE ").append(family).append(" gauge\n");
+        for (var phase : phases) {
+            sb.append(family).append("{phase=\"").append(phase.getName()).append("\"} ")
+                    .append(value.apply(phase)).append("\n");
+        }
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
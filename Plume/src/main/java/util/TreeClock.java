@@ -125,6 +125,7 @@ public class TreeClock implements Clock<TreeClock> {
     }
 
     public void join(TreeClock tc) {
+        EventCounter.CLOCK_JOINS.increment();
 
         if(tc.rootTid < 0){
             return;
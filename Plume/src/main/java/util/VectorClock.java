@@ -91,6 +91,7 @@ public class VectorClock implements Clock<VectorClock> {
 
 	@Override
 	public void join(VectorClock clock) {
+		EventCounter.CLOCK_JOINS.increment();
 		updateMax2(clock);
 	}
 
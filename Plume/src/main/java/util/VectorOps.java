@@ -0,0 +1,59 @@
+package util;
+
+/**
+ * Element-wise loops of {@link IntVectorClock}. The scalar loops are used unless the SIMD implementation
+ * was compiled in (maven profile {@code simd}) and jdk.incubator.vector is available at run time
+ * ({@code java --add-modules jdk.incubator.vector}), set {@code -Dplume.simd=false} to force the scalar loops.
+ */
+abstract class VectorOps {
+    static final VectorOps INSTANCE = load();
+
+    /**
+     * a := max(a, b)
+     */
+    abstract void max(int[] a, int[] b);
+
+    /**
+     * a <= b in every entry
+     */
+    abstract boolean isLessThanOrEqual(int[] a, int[] b);
+
+    abstract String name();
+
+    private static VectorOps load() {
+        if (Boolean.parseBoolean(System.getProperty("plume.simd", "true"))) {
+            try {
+                return (VectorOps) Class.forName("util.SimdVectorOps").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // not compiled in, or the module is missing
+            }
+        }
+        return new Scalar();
+    }
+
+    static class Scalar extends VectorOps {
+        @Override
+        void max(int[] a, int[] b) {
+            for (int i = 0; i < a.length; i++) {
+                if (b[i] > a[i]) {
+                    a[i] = b[i];
+                }
+            }
+        }
+
+        @Override
+        boolean isLessThanOrEqual(int[] a, int[] b) {
+            for (int i = 0; i < a.length; i++) {
+                if (a[i] > b[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        String name() {
+            return "scalar";
+        }
+    }
+}
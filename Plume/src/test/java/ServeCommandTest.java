@@ -0,0 +1,119 @@
+import cli.ServeCommand;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import picocli.CommandLine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ServeCommandTest {
+    @TempDir
+    Path dir;
+
+    // a fractured read of x3 and x4, and a conflict on x5 that needs the AO edge 3 ao-> 4 given by 6 reading x7
+    // from 4 after 5 read x8 from 3
+    private static final String TEXT = String.join("\n",
+            "w(3,1,0,0)", "w(3,2,0,1)", "w(4,1,0,1)", "r(3,1,1,2)", "r(4,1,1,2)",
+            "w(5,1,0,3)", "w(7,1,0,3)", "w(8,1,0,3)", "w(5,2,1,4)", "w(7,2,1,4)", "w(6,1,1,4)",
+            "r(8,1,2,5)", "r(7,2,2,6)", "r(6,1,2,7)", "r(5,1,2,8)") + "\n";
+
+    // a fractured read and a non-monotonic read in a list-append history, processes are the sessions
+    private static final String LIST = String.join("\n",
+            "{:type :ok, :f :txn, :value [[:append 8 1]], :process 0, :time 0, :index 0}",
+            "{:type :ok, :f :txn, :value [[:append 8 2] [:append 9 1]], :process 0, :time 1, :index 1}",
+            "{:type :ok, :f :txn, :value [[:r 8 [1]] [:r 9 [1]]], :process 1, :time 2, :index 2}",
+            "{:type :ok, :f :txn, :value [[:append 10 1]], :process 0, :time 3, :index 3}",
+            "{:type :ok, :f :txn, :value [[:append 10 2] [:append 11 1]], :process 0, :time 4, :index 4}",
+            "{:type :ok, :f :txn, :value [[:r 11 [1]] [:r 10 [1]]], :process 1, :time 5, :index 5}") + "\n";
+
+    private File write(String name, String content) throws IOException {
+        var file = dir.resolve(name);
+        Files.writeString(file, content);
+        return file.toFile();
+    }
+
+    /**
+     * What the command line prints with --json.
+     */
+    private static String checkJson(File file, String algType) {
+        var out = new ByteArrayOutputStream();
+        var stdout = System.out;
+        System.setOut(new PrintStream(out, true, StandardCharsets.UTF_8));
+        try {
+            assertEquals(0, new CommandLine(new Main()).execute(file.getPath(), "-t", algType, "-i", "RC,TCC", "--json"));
+        } finally {
+            System.setOut(stdout);
+        }
+        return out.toString(StandardCharsets.UTF_8).trim();
+    }
+
+    @Test
+    void checkAnswersLikeTheCommandLine() throws Exception {
+        var text = write("history.txt", TEXT);
+        var list = write("history.edn", LIST);
+
+        int port;
+        try (var socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        var server = new Thread(() -> new CommandLine(new ServeCommand()).execute("--port", String.valueOf(port), "--workers", "2"));
+        server.start();
+        var client = HttpClient.newHttpClient();
+        var base = "http://127.0.0.1:" + port;
+        try {
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    var health = client.send(HttpRequest.newBuilder(URI.create(base + "/health")).build(),
+                            HttpResponse.BodyHandlers.ofString());
+                    assertEquals(200, health.statusCode());
+                    break;
+                } catch (IOException e) {
+                    if (attempt == 100) {
+                        throw e;
+                    }
+                    Thread.sleep(50);
+                }
+            }
+
+            // a file readable by the server, and the same history inline
+            var byPath = client.send(HttpRequest.newBuilder(URI.create(base + "/check?t=PLUME&i=RC,TCC&path="
+                    + URLEncoder.encode(text.getPath(), StandardCharsets.UTF_8)))
+                    .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+            var inline = client.send(HttpRequest.newBuilder(URI.create(base + "/check?t=PLUME_LIST&i=RC,TCC"))
+                    .POST(HttpRequest.BodyPublishers.ofFile(list.toPath())).build(), HttpResponse.BodyHandlers.ofString());
+            var get = client.send(HttpRequest.newBuilder(URI.create(base + "/check")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, byPath.statusCode(), byPath.body());
+            assertTrue(byPath.body().startsWith("{\"verdict\":" + checkJson(text, "PLUME") + ",\"metrics\":{"), byPath.body());
+            assertEquals(200, inline.statusCode(), inline.body());
+            assertTrue(inline.body().startsWith("{\"verdict\":" + checkJson(list, "PLUME_LIST") + ",\"metrics\":{"), inline.body());
+            assertEquals(405, get.statusCode());
+
+            // a GET, such as a crawler or a prefetch would send, does not stop the server
+            var getShutdown = client.send(HttpRequest.newBuilder(URI.create(base + "/shutdown")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(405, getShutdown.statusCode());
+            assertEquals(200, client.send(HttpRequest.newBuilder(URI.create(base + "/health")).build(),
+                    HttpResponse.BodyHandlers.ofString()).statusCode());
+        } finally {
+            client.send(HttpRequest.newBuilder(URI.create(base + "/shutdown")).POST(HttpRequest.BodyPublishers.noBody()).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            server.join(10_000);
+        }
+        assertFalse(server.isAlive());
+    }
+}
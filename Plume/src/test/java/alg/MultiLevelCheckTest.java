@@ -0,0 +1,40 @@
+package alg;
+
+import history.Histories;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MultiLevelCheckTest {
+    // {write, variable, value, session, transaction}: an intermediate read of x1, which every level prohibits, a
+    // non-repeatable read of x2 and a fractured read of x3 and x4, prohibited from RA on
+    private static final long[][] CO_OPS = {{1, 1, 1, 0, 0}, {1, 1, 2, 0, 0}, {0, 1, 1, 1, 1},
+            {1, 2, 1, 0, 2}, {0, 2, 0, 1, 3}, {0, 2, 1, 1, 3},
+            {1, 3, 1, 0, 4}, {1, 3, 2, 0, 5}, {1, 4, 1, 0, 5}, {0, 3, 1, 1, 6}, {0, 4, 1, 1, 6}};
+
+    // a non-monotonic read of x1 and x2 that needs the AO edge 0 ao-> 1 given by 2 reading x3 and x4, which RC
+    // prohibits but only the AO phase finds, and a conflict on x5 and x6, prohibited by TCC only
+    private static final long[][] AO_OPS = {{1, 1, 1, 0, 0}, {1, 3, 1, 0, 0}, {1, 4, 1, 0, 0},
+            {1, 1, 2, 1, 1}, {1, 3, 2, 1, 1}, {1, 2, 1, 1, 1}, {0, 4, 1, 2, 2}, {0, 3, 2, 2, 2}, {0, 2, 1, 2, 3}, {0, 1, 1, 2, 3},
+            {1, 5, 1, 0, 4}, {1, 5, 2, 0, 5}, {1, 6, 1, 0, 5}, {0, 6, 1, 1, 6}, {0, 5, 1, 1, 7}};
+
+    private static Plume<Long, Long> check(long[][] ops, IsolationLevel level) {
+        var plume = new Plume<>(AlgType.PLUME, Histories.of(ops), level, false);
+        plume.validate();
+        return plume;
+    }
+
+    @Test
+    void oneRunGivesTheVerdictsOfSeparateRuns() {
+        for (var ops : new long[][][]{CO_OPS, AO_OPS}) {
+            // each level rejects for its own TAPs
+            var all = check(ops, IsolationLevel.TCC);
+            assertNotEquals(all.getBadPatternCount(IsolationLevel.RC), all.getBadPatternCount(IsolationLevel.RA));
+            for (var level : IsolationLevel.values()) {
+                var separate = check(ops, level);
+                assertEquals(separate.getBadPatternCount(), all.getBadPatternCount(level), level.name());
+                assertEquals(separate.getBadPatterns(), all.getBadPatterns(level), level.name());
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package alg;
+
+import history.History;
+import history.Histories;
+import org.junit.jupiter.api.Test;
+import taps.TAP;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OnlinePlumeTest {
+    // TAPs that need AO edges, the ones garbage collection may miss
+    private static final Set<TAP> AO_LEVEL_TAPS = EnumSet.of(TAP.NonMonoReadAO, TAP.FracturedReadAO, TAP.ConflictAO);
+
+    // {write, variable, value, session, transaction}: an intermediate read of x1, a non-repeatable read of x2,
+    // a fractured read of x3 and x4, and a conflict on x5 that needs the AO edge 7 ao-> 8 given by 10 reading
+    // x7 from 8 after 9 read x8 from 7
+    private static final long[][] OPS = {{1, 1, 1, 0, 0}, {1, 1, 2, 0, 0}, {0, 1, 1, 1, 1},
+            {1, 2, 1, 0, 2}, {0, 2, 0, 1, 3}, {0, 2, 1, 1, 3},
+            {1, 3, 1, 0, 4}, {1, 3, 2, 0, 5}, {1, 4, 1, 0, 5}, {0, 3, 1, 1, 6}, {0, 4, 1, 1, 6},
+            {1, 5, 1, 0, 7}, {1, 7, 1, 0, 7}, {1, 8, 1, 0, 7}, {1, 5, 2, 1, 8}, {1, 7, 2, 1, 8}, {1, 6, 1, 1, 8},
+            {0, 8, 1, 2, 9}, {0, 7, 2, 2, 10}, {0, 6, 1, 2, 11}, {0, 5, 1, 2, 12}};
+
+    /**
+     * OPS followed by rounds in which each session reads x9 from the transaction before and overwrites x1 to
+     * x9, so that the transactions of OPS end up dominated and their writes superseded.
+     */
+    private static History<Long, Long> withOverwrites() {
+        var ops = new ArrayList<>(List.of(OPS));
+        for (long txn = 13; txn < 22; txn++) {
+            long session = txn % 3;
+            if (txn > 13) {
+                ops.add(new long[]{0, 9, txn - 1, session, txn});
+            }
+            for (long variable = 1; variable <= 9; variable++) {
+                ops.add(new long[]{1, variable, txn, session, txn});
+            }
+        }
+        return Histories.of(ops.toArray(new long[0][]));
+    }
+
+    private static Set<TAP> validate(History<Long, Long> history, IsolationLevel level) {
+        var plume = new Plume<>(AlgType.PLUME, history, level, false);
+        plume.validate();
+        return plume.getBadPatterns();
+    }
+
+    @Test
+    void closeMatchesValidate() {
+        for (var level : IsolationLevel.values()) {
+            for (int interval : new int[]{1, 3, 100}) {
+                var history = Histories.of(OPS);
+                var reported = EnumSet.noneOf(TAP.class);
+                var online = new OnlinePlume<>(new Plume<>(AlgType.PLUME, history, level, false), reported::add,
+                        interval, interval);
+                history.getFlatTransactions().forEach(online::accept);
+                online.close();
+
+                var plume = new Plume<>(AlgType.PLUME, Histories.of(OPS), level, false);
+                plume.validate();
+                var expected = plume.getBadPatterns();
+                assertTrue(expected.contains(TAP.IntermediateRead));
+                assertEquals(expected, online.getBadPatterns(), level + " interval " + interval);
+                assertEquals(expected, reported, level + " interval " + interval);
+                // the verdicts of the weaker levels too, RC is read from the counts of the CO phases
+                for (var weaker : IsolationLevel.values()) {
+                    if (weaker.compareTo(level) <= 0) {
+                        assertEquals(plume.getBadPatterns(weaker), online.getPlume().getBadPatterns(weaker),
+                                level + " interval " + interval + " " + weaker);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void checkpointRestoresCounts() {
+        var history = Histories.of(OPS);
+        var reported = EnumSet.noneOf(TAP.class);
+        var online = new OnlinePlume<>(new Plume<>(AlgType.PLUME, history, IsolationLevel.TCC, false), reported::add,
+                Integer.MAX_VALUE, 1);
+        var plume = online.getPlume();
+        for (var txn : history.getFlatTransactions()) {
+            online.accept(txn);
+            var before = new HashMap<>(plume.getBadPatternCount());
+            online.checkpoint();
+            assertEquals(before, plume.getBadPatternCount());
+        }
+        assertTrue(reported.contains(TAP.ConflictAO));
+        assertTrue(reported.containsAll(plume.getBadPatterns()));
+    }
+
+    @Test
+    void checkpointLeavesTheTAPsToClose() {
+        // transaction 0 writes x twice, transaction 1 reads the first write: only a checkpoint finds the
+        // intermediate read, adding the transactions does not
+        var history = Histories.of(new long[][]{{1, 1, 1, 0, 0}, {1, 1, 2, 0, 0}, {0, 1, 1, 1, 1}});
+        var reported = EnumSet.noneOf(TAP.class);
+        var online = new OnlinePlume<>(new Plume<>(AlgType.PLUME, history, IsolationLevel.TCC, false), reported::add,
+                Integer.MAX_VALUE, 1);
+        var plume = online.getPlume();
+        plume.setWitnessLimit(2);
+        online.accept(history.getTransaction(0));
+        online.accept(history.getTransaction(1));
+        assertEquals(Set.of(), reported);
+
+        online.checkpoint();
+        assertEquals(Set.of(TAP.IntermediateRead), reported);
+        assertEquals(Set.of(), plume.getBadPatterns());
+        assertEquals(List.of(), plume.getWitnesses(TAP.IntermediateRead));
+
+        online.close();
+        assertEquals(Set.of(TAP.IntermediateRead), plume.getBadPatterns());
+        assertEquals(1, plume.getBadPatternCounter().get(TAP.IntermediateRead));
+        assertEquals(1, plume.getWitnesses(TAP.IntermediateRead).size());
+    }
+
+    private static Set<TAP> coLevel(Set<TAP> taps) {
+        var result = EnumSet.noneOf(TAP.class);
+        result.addAll(taps);
+        result.removeAll(AO_LEVEL_TAPS);
+        return result;
+    }
+
+    @Test
+    void garbageCollectionKeepsTheCOLevelVerdict() {
+        for (var level : IsolationLevel.values()) {
+            for (int interval : new int[]{1, 3}) {
+                var history = withOverwrites();
+                int transactions = history.getTransactions().size();
+                var online = new OnlinePlume<>(new Plume<>(AlgType.PLUME, history, level, false), (tap) -> {},
+                        interval, interval);
+                online.setGarbageCollection(true);
+                history.getFlatTransactions().forEach(online::accept);
+                online.close();
+
+                // no retired write is dropped, which would turn its reads into thin air reads
+                var expected = validate(withOverwrites(), level);
+                assertTrue(expected.containsAll(online.getBadPatterns()), level + " interval " + interval);
+                assertEquals(coLevel(expected), coLevel(online.getBadPatterns()), level + " interval " + interval);
+                assertTrue(online.getCollectedCount() > transactions / 2, level + " interval " + interval);
+            }
+        }
+    }
+
+    @Test
+    void retiredWritesAreBounded() {
+        var history = withOverwrites();
+        var online = new OnlinePlume<>(new Plume<>(AlgType.PLUME, history, IsolationLevel.TCC, false), (tap) -> {}, 1, 1);
+        online.setGarbageCollection(true);
+        online.setRetiredWriteLimit(5);
+        history.getFlatTransactions().forEach(online::accept);
+        online.close();
+        assertTrue(online.getCollectedCount() > 0);
+        assertTrue(online.getPlume().retiredWrites.size() <= 5);
+    }
+
+    @Test
+    void garbageCollectionMissesAOEdgesBetweenCollectedTransactions() {
+        // {write, variable, value, session, transaction}: 0 wr-> 2 on x with 1 so-> 2, and 3 supersedes 0 and 1.
+        // 0, 1 and 2 are collected before 6 reads y from 1, the read that gives 0 ao-> 1, so the AO-level TAPs
+        // through that edge, like the fractured read 0 wr-> 2, 0 ao-> 1, 1 so-> 2, are never found
+        long[][] ops = {{1, 1, 1, 0, 0}, {1, 2, 1, 0, 0}, {1, 1, 2, 1, 1}, {1, 2, 2, 1, 1}, {0, 1, 1, 1, 2},
+                {1, 1, 6, 1, 3}, {1, 2, 6, 1, 3}, {1, 3, 6, 1, 3}, {0, 3, 6, 0, 4}, {1, 4, 7, 0, 4}, {0, 4, 7, 1, 5},
+                {0, 2, 2, 0, 6}};
+        var expected = validate(Histories.of(ops), IsolationLevel.TCC);
+        assertTrue(expected.contains(TAP.FracturedReadAO));
+
+        var history = Histories.of(ops);
+        var online = new OnlinePlume<>(new Plume<>(AlgType.PLUME, history, IsolationLevel.TCC, false), (tap) -> {}, 1, 1);
+        online.setGarbageCollection(true);
+        for (long id = 0; id <= 6; id++) {
+            online.accept(history.getTransaction(id));
+        }
+        online.close();
+        assertEquals(3, online.getCollectedCount());
+        assertFalse(online.getBadPatterns().contains(TAP.FracturedReadAO));
+        assertEquals(coLevel(expected), coLevel(online.getBadPatterns()));
+    }
+
+    @Test
+    void evictedWriteWithAStaleReadIsAThinAirRead() {
+        // {write, variable, value, session, transaction}: w(1, 1) is collected once w(1, 2) supersedes it, read
+        // stale by transaction 5, and dropped while that read is still waiting for close()
+        long[][] ops = {{1, 1, 1, 0, 0}, {1, 1, 2, 0, 1}, {0, 1, 2, 1, 2}, {1, 3, 1, 0, 3}, {0, 3, 1, 1, 4},
+                {0, 1, 1, 1, 5}, {0, 9, 9, 1, 5}, {1, 1, 3, 0, 6}, {1, 9, 9, 0, 7}, {1, 5, 5, 0, 8}};
+        for (var level : new IsolationLevel[]{IsolationLevel.RC, IsolationLevel.TCC}) {
+            var history = Histories.of(ops);
+            var online = new OnlinePlume<>(new Plume<>(AlgType.PLUME, history, level, false), (tap) -> {}, 1, 1);
+            online.setGarbageCollection(true);
+            online.setRetiredWriteLimit(1);
+            for (long id = 0; id <= 8; id++) {
+                online.accept(history.getTransaction(id));
+            }
+            online.close();
+            assertTrue(online.getCollectedCount() > 0, level.name());
+            assertTrue(online.getPlume().retiredWrites.size() <= 1, level.name());
+            assertTrue(online.getBadPatterns().contains(TAP.ThinAirRead), level.name());
+        }
+    }
+}
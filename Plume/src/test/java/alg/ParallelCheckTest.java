@@ -0,0 +1,134 @@
+package alg;
+
+import history.Histories;
+import loader.ElleHistoryLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import taps.TAP;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelCheckTest {
+    // {write, variable, value, session, transaction}: a thin air read, an aborted read, a future read, an
+    // intermediate read, a non-repeatable read, a fractured read, a non-monotonic read, a conflict, and the
+    // cyclic CO of 17 and 18 last, each on its own variables
+    private static final long[][] OPS = {{0, 1, 1, 0, 0},
+            {1, 2, 1, 0, -1}, {0, 2, 1, 1, 1},
+            {0, 3, 1, 0, 2}, {1, 3, 1, 0, 2},
+            {1, 4, 1, 0, 3}, {1, 4, 2, 0, 3}, {0, 4, 1, 1, 4},
+            {1, 5, 1, 0, 5}, {0, 5, 0, 1, 6}, {0, 5, 1, 1, 6},
+            {1, 8, 1, 0, 7}, {1, 8, 2, 0, 8}, {1, 9, 1, 0, 8}, {0, 8, 1, 1, 9}, {0, 9, 1, 1, 9},
+            {1, 10, 1, 0, 10}, {1, 10, 2, 0, 11}, {1, 11, 1, 0, 11}, {0, 11, 1, 1, 12}, {0, 10, 1, 1, 12},
+            {1, 12, 1, 0, 13}, {1, 12, 2, 0, 14}, {1, 13, 1, 0, 14}, {0, 13, 1, 1, 15}, {0, 12, 1, 1, 16},
+            {1, 6, 1, 0, 17}, {0, 7, 1, 0, 17}, {1, 7, 1, 1, 18}, {0, 6, 1, 1, 18}};
+
+    // the same patterns in a list-append history, processes are the sessions
+    private static final String LIST_HISTORY = String.join("\n",
+            "{:type :ok, :f :txn, :value [[:r 1 [1]]], :process 0, :time 0, :index 0}",
+            "{:type :fail, :f :txn, :value [[:append 2 1]], :process 0, :time 1, :index 1}",
+            "{:type :ok, :f :txn, :value [[:r 2 [1]]], :process 1, :time 2, :index 2}",
+            "{:type :ok, :f :txn, :value [[:r 3 [1]] [:append 3 1]], :process 0, :time 3, :index 3}",
+            "{:type :ok, :f :txn, :value [[:append 4 1] [:append 4 2]], :process 0, :time 4, :index 4}",
+            "{:type :ok, :f :txn, :value [[:r 4 [1]]], :process 1, :time 5, :index 5}",
+            "{:type :ok, :f :txn, :value [[:append 5 1]], :process 0, :time 6, :index 6}",
+            "{:type :ok, :f :txn, :value [[:r 5 []] [:r 5 [1]]], :process 1, :time 7, :index 7}",
+            "{:type :ok, :f :txn, :value [[:append 8 1]], :process 0, :time 8, :index 8}",
+            "{:type :ok, :f :txn, :value [[:append 8 2] [:append 9 1]], :process 0, :time 9, :index 9}",
+            "{:type :ok, :f :txn, :value [[:r 8 [1]] [:r 9 [1]]], :process 1, :time 10, :index 10}",
+            "{:type :ok, :f :txn, :value [[:append 10 1]], :process 0, :time 11, :index 11}",
+            "{:type :ok, :f :txn, :value [[:append 10 2] [:append 11 1]], :process 0, :time 12, :index 12}",
+            "{:type :ok, :f :txn, :value [[:r 11 [1]] [:r 10 [1]]], :process 1, :time 13, :index 13}",
+            "{:type :ok, :f :txn, :value [[:append 12 1]], :process 0, :time 14, :index 14}",
+            "{:type :ok, :f :txn, :value [[:append 12 2] [:append 13 1]], :process 0, :time 15, :index 15}",
+            "{:type :ok, :f :txn, :value [[:r 13 [1]]], :process 1, :time 16, :index 16}",
+            "{:type :ok, :f :txn, :value [[:r 12 [1]]], :process 1, :time 17, :index 17}",
+            "{:type :ok, :f :txn, :value [[:append 6 1] [:r 7 [1]]], :process 0, :time 18, :index 18}",
+            "{:type :ok, :f :txn, :value [[:append 7 1] [:r 6 [1]]], :process 1, :time 19, :index 19}") + "\n";
+
+    // {write, variable, value, session, transaction}: a fractured read, a non-monotonic read and a conflict through
+    // CO edges, then the same three through the AO edges 10 ao-> 11, 14 ao-> 15 and 18 ao-> 19 that the first reads
+    // of session 2 give
+    private static final long[][] AO_OPS = {{1, 8, 1, 0, 0}, {1, 8, 2, 0, 1}, {1, 9, 1, 0, 1}, {0, 8, 1, 1, 2}, {0, 9, 1, 1, 2},
+            {1, 10, 1, 0, 3}, {1, 10, 2, 0, 4}, {1, 11, 1, 0, 4}, {0, 11, 1, 1, 5}, {0, 10, 1, 1, 5},
+            {1, 12, 1, 0, 6}, {1, 12, 2, 0, 7}, {1, 13, 1, 0, 7}, {0, 13, 1, 1, 8}, {0, 12, 1, 1, 9},
+            {1, 20, 1, 0, 10}, {1, 22, 1, 0, 10}, {1, 23, 1, 0, 10}, {1, 20, 2, 1, 11}, {1, 22, 2, 1, 11}, {1, 21, 1, 1, 11},
+            {0, 22, 2, 2, 12}, {0, 23, 1, 2, 12}, {0, 20, 1, 2, 13}, {0, 21, 1, 2, 13},
+            {1, 30, 1, 0, 14}, {1, 32, 1, 0, 14}, {1, 33, 1, 0, 14}, {1, 30, 2, 1, 15}, {1, 32, 2, 1, 15}, {1, 31, 1, 1, 15},
+            {0, 33, 1, 2, 16}, {0, 32, 2, 2, 16}, {0, 31, 1, 2, 17}, {0, 30, 1, 2, 17},
+            {1, 40, 1, 0, 18}, {1, 42, 1, 0, 18}, {1, 43, 1, 0, 18}, {1, 40, 2, 1, 19}, {1, 42, 2, 1, 19}, {1, 41, 1, 1, 19},
+            {0, 43, 1, 2, 20}, {0, 42, 2, 2, 21}, {0, 41, 1, 2, 22}, {0, 40, 1, 2, 23}};
+
+    private static final String AO_LIST_HISTORY = String.join("\n",
+            "{:type :ok, :f :txn, :value [[:append 8 1]], :process 0, :time 0, :index 0}",
+            "{:type :ok, :f :txn, :value [[:append 8 2] [:append 9 1]], :process 0, :time 1, :index 1}",
+            "{:type :ok, :f :txn, :value [[:r 8 [1]] [:r 9 [1]]], :process 1, :time 2, :index 2}",
+            "{:type :ok, :f :txn, :value [[:append 10 1]], :process 0, :time 3, :index 3}",
+            "{:type :ok, :f :txn, :value [[:append 10 2] [:append 11 1]], :process 0, :time 4, :index 4}",
+            "{:type :ok, :f :txn, :value [[:r 11 [1]] [:r 10 [1]]], :process 1, :time 5, :index 5}",
+            "{:type :ok, :f :txn, :value [[:append 12 1]], :process 0, :time 6, :index 6}",
+            "{:type :ok, :f :txn, :value [[:append 12 2] [:append 13 1]], :process 0, :time 7, :index 7}",
+            "{:type :ok, :f :txn, :value [[:r 13 [1]]], :process 1, :time 8, :index 8}",
+            "{:type :ok, :f :txn, :value [[:r 12 [1]]], :process 1, :time 9, :index 9}",
+            "{:type :ok, :f :txn, :value [[:append 20 1] [:append 22 1] [:append 23 1]], :process 0, :time 10, :index 10}",
+            "{:type :ok, :f :txn, :value [[:append 20 2] [:append 22 2] [:append 21 1]], :process 1, :time 11, :index 11}",
+            "{:type :ok, :f :txn, :value [[:r 22 [1 2]] [:r 23 [1]]], :process 2, :time 12, :index 12}",
+            "{:type :ok, :f :txn, :value [[:r 20 [1]] [:r 21 [1]]], :process 2, :time 13, :index 13}",
+            "{:type :ok, :f :txn, :value [[:append 30 1] [:append 32 1] [:append 33 1]], :process 0, :time 14, :index 14}",
+            "{:type :ok, :f :txn, :value [[:append 30 2] [:append 32 2] [:append 31 1]], :process 1, :time 15, :index 15}",
+            "{:type :ok, :f :txn, :value [[:r 33 [1]] [:r 32 [1 2]]], :process 2, :time 16, :index 16}",
+            "{:type :ok, :f :txn, :value [[:r 31 [1]] [:r 30 [1]]], :process 2, :time 17, :index 17}",
+            "{:type :ok, :f :txn, :value [[:append 40 1] [:append 42 1] [:append 43 1]], :process 0, :time 18, :index 18}",
+            "{:type :ok, :f :txn, :value [[:append 40 2] [:append 42 2] [:append 41 1]], :process 1, :time 19, :index 19}",
+            "{:type :ok, :f :txn, :value [[:r 43 [1]]], :process 2, :time 20, :index 20}",
+            "{:type :ok, :f :txn, :value [[:r 42 [1 2]]], :process 2, :time 21, :index 21}",
+            "{:type :ok, :f :txn, :value [[:r 41 [1]]], :process 2, :time 22, :index 22}",
+            "{:type :ok, :f :txn, :value [[:r 40 [1]]], :process 2, :time 23, :index 23}") + "\n";
+
+    @TempDir
+    Path dir;
+
+    private static Map<String, Integer> validate(Plume<?, ?> plume, int parallelism) {
+        plume.setParallelism(parallelism);
+        plume.validate();
+        return plume.getBadPatternCount();
+    }
+
+    private static Map<String, Integer> checkText(long[][] ops, IsolationLevel level, int parallelism) {
+        return validate(new Plume<>(AlgType.PLUME, Histories.of(ops), level, false), parallelism);
+    }
+
+    private Map<String, Integer> checkList(String content, IsolationLevel level, int parallelism) throws IOException {
+        var file = dir.resolve("history.edn");
+        Files.writeString(file, content);
+        var history = new ElleHistoryLoader(file.toFile()).loadHistory();
+        return validate(new PlumeList<>(AlgType.PLUME_LIST, history, level, false), parallelism);
+    }
+
+    @Test
+    void parallelCOCheckCountsLikeTheSequentialOne() throws IOException {
+        // RC ends with checkCOTAP
+        var sequential = checkText(OPS, IsolationLevel.RC, 1);
+        assertTrue(sequential.size() > 4, sequential.toString());
+        assertEquals(sequential, checkText(OPS, IsolationLevel.RC, 8));
+
+        var sequentialList = checkList(LIST_HISTORY, IsolationLevel.RC, 1);
+        assertTrue(sequentialList.size() > 4, sequentialList.toString());
+        assertEquals(sequentialList, checkList(LIST_HISTORY, IsolationLevel.RC, 8));
+    }
+
+    @Test
+    void shardedAOCheckCountsLikeTheSequentialOne() throws IOException {
+        var sequential = checkText(AO_OPS, IsolationLevel.TCC, 1);
+        assertTrue(sequential.containsKey(TAP.ConflictAO.getCode()), sequential.toString());
+        assertEquals(sequential, checkText(AO_OPS, IsolationLevel.TCC, 8));
+
+        var sequentialList = checkList(AO_LIST_HISTORY, IsolationLevel.TCC, 1);
+        assertFalse(sequentialList.isEmpty());
+        assertEquals(sequentialList, checkList(AO_LIST_HISTORY, IsolationLevel.TCC, 8));
+    }
+}
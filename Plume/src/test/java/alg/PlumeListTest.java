@@ -0,0 +1,56 @@
+package alg;
+
+import loader.ElleHistoryLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import taps.TAP;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlumeListTest {
+    @TempDir
+    Path dir;
+
+    private Set<TAP> check(String... lines) throws IOException {
+        var file = dir.resolve("history.edn").toFile();
+        Files.writeString(file.toPath(), String.join("\n", lines) + "\n");
+        var history = new ElleHistoryLoader(file).loadHistory();
+        var plume = new PlumeList<>(AlgType.PLUME_LIST, history, IsolationLevel.TCC, false);
+        plume.setVerbose(false);
+        plume.validate();
+        return plume.getBadPatterns();
+    }
+
+    @Test
+    void readsInTheOppositeOrderAreIncompatible() throws IOException {
+        var taps = check(
+                "{:type :ok, :f :txn, :value [[:append 1 1]], :process 0, :time 0, :index 0}",
+                "{:type :ok, :f :txn, :value [[:append 1 2]], :process 1, :time 1, :index 1}",
+                "{:type :ok, :f :txn, :value [[:r 1 [1 2]]], :process 2, :time 2, :index 2}",
+                "{:type :ok, :f :txn, :value [[:r 1 [2 1]]], :process 3, :time 3, :index 3}");
+        assertTrue(taps.contains(TAP.IncompatibleOrder), taps.toString());
+    }
+
+    @Test
+    void prefixesAreCompatible() throws IOException {
+        var taps = check(
+                "{:type :ok, :f :txn, :value [[:append 1 1]], :process 0, :time 0, :index 0}",
+                "{:type :ok, :f :txn, :value [[:append 1 2]], :process 1, :time 1, :index 1}",
+                "{:type :ok, :f :txn, :value [[:r 1 [1]]], :process 2, :time 2, :index 2}",
+                "{:type :ok, :f :txn, :value [[:r 1 [1 2]]], :process 3, :time 3, :index 3}");
+        assertEquals(Set.of(), taps);
+    }
+
+    @Test
+    void readOfAnOverwrittenAppendIsIntermediate() throws IOException {
+        var taps = check(
+                "{:type :ok, :f :txn, :value [[:append 1 1] [:append 1 2]], :process 0, :time 0, :index 0}",
+                "{:type :ok, :f :txn, :value [[:r 1 [1]]], :process 1, :time 1, :index 1}");
+        assertTrue(taps.contains(TAP.IntermediateRead), taps.toString());
+    }
+}
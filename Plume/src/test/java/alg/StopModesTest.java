@@ -0,0 +1,153 @@
+package alg;
+
+import history.Histories;
+import org.junit.jupiter.api.Test;
+import taps.TAP;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StopModesTest {
+    // {write, variable, value, session, transaction}, each pattern numbered from variable 1 and transaction 0
+    // a conflict of 0 and 1 on x1, through the AO edge 0 ao-> 1 that 2 and 3 give by reading x4 from 0 and x3
+    // from 1, the AO phase finds it twice
+    private static final long[][] CONFLICT = {{1, 1, 1, 0, 0}, {1, 3, 1, 0, 0}, {1, 4, 1, 0, 0},
+            {1, 1, 2, 1, 1}, {1, 3, 2, 1, 1}, {1, 2, 1, 1, 1},
+            {0, 4, 1, 2, 2}, {0, 3, 2, 2, 3}, {0, 2, 1, 2, 4}, {0, 1, 1, 2, 5}};
+
+    // 1 reads x1 while 0 overwrites it
+    private static final long[][] INTERMEDIATE_READ = {{1, 1, 1, 0, 0}, {1, 1, 2, 0, 0}, {0, 1, 1, 1, 1}};
+
+    // 2 reads x1 from 0 although 1 overwrote it before writing x2
+    private static final long[][] FRACTURED_READ = {{1, 1, 1, 0, 0}, {1, 1, 2, 0, 1}, {1, 2, 1, 0, 1},
+            {0, 1, 1, 1, 2}, {0, 2, 1, 1, 2}};
+
+    // 1 reads x1 before and after 0 writes it
+    private static final long[][] NON_REPEATABLE_READ = {{1, 1, 1, 0, 0}, {0, 1, 0, 1, 1}, {0, 1, 1, 1, 1}};
+
+    // a fractured read, a non-monotonic read and a conflict through CO edges, then the same three through the
+    // AO edges 10 ao-> 11, 14 ao-> 15 and 18 ao-> 19 that the first reads of session 2 give, every TAP the AO
+    // phase reports
+    private static final long[][] AO_PHASE = {{1, 1, 1, 0, 0}, {1, 1, 2, 0, 1}, {1, 2, 1, 0, 1}, {0, 1, 1, 1, 2}, {0, 2, 1, 1, 2},
+            {1, 3, 1, 0, 3}, {1, 3, 2, 0, 4}, {1, 4, 1, 0, 4}, {0, 4, 1, 1, 5}, {0, 3, 1, 1, 5},
+            {1, 5, 1, 0, 6}, {1, 5, 2, 0, 7}, {1, 6, 1, 0, 7}, {0, 6, 1, 1, 8}, {0, 5, 1, 1, 9},
+            {1, 20, 1, 0, 10}, {1, 22, 1, 0, 10}, {1, 23, 1, 0, 10}, {1, 20, 2, 1, 11}, {1, 22, 2, 1, 11}, {1, 21, 1, 1, 11},
+            {0, 22, 2, 2, 12}, {0, 23, 1, 2, 12}, {0, 20, 1, 2, 13}, {0, 21, 1, 2, 13},
+            {1, 30, 1, 0, 14}, {1, 32, 1, 0, 14}, {1, 33, 1, 0, 14}, {1, 30, 2, 1, 15}, {1, 32, 2, 1, 15}, {1, 31, 1, 1, 15},
+            {0, 33, 1, 2, 16}, {0, 32, 2, 2, 16}, {0, 31, 1, 2, 17}, {0, 30, 1, 2, 17},
+            {1, 40, 1, 0, 18}, {1, 42, 1, 0, 18}, {1, 43, 1, 0, 18}, {1, 40, 2, 1, 19}, {1, 42, 2, 1, 19}, {1, 41, 1, 1, 19},
+            {0, 43, 1, 2, 20}, {0, 42, 2, 2, 21}, {0, 41, 1, 2, 22}, {0, 40, 1, 2, 23}};
+
+    // 1 reads x1 from 0 and 2 reads x2 from 1
+    private static final long[][] SERIALIZABLE = {{1, 1, 1, 0, 0}, {0, 1, 1, 1, 1}, {1, 2, 1, 1, 1}, {0, 2, 1, 0, 2}};
+
+    /**
+     * The patterns one after the other, copies times, each on its own variables and transactions.
+     */
+    private static long[][] repeat(int copies, long[][]... patterns) {
+        var ops = new ArrayList<long[]>();
+        long variables = 0;
+        long transactions = 0;
+        for (int copy = 0; copy < copies; copy++) {
+            for (var pattern : patterns) {
+                long lastVariable = 0;
+                long lastTransaction = 0;
+                for (var op : pattern) {
+                    var shifted = Arrays.copyOf(op, op.length);
+                    shifted[1] += variables;
+                    shifted[4] += transactions;
+                    ops.add(shifted);
+                    lastVariable = Math.max(lastVariable, op[1]);
+                    lastTransaction = Math.max(lastTransaction, op[4]);
+                }
+                variables += lastVariable;
+                transactions += lastTransaction + 1;
+            }
+        }
+        return ops.toArray(new long[0][]);
+    }
+
+    private static Plume<Long, Long> plume(long[][] ops) {
+        return new Plume<>(AlgType.PLUME, Histories.of(ops), IsolationLevel.TCC, false);
+    }
+
+    @Test
+    void budgetCapsEachTAP() {
+        var ops = repeat(3, INTERMEDIATE_READ, FRACTURED_READ, NON_REPEATABLE_READ, CONFLICT);
+        var full = plume(ops);
+        full.validate();
+        assertTrue(full.getBadPatterns().containsAll(EnumSet.of(TAP.IntermediateRead, TAP.FracturedReadCO,
+                TAP.NonRepeatableRead, TAP.ConflictAO)), full.getBadPatterns().toString());
+
+        var capped = plume(ops);
+        capped.setTapBudget(2);
+        capped.validate();
+        assertEquals(full.getBadPatterns(), capped.getBadPatterns());
+        for (var tap : full.getBadPatterns()) {
+            assertTrue(full.getBadPatternCounter().get(tap) > 2);
+            assertEquals(2, capped.getBadPatternCounter().get(tap), tap.name());
+        }
+    }
+
+    @Test
+    void budgetStopsOnceNothingIsLeftToFind() {
+        var plume = plume(AO_PHASE);
+        plume.setTapBudget(1);
+        plume.validate();
+        assertEquals(StopReason.TAP_BUDGET, plume.getStopReason());
+        assertEquals(Phase.CHECK_AO_TAP, plume.getPhase());
+        for (var tap : Phase.CHECK_AO_TAP.getTAPs()) {
+            assertEquals(1, plume.getBadPatternCounter().get(tap), tap.name());
+        }
+
+        // without the conflict through AO edges, the check has to run to the end
+        plume = plume(Arrays.copyOf(AO_PHASE, AO_PHASE.length - 10));
+        plume.setTapBudget(1);
+        plume.validate();
+        assertFalse(plume.isStopped());
+        assertEquals(0, plume.getBadPatternCounter().get(TAP.ConflictAO));
+    }
+
+    @Test
+    void failFastKnowsEveryLevel() {
+        // ConflictAO is only prohibited by TCC, RA and RC need the whole check
+        var plume = plume(CONFLICT);
+        plume.setFailFast(true);
+        plume.setVerdictLevels(EnumSet.of(IsolationLevel.RC, IsolationLevel.TCC));
+        plume.validate();
+        assertEquals("ACCEPT", Verdicts.verdict(plume, IsolationLevel.RC));
+        assertEquals("REJECT", Verdicts.verdict(plume, IsolationLevel.TCC));
+        assertEquals(1, plume.getBadPatternCounter().get(TAP.ConflictAO));
+        assertEquals(StopReason.FAIL_FAST, plume.getStopReason());
+        assertEquals(List.of(Phase.CHECK_AO_TAP), plume.getSkippedPhases());
+
+        // an intermediate read is prohibited by every level, the check stops in the CO phases
+        plume = plume(repeat(1, CONFLICT, INTERMEDIATE_READ));
+        plume.setFailFast(true);
+        plume.setVerdictLevels(EnumSet.allOf(IsolationLevel.class));
+        plume.validate();
+        assertEquals(StopReason.FAIL_FAST, plume.getStopReason());
+        for (var level : IsolationLevel.values()) {
+            assertEquals("REJECT", Verdicts.verdict(plume, level));
+        }
+        assertEquals(Phase.CHECK_CO_TAP, plume.getPhase());
+        assertEquals(0, plume.getBadPatternCounter().get(TAP.ConflictAO));
+    }
+
+    @Test
+    void failFastWithoutTAPs() {
+        var plume = plume(SERIALIZABLE);
+        plume.setFailFast(true);
+        plume.setVerdictLevels(EnumSet.allOf(IsolationLevel.class));
+        plume.validate();
+        assertFalse(plume.isStopped());
+        assertEquals(List.of(), plume.getSkippedPhases());
+        for (var level : IsolationLevel.values()) {
+            assertEquals("ACCEPT", Verdicts.verdict(plume, level));
+        }
+    }
+}
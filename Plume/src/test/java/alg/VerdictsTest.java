@@ -0,0 +1,74 @@
+package alg;
+
+import history.Histories;
+import org.junit.jupiter.api.Test;
+import taps.TAP;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VerdictsTest {
+    // {write, variable, value, session, transaction}: three fractured reads, of x3 and x4, x13 and x14, x23 and
+    // x24, a conflict on x5 that needs the AO edge 9 ao-> 10, prohibited by TCC only, an intermediate read of x1,
+    // prohibited by RC, and a non-monotonic read of x30 and x31 that needs the AO edge 17 ao-> 18, which RC
+    // prohibits but its verdict ends before the AO phase finds it
+    private static final long[][] OPS = {
+            {1, 3, 1, 0, 0}, {1, 3, 2, 0, 1}, {1, 4, 1, 0, 1}, {0, 3, 1, 1, 2}, {0, 4, 1, 1, 2},
+            {1, 13, 1, 0, 3}, {1, 13, 2, 0, 4}, {1, 14, 1, 0, 4}, {0, 13, 1, 1, 5}, {0, 14, 1, 1, 5},
+            {1, 23, 1, 0, 6}, {1, 23, 2, 0, 7}, {1, 24, 1, 0, 7}, {0, 23, 1, 1, 8}, {0, 24, 1, 1, 8},
+            {1, 5, 1, 0, 9}, {1, 7, 1, 0, 9}, {1, 8, 1, 0, 9}, {1, 5, 2, 1, 10}, {1, 7, 2, 1, 10}, {1, 6, 1, 1, 10},
+            {0, 8, 1, 2, 11}, {0, 7, 2, 2, 12}, {0, 6, 1, 2, 13}, {0, 5, 1, 2, 14},
+            {1, 1, 1, 0, 15}, {1, 1, 2, 0, 15}, {0, 1, 1, 1, 16},
+            {1, 30, 1, 0, 17}, {1, 32, 1, 0, 17}, {1, 33, 1, 0, 17}, {1, 30, 2, 1, 18}, {1, 32, 2, 1, 18}, {1, 31, 1, 1, 18},
+            {0, 33, 1, 2, 19}, {0, 32, 2, 2, 19}, {0, 31, 1, 2, 20}, {0, 30, 1, 2, 20}};
+
+    private static Plume<Long, Long> validate(int witnessLimit) {
+        var plume = new Plume<>(AlgType.PLUME, Histories.of(OPS), IsolationLevel.TCC, false);
+        plume.setWitnessLimit(witnessLimit);
+        plume.validate();
+        return plume;
+    }
+
+    @Test
+    void witnessesFollowTheCountsOfEachLevel() {
+        for (int limit : new int[]{2, 1000}) {
+            var plume = validate(limit);
+            assertEquals(3, plume.getBadPatternCount(IsolationLevel.TCC).get(TAP.FracturedReadCO.getCode()));
+            for (var level : IsolationLevel.values()) {
+                var counts = plume.getBadPatternCount(level);
+                for (var tap : TAP.values()) {
+                    int count = counts.getOrDefault(tap.getCode(), 0);
+                    var witnesses = plume.getWitnesses(tap, level);
+                    assertEquals(Math.min(count, limit), witnesses.size(), level + " " + tap);
+                    witnesses.forEach((w) -> assertEquals(tap, w.getTap()));
+                }
+            }
+            assertFalse(plume.getWitnesses(TAP.NonMonoReadAO).isEmpty());
+            assertEquals(List.of(), plume.getWitnesses(TAP.NonMonoReadAO, IsolationLevel.RC));
+        }
+    }
+
+    @Test
+    void jsonListsEachLevel() {
+        int limit = 2;
+        var plume = validate(limit);
+        var json = Verdicts.toJson(plume, List.of(IsolationLevel.TCC, IsolationLevel.RC));
+        assertTrue(json.startsWith("{\"levels\":[{\"level\":\"RC\",\"verdict\":\"REJECT\",\"taps\":[{\"name\":"), json);
+        assertTrue(json.endsWith("],\"stopped\":null,\"skipped_phases\":[]}"), json);
+
+        var levels = json.split("\\{\"level\":");
+        assertEquals(3, levels.length);
+        for (var level : EnumSet.of(IsolationLevel.RC, IsolationLevel.TCC)) {
+            var part = levels[level == IsolationLevel.RC ? 1 : 2];
+            assertTrue(part.startsWith("\"" + level + "\""));
+            int expected = 0;
+            for (var entry : plume.getBadPatternCount(level).entrySet()) {
+                assertTrue(part.contains("\"code\":\"" + entry.getKey() + "\",\"count\":" + entry.getValue()), part);
+                expected += Math.min(entry.getValue(), limit);
+            }
+            assertEquals(expected, part.split("\\{\"transactions\":", -1).length - 1, level.name());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package alg;
+
+import graph.Edge;
+import graph.Node;
+import history.Histories;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriterIndexTest {
+    // {write, variable, value, session, transaction}: every transaction writes x1, the reads link the sessions at
+    // different points, so that each session reaches a different prefix of the others
+    private static final long[][] OPS = {{1, 1, 1, 0, 0}, {1, 2, 1, 0, 0}, {1, 1, 2, 1, 1}, {0, 2, 1, 2, 2}, {1, 1, 3, 2, 2},
+            {1, 1, 4, 0, 3}, {0, 1, 2, 0, 3}, {0, 1, 3, 1, 4}, {1, 1, 5, 1, 4}, {1, 1, 6, 2, 5}, {1, 3, 1, 2, 5},
+            {1, 1, 7, 0, 6}, {0, 3, 1, 1, 7}, {1, 1, 8, 1, 7}, {0, 1, 7, 2, 8}, {1, 1, 9, 2, 8},
+            {1, 1, 10, 0, 9}, {0, 1, 9, 0, 9}};
+
+    /**
+     * Index of the first writer matching predicate by a linear scan, asserting the matches are a suffix.
+     */
+    private static int linearFirstMatch(List<Node<Long, Long>> writers, Predicate<Node<Long, Long>> predicate) {
+        int first = writers.size();
+        for (int i = writers.size() - 1; i >= 0 && predicate.test(writers.get(i)); i--) {
+            first = i;
+        }
+        for (int i = 0; i < first; i++) {
+            assertFalse(predicate.test(writers.get(i)), "reachability is not monotone along the session");
+        }
+        return first;
+    }
+
+    @Test
+    void binarySearchMatchesALinearScan() {
+        var plume = new Plume<>(AlgType.PLUME, Histories.of(OPS), IsolationLevel.TCC, false);
+        plume.validate();
+        var nodes = new HashSet<>(plume.op2node.values());
+        int compared = 0;
+        int reaching = 0;
+        for (long variable = 1; variable <= 3; variable++) {
+            for (var writers : plume.writerIndex.get(variable)) {
+                for (var node : nodes) {
+                    int count = WriterIndex.countReaching(writers, node);
+                    assertEquals(linearFirstMatch(writers, (writer) -> !writer.canReachByCO(node)), count);
+                    assertEquals(linearFirstMatch(writers, node::canReachByCO),
+                            WriterIndex.firstReachedBy(writers, node, Edge.Type.CO));
+                    assertEquals(linearFirstMatch(writers, node::canReachByAO),
+                            WriterIndex.firstReachedBy(writers, node, Edge.Type.AO));
+                    compared++;
+                    reaching += count > 0 && count < writers.size() ? 1 : 0;
+                }
+            }
+        }
+        assertEquals(50, compared);
+        // the search ends inside the list, not only at its ends
+        assertTrue(reaching > 5);
+    }
+}
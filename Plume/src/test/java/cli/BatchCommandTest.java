@@ -0,0 +1,102 @@
+package cli;
+
+import alg.AlgType;
+import alg.IsolationLevel;
+import alg.Verdicts;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import picocli.CommandLine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchCommandTest {
+    private static final List<IsolationLevel> LEVELS = List.of(IsolationLevel.RC, IsolationLevel.TCC);
+
+    // a serial history, and a fractured read of x3 and x4 followed by an intermediate read of x1
+    private static final String ACCEPTED_TEXT = "w(1,1,0,0)\nr(1,1,1,1)\nw(1,2,1,1)\nr(1,2,0,2)\n";
+    private static final String REJECTED_TEXT = "w(3,1,0,0)\nw(3,2,0,1)\nw(4,1,0,1)\nr(3,1,1,2)\nr(4,1,1,2)\n" +
+            "w(1,1,0,3)\nw(1,2,0,3)\nr(1,1,1,4)\n";
+
+    // the same in list-append histories, processes are the sessions
+    private static final String ACCEPTED_LIST = String.join("\n",
+            "{:type :ok, :f :txn, :value [[:append 1 1]], :process 0, :time 0, :index 0}",
+            "{:type :ok, :f :txn, :value [[:r 1 [1]] [:append 1 2]], :process 1, :time 1, :index 1}",
+            "{:type :ok, :f :txn, :value [[:r 1 [1 2]]], :process 0, :time 2, :index 2}") + "\n";
+    private static final String REJECTED_LIST = String.join("\n",
+            "{:type :ok, :f :txn, :value [[:append 3 1]], :process 0, :time 0, :index 0}",
+            "{:type :ok, :f :txn, :value [[:append 3 2] [:append 4 1]], :process 0, :time 1, :index 1}",
+            "{:type :ok, :f :txn, :value [[:r 3 [1]] [:r 4 [1]]], :process 1, :time 2, :index 2}") + "\n";
+
+    @TempDir
+    Path dir;
+
+    private List<String> write() throws IOException {
+        var names = new ArrayList<String>();
+        for (int i = 0; i < 6; i++) {
+            // every other history is accepted
+            boolean text = i < 4;
+            var name = "h" + i + (text ? ".txt" : ".edn");
+            var content = i % 2 == 0 ? (text ? ACCEPTED_TEXT : ACCEPTED_LIST) : (text ? REJECTED_TEXT : REJECTED_LIST);
+            Files.writeString(dir.resolve(name), content);
+            names.add(name);
+        }
+        return names;
+    }
+
+    private static List<String> run(String... args) {
+        var out = new ByteArrayOutputStream();
+        var stdout = System.out;
+        System.setOut(new PrintStream(out, true, StandardCharsets.UTF_8));
+        try {
+            assertEquals(0, new CommandLine(new BatchCommand()).execute(args));
+        } finally {
+            System.setOut(stdout);
+        }
+        return List.of(out.toString(StandardCharsets.UTF_8).split(System.lineSeparator()));
+    }
+
+    /**
+     * The result of checking file alone, as --json prints it.
+     */
+    private String checkAlone(String name) {
+        var file = dir.resolve(name).toFile();
+        var plume = HistoryFiles.load(file, name.endsWith(".edn") ? AlgType.PLUME_LIST : AlgType.PLUME,
+                IsolationLevel.TCC, false, 1);
+        plume.setVerbose(false);
+        plume.setWitnessLimit(3);
+        plume.validate();
+        return Verdicts.toJson(plume, LEVELS);
+    }
+
+    @Test
+    void eachFileGetsTheVerdictOfASeparateCheck() throws IOException {
+        var names = write();
+        var lines = run(dir.toString(), "-i", "RC,TCC", "--workers", "3", "--json");
+        assertEquals(names.size() + 1, lines.size());
+        for (int i = 0; i < names.size(); i++) {
+            assertEquals("{\"file\":\"" + names.get(i) + "\",\"result\":" + checkAlone(names.get(i)) + "}", lines.get(i));
+        }
+        var summary = lines.get(names.size());
+        assertTrue(summary.startsWith("{\"summary\":{\"files\":6,\"errors\":0,"), summary);
+        assertTrue(summary.contains("\"TCC\":{\"ACCEPT\":3,\"REJECT\":3}"), summary);
+    }
+
+    @Test
+    void textLinesAndSummary() throws IOException {
+        write();
+        var lines = run(dir.toString(), "-i", "TCC", "--workers", "2", "--glob", "*.txt");
+        assertEquals("h0.txt: ACCEPT", lines.get(0));
+        assertTrue(lines.get(1).startsWith("h1.txt: REJECT ["), lines.get(1));
+        assertTrue(lines.get(4).startsWith("Batch: 4 files, 0 errors, "), lines.get(4));
+        assertEquals("TCC: 2 ACCEPT, 2 REJECT", lines.get(5));
+    }
+}
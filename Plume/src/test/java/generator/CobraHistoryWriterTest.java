@@ -0,0 +1,94 @@
+package generator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import taps.TAP;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CobraHistoryWriterTest {
+    @TempDir
+    Path dir;
+
+    /**
+     * Ops of each session as the Cobra loader of PolySI reads them, one string per record.
+     */
+    private static Map<Integer, List<String>> load(File directory) throws IOException {
+        var sessions = new HashMap<Integer, List<String>>();
+        for (var file : directory.listFiles()) {
+            var name = file.getName();
+            var records = new ArrayList<String>();
+            sessions.put(Integer.parseInt(name.substring(1, name.length() - ".log".length())), records);
+            try (var in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                while (true) {
+                    char op;
+                    try {
+                        op = (char) in.readByte();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    switch (op) {
+                        case 'S':
+                        case 'C':
+                            records.add(op + " " + in.readLong());
+                            break;
+                        case 'W':
+                            records.add("W " + in.readLong() + " " + in.readLong() + " " + in.readLong());
+                            break;
+                        case 'R':
+                            records.add("R " + in.readLong() + " " + in.readLong() + " " + in.readLong() + " " + in.readLong());
+                            break;
+                        default:
+                            fail("unknown record " + op);
+                    }
+                }
+            }
+        }
+        return sessions;
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        var config = TestHistories.config(4, 50, 4, 30, 2, 0.05, TAP.FracturedReadCO, TAP.ConflictAO, TAP.CyclicCO);
+        var directory = dir.resolve("cobra").toFile();
+        TestHistories.write(config, new CobraHistoryWriter(directory));
+
+        var expected = new HashMap<Integer, List<String>>();
+        for (var txn : TestHistories.transactions(config)) {
+            var records = expected.computeIfAbsent(txn.getSession(), k -> new ArrayList<>());
+            records.add("S " + txn.getId());
+            for (var op : txn.getOps()) {
+                if (op.isWrite()) {
+                    // the value is the write id
+                    records.add("W " + op.getValue() + " " + op.getKey() + " " + op.getValue());
+                } else if (op.getValue() == 0) {
+                    long init = CobraHistoryWriter.INIT_ID;
+                    records.add("R " + init + " " + init + " " + op.getKey() + " 0");
+                } else {
+                    records.add("R " + op.getWriterId() + " " + op.getValue() + " " + op.getKey() + " " + op.getValue());
+                }
+            }
+            records.add("C " + txn.getId());
+        }
+        assertEquals(expected, load(directory));
+    }
+
+    @Test
+    void rejectsAbortedTransactions() {
+        var config = TestHistories.config(4, 50, 4, 30, 2, 0.05, TAP.AbortedRead);
+        var directory = dir.resolve("cobra").toFile();
+        assertThrows(IllegalArgumentException.class, () -> TestHistories.write(config, new CobraHistoryWriter(directory)));
+    }
+}
@@ -0,0 +1,81 @@
+package generator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import taps.TAP;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DBCopHistoryWriterTest {
+    @TempDir
+    Path dir;
+
+    private static String readString(ByteBuffer buffer) {
+        var bytes = new byte[(int) buffer.getLong()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean readBoolean(ByteBuffer buffer) {
+        byte b = buffer.get();
+        assertTrue(b == 0 || b == 1, "bincode booleans are one byte, 0 or 1");
+        return b == 1;
+    }
+
+    @Test
+    void layout() throws IOException {
+        var config = TestHistories.config(3, 20, 3, 10, 4, 0.05, TAP.AbortedRead, TAP.FracturedReadCO);
+        var file = dir.resolve("history.bin");
+        TestHistories.write(config, new DBCopHistoryWriter(file.toFile()));
+
+        // transactions of each session in session order, sessions by id
+        var sessions = new TreeMap<Integer, List<GeneratedTransaction>>();
+        var keys = new HashSet<Long>();
+        long events = 0;
+        var transactions = TestHistories.transactions(config);
+        for (var txn : transactions) {
+            sessions.computeIfAbsent(txn.getSession(), k -> new ArrayList<>()).add(txn);
+            txn.getOps().forEach((op) -> keys.add(op.getKey()));
+            events += txn.getOps().size();
+        }
+        assertTrue(transactions.stream().anyMatch(GeneratedTransaction::isAborted));
+
+        var buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        // header: id, nodeNum, variableNum, transactionNum, eventNum, info, start, end
+        assertEquals(0, buffer.getLong());
+        assertEquals(sessions.size(), buffer.getLong());
+        assertEquals(keys.size(), buffer.getLong());
+        assertEquals(transactions.size(), buffer.getLong());
+        assertEquals(events, buffer.getLong());
+        assertEquals("generated by Plume", readString(buffer));
+        assertEquals(readString(buffer), readString(buffer));
+
+        // sessions, each behind its transaction count
+        assertEquals(sessions.size(), buffer.getLong());
+        for (var txns : sessions.values()) {
+            assertEquals(txns.size(), buffer.getLong());
+            for (var txn : txns) {
+                assertEquals(txn.getOps().size(), buffer.getLong());
+                for (var op : txn.getOps()) {
+                    assertEquals(op.isWrite(), readBoolean(buffer));
+                    assertEquals(op.getKey(), buffer.getLong());
+                    assertEquals(op.getValue(), buffer.getLong());
+                    assertTrue(readBoolean(buffer));
+                }
+                assertEquals(!txn.isAborted(), readBoolean(buffer));
+            }
+        }
+        assertFalse(buffer.hasRemaining());
+    }
+}
@@ -0,0 +1,51 @@
+package generator;
+
+import alg.AlgType;
+import alg.IsolationLevel;
+import alg.Plume;
+import org.junit.jupiter.api.Test;
+import taps.TAP;
+
+import java.io.IOException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistoryGeneratorTest {
+    private static WorkloadConfig config() {
+        return TestHistories.config(4, 50, 4, 40, 3, 0);
+    }
+
+    private static Set<TAP> validate(WorkloadConfig config) throws IOException {
+        var plume = new Plume<>(AlgType.PLUME, TestHistories.generate(config), IsolationLevel.TCC, false);
+        plume.validate();
+        return plume.getBadPatterns(IsolationLevel.TCC);
+    }
+
+    @Test
+    void workloadIsSerializable() throws IOException {
+        assertEquals(Set.of(), validate(config()));
+    }
+
+    @Test
+    void everyInjectedTAPIsFound() throws IOException {
+        // TCC prohibits every TAP
+        for (var tap : HistoryGenerator.INJECTABLE_TAPS) {
+            var config = config().inject(tap, 0.05);
+            assertTrue(validate(config).contains(tap), tap.name());
+        }
+    }
+
+    @Test
+    void rejectsTAPsWithoutAPattern() {
+        var config = config().inject(TAP.IncompatibleOrder, 0.05);
+        assertThrows(IllegalArgumentException.class, () -> new HistoryGenerator(config));
+    }
+
+    @Test
+    void rejectsTooFewSessions() {
+        var config = config().inject(TAP.ConflictAO, 0.05);
+        config.setSessions(2);
+        assertThrows(IllegalArgumentException.class, () -> new HistoryGenerator(config));
+    }
+}
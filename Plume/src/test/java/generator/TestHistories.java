@@ -0,0 +1,65 @@
+package generator;
+
+import history.History;
+import taps.TAP;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generated histories of the tests, every given TAP is injected at the same rate.
+ */
+public class TestHistories {
+    public static WorkloadConfig config(int sessions, int txnsPerSession, int opsPerTxn, int keys, long seed,
+                                        double rate, TAP... taps) {
+        var config = new WorkloadConfig();
+        config.setSessions(sessions);
+        config.setTxnsPerSession(txnsPerSession);
+        config.setOpsPerTxn(opsPerTxn);
+        config.setKeys(keys);
+        config.setSeed(seed);
+        for (var tap : taps) {
+            config.inject(tap, rate);
+        }
+        return config;
+    }
+
+    public static History<Long, Long> generate(int sessions, int txnsPerSession, int opsPerTxn, int keys, long seed,
+                                               double rate, TAP... taps) throws IOException {
+        return generate(config(sessions, txnsPerSession, opsPerTxn, keys, seed, rate, taps));
+    }
+
+    public static History<Long, Long> generate(WorkloadConfig config) throws IOException {
+        var writer = new MemoryHistoryWriter();
+        write(config, writer);
+        return writer.getHistory();
+    }
+
+    /**
+     * The transactions handed to a writer, in order.
+     */
+    public static List<GeneratedTransaction> transactions(WorkloadConfig config) throws IOException {
+        var transactions = new ArrayList<GeneratedTransaction>();
+        write(config, new HistoryWriter() {
+            @Override
+            public void write(GeneratedTransaction txn) {
+                transactions.add(txn);
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        return transactions;
+    }
+
+    /**
+     * Generate into the writer and close it.
+     */
+    public static void write(WorkloadConfig config, HistoryWriter writer) throws IOException {
+        try (writer) {
+            new HistoryGenerator(config).generate(writer);
+        }
+    }
+}
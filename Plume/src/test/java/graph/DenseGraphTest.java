@@ -0,0 +1,205 @@
+package graph;
+
+import history.Session;
+import history.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DenseGraphTest {
+    private static final int SIZE = 40;
+
+    private final List<Node<Long, Long>> hashNodes = new ArrayList<>();
+    private final List<Node<Long, Long>> denseNodes = new ArrayList<>();
+    private final HashGraph<Long, Long> hash = new HashGraph<>();
+    private final DenseGraph<Long, Long> dense = new DenseGraph<>();
+
+    private void fill(long seed) {
+        var session = new Session<Long, Long>(0);
+        for (int i = 0; i < SIZE; i++) {
+            var txn = new Transaction<>(i, session);
+            hashNodes.add(new NormalNode<>(hash, txn));
+            denseNodes.add(new NormalNode<>(dense, txn));
+            hash.addVertex(hashNodes.get(i));
+            dense.addVertex(denseNodes.get(i));
+        }
+        var random = new Random(seed);
+        var types = Edge.Type.values();
+        for (int i = 0; i < 600; i++) {
+            int from = random.nextInt(SIZE);
+            int to = random.nextInt(SIZE);
+            var type = types[random.nextInt(types.length)];
+            var edge = new Edge<>(type, type == Edge.Type.WR ? (long) random.nextInt(3) : null);
+            hash.addEdge(hashNodes.get(from), hashNodes.get(to), edge);
+            dense.addEdge(denseNodes.get(from), denseNodes.get(to), edge);
+        }
+    }
+
+    private static long id(Node<Long, Long> node) {
+        return node.getTransaction().getId();
+    }
+
+    /**
+     * Same vertices and indexes, same successors and the same edges, up to the parallel edges that DenseGraph
+     * keeps once. HashGraph drops the first occurrence of a successor with any of its edges, so the order of the
+     * successors is only compared while no edge was removed.
+     */
+    private void assertSameGraph(boolean sameOrder) {
+        assertEquals(hash.size(), dense.size());
+        for (int i = 0; i < hash.size(); i++) {
+            var hashNode = hash.getNode(i);
+            var denseNode = dense.getNode(i);
+            assertEquals(id(hashNode), id(denseNode));
+            assertEquals(i, denseNode.getIndex());
+
+            var hashSuccessors = new LinkedHashSet<Long>();
+            hash.get(hashNode).forEach((next) -> hashSuccessors.add(id(next)));
+            var denseSuccessors = new LinkedHashSet<Long>();
+            dense.get(denseNode).forEach((next) -> denseSuccessors.add(id(next)));
+            if (sameOrder) {
+                assertEquals(new ArrayList<>(hashSuccessors), new ArrayList<>(denseSuccessors));
+            } else {
+                assertEquals(hashSuccessors, denseSuccessors);
+            }
+
+            for (int j = 0; j < hash.size(); j++) {
+                var hashEdges = hash.getEdge(hashNode, hash.getNode(j));
+                var denseEdges = dense.getEdge(denseNode, dense.getNode(j));
+                assertEquals(hashEdges == null ? null : new HashSet<>(hashEdges),
+                        denseEdges == null ? null : new HashSet<>(denseEdges));
+                for (var type : Edge.Type.values()) {
+                    assertEquals(hash.hasEdge(hashNode, hash.getNode(j), type), dense.hasEdge(denseNode, dense.getNode(j), type));
+                }
+            }
+        }
+    }
+
+    @Test
+    void matchesHashGraph() {
+        fill(0);
+        assertSameGraph(true);
+    }
+
+    @Test
+    void removeEdges() {
+        fill(1);
+        hash.removeEdges(Edge.Type.AO);
+        dense.removeEdges(Edge.Type.AO);
+        assertSameGraph(false);
+        hash.removeEdges(Edge.Type.WR);
+        dense.removeEdges(Edge.Type.WR);
+        assertSameGraph(false);
+        for (var node : dense.getNodes()) {
+            for (var next : dense.get(node)) {
+                assertFalse(dense.hasEdge(node, next, Edge.Type.AO));
+                assertFalse(dense.hasEdge(node, next, Edge.Type.WR));
+            }
+        }
+    }
+
+    @Test
+    void removeVertices() {
+        fill(2);
+        var random = new Random(2);
+        var hashRemoved = new HashSet<Node<Long, Long>>();
+        var denseRemoved = new HashSet<Node<Long, Long>>();
+        for (int i = 0; i < SIZE; i++) {
+            if (random.nextInt(3) == 0) {
+                hashRemoved.add(hashNodes.get(i));
+                denseRemoved.add(denseNodes.get(i));
+            }
+        }
+        hash.removeVertices(hashRemoved);
+        dense.removeVertices(denseRemoved);
+        assertEquals(SIZE - denseRemoved.size(), dense.size());
+        assertSameGraph(false);
+        for (var node : dense.getNodes()) {
+            dense.get(node).forEach((next) -> assertFalse(denseRemoved.contains(next)));
+        }
+
+        // edges added after the compaction go to the new indexes
+        var from = dense.getNode(0);
+        var to = dense.getNode(dense.size() - 1);
+        hash.addEdge(hash.getNode(0), hash.getNode(hash.size() - 1), new Edge<>(Edge.Type.AO, null));
+        dense.addEdge(from, to, new Edge<>(Edge.Type.AO, null));
+        assertTrue(dense.hasEdge(from, to, Edge.Type.AO));
+        assertSameGraph(false);
+    }
+
+    @Test
+    void removeVerticesThenEdges() {
+        // as an online check with garbage collection does, AO edges are removed after the vertices of some
+        fill(3);
+        var random = new Random(3);
+        var hashRemoved = new HashSet<Node<Long, Long>>();
+        var denseRemoved = new HashSet<Node<Long, Long>>();
+        for (int i = 0; i < SIZE; i++) {
+            if (random.nextInt(4) == 0) {
+                hashRemoved.add(hashNodes.get(i));
+                denseRemoved.add(denseNodes.get(i));
+            }
+        }
+        hash.removeVertices(hashRemoved);
+        dense.removeVertices(denseRemoved);
+        hash.removeEdges(Edge.Type.AO);
+        dense.removeEdges(Edge.Type.AO);
+        assertSameGraph(false);
+
+        // AO edges added afterwards are removed again, along with a vertex they touch
+        for (int i = 0; i < 100; i++) {
+            int from = random.nextInt(hash.size());
+            int to = random.nextInt(hash.size());
+            hash.addEdge(hash.getNode(from), hash.getNode(to), new Edge<>(Edge.Type.AO, null));
+            dense.addEdge(dense.getNode(from), dense.getNode(to), new Edge<>(Edge.Type.AO, null));
+        }
+        hash.removeVertices(Set.of(hash.getNode(0)));
+        dense.removeVertices(Set.of(dense.getNode(0)));
+        assertSameGraph(false);
+        hash.removeEdges(Edge.Type.AO);
+        dense.removeEdges(Edge.Type.AO);
+        assertSameGraph(false);
+        for (var node : hash.getNodes()) {
+            for (var next : hash.get(node)) {
+                assertFalse(hash.hasEdge(node, next, Edge.Type.AO));
+            }
+        }
+    }
+
+    @Test
+    void indexedLookups() {
+        fill(3);
+        for (var node : dense.getNodes()) {
+            var successors = dense.get(node);
+            var iterated = new ArrayList<Node<Long, Long>>(successors);
+            for (int i = 0; i < successors.size(); i++) {
+                assertSame(iterated.get(i), successors.get(i));
+            }
+            for (int i = successors.size() - 1; i >= 0; i--) {
+                assertSame(iterated.get(i), successors.get(i));
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> successors.get(successors.size()));
+        }
+    }
+
+    @Test
+    void parallelEdgesShareASlot() {
+        var session = new Session<Long, Long>(0);
+        var t1 = new NormalNode<>(dense, new Transaction<>(1, session));
+        var t2 = new NormalNode<>(dense, new Transaction<>(2, session));
+        dense.addVertex(t1);
+        dense.addVertex(t2);
+        dense.addEdge(t1, t2, new Edge<>(Edge.Type.WR, 1L));
+        dense.addEdge(t1, t2, new Edge<>(Edge.Type.WR, 1L));
+        dense.addEdge(t1, t2, new Edge<>(Edge.Type.SO, null));
+        assertEquals(List.of(new Edge<>(Edge.Type.WR, 1L), new Edge<>(Edge.Type.SO, null)), dense.getEdge(t1, t2));
+        assertEquals(1, dense.get(t1).size());
+
+        // a WR edge on another variable gets its own slot
+        dense.addEdge(t1, t2, new Edge<>(Edge.Type.WR, 2L));
+        assertEquals(2, dense.get(t1).size());
+        assertEquals(1L, dense.countEdges().get(Edge.Type.SO));
+        assertEquals(2L, dense.countEdges().get(Edge.Type.WR));
+    }
+}
@@ -0,0 +1,117 @@
+package graph;
+
+import history.Session;
+import history.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IncrementalTopologicalOrderTest {
+    private static final int SIZE = 30;
+
+    private HashGraph<Long, Long> graph = new HashGraph<>();
+    private final List<Node<Long, Long>> nodes = new ArrayList<>();
+
+    private void addNodes() {
+        var session = new Session<Long, Long>(0);
+        for (int i = 0; i < SIZE; i++) {
+            nodes.add(new NormalNode<>(graph, new Transaction<>(i, session)));
+            graph.addVertex(nodes.get(i));
+        }
+    }
+
+    private void addEdge(int from, int to) {
+        graph.addEdge(nodes.get(from), nodes.get(to), new Edge<>(Edge.Type.AO, null));
+    }
+
+    private boolean reaches(Node<Long, Long> from, Node<Long, Long> to) {
+        var seen = new HashSet<Node<Long, Long>>();
+        var queue = new ArrayDeque<Node<Long, Long>>();
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            var cur = queue.poll();
+            if (cur.equals(to)) {
+                return true;
+            }
+            for (var next : graph.get(cur)) {
+                if (seen.add(next)) {
+                    queue.add(next);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Each node of the cycle has an edge to the next one, and the last one to the first.
+     */
+    private void assertCycle(List<Node<Long, Long>> cycle) {
+        assertNotNull(cycle);
+        assertFalse(cycle.isEmpty());
+        assertEquals(cycle.size(), new HashSet<>(cycle).size());
+        for (int i = 0; i < cycle.size(); i++) {
+            var next = cycle.get((i + 1) % cycle.size());
+            assertFalse(graph.getEdge(cycle.get(i), next).isEmpty(), cycle.get(i) + " -> " + next);
+        }
+    }
+
+    @Test
+    void detectsTheFirstCycle() {
+        for (long seed = 0; seed < 50; seed++) {
+            graph = new HashGraph<>();
+            nodes.clear();
+            addNodes();
+            var random = new Random(seed);
+            // a forward edge seeds the order, the later edges go either way
+            for (int i = 0; i < 20; i++) {
+                int from = random.nextInt(SIZE - 1);
+                addEdge(from, from + 1 + random.nextInt(SIZE - from - 1));
+            }
+            var order = new IncrementalTopologicalOrder<>(graph);
+            assertNull(order.getCycle());
+
+            while (true) {
+                int from = random.nextInt(SIZE);
+                int to = random.nextInt(SIZE);
+                boolean closesCycle = reaches(nodes.get(to), nodes.get(from));
+                addEdge(from, to);
+                var cycle = order.addEdge(nodes.get(from), nodes.get(to));
+                if (!closesCycle) {
+                    assertNull(cycle, "seed " + seed);
+                    continue;
+                }
+                assertCycle(cycle);
+                assertTrue(cycle.contains(nodes.get(from)) && cycle.contains(nodes.get(to)));
+                assertSame(cycle, order.getCycle());
+                break;
+            }
+        }
+    }
+
+    @Test
+    void findsACycleOfTheSeedEdges() {
+        addNodes();
+        for (int i = 0; i < SIZE - 1; i++) {
+            addEdge(i, i + 1);
+        }
+        addEdge(20, 5);
+        addEdge(25, 29);
+        var order = new IncrementalTopologicalOrder<>(graph);
+        assertCycle(order.getCycle());
+        assertEquals(16, order.getCycle().size());
+    }
+
+    @Test
+    void selfLoopIsACycle() {
+        addNodes();
+        addEdge(3, 3);
+        var order = new IncrementalTopologicalOrder<>(graph);
+        assertEquals(List.of(nodes.get(3)), order.getCycle());
+    }
+}
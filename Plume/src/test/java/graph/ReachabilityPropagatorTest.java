@@ -0,0 +1,132 @@
+package graph;
+
+import history.Session;
+import history.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReachabilityPropagatorTest {
+    private final HashGraph<Long, Long> graph = new HashGraph<>();
+    private final ReachabilityPropagator<Long, Long> propagator = new ReachabilityPropagator<>(graph);
+    private final List<Session<Long, Long>> sessions = new ArrayList<>();
+    private final Map<Integer, Node<Long, Long>> prevNodes = new HashMap<>();
+
+    private void addSessions(int count) {
+        for (int i = 0; i < count; i++) {
+            sessions.add(new Session<>(i));
+        }
+    }
+
+    private Node<Long, Long> addNode(int session) {
+        var prev = prevNodes.get(session);
+        var node = new VCNode<>(graph, new Transaction<>(graph.size(), sessions.get(session)), (short) session,
+                sessions.size(), prev);
+        graph.addVertex(node);
+        if (prev != null) {
+            graph.addEdge(prev, node, new Edge<>(Edge.Type.SO, null));
+        }
+        prevNodes.put(session, node);
+        return node;
+    }
+
+    /**
+     * Nodes reachable from node over edges of any type, node included.
+     */
+    private Set<Node<Long, Long>> bfs(Node<Long, Long> node) {
+        var reached = new HashSet<Node<Long, Long>>();
+        var queue = new ArrayDeque<Node<Long, Long>>();
+        reached.add(node);
+        queue.add(node);
+        while (!queue.isEmpty()) {
+            for (var next : graph.get(queue.poll())) {
+                if (reached.add(next)) {
+                    queue.add(next);
+                }
+            }
+        }
+        return reached;
+    }
+
+    @Test
+    void matchesBFS() {
+        var random = new Random(0);
+        int sessionCount = 5;
+        addSessions(sessionCount);
+        for (int i = 0; i < 300; i++) {
+            var node = addNode(random.nextInt(sessionCount));
+            // as addTransaction does: the node reads from earlier transactions and joins their clocks, and it
+            // writes what earlier pending reads wait for, which is then propagated
+            for (int edges = random.nextInt(3); edges > 0; edges--) {
+                var from = graph.getNode(random.nextInt(graph.size()));
+                if (!from.equals(node)) {
+                    if (!from.canReachByCO(node)) {
+                        node.updateCOReachability(from);
+                    }
+                    graph.addEdge(from, node, new Edge<>(Edge.Type.WR, 0L));
+                }
+            }
+            if (random.nextInt(4) == 0) {
+                var to = graph.getNode(random.nextInt(graph.size()));
+                if (!to.equals(node)) {
+                    graph.addEdge(node, to, new Edge<>(Edge.Type.WR, 1L));
+                }
+            }
+            propagator.propagate(node, Edge.Type.CO);
+        }
+        for (var from : graph.getNodes()) {
+            var reached = bfs(from);
+            for (var to : graph.getNodes()) {
+                assertEquals(reached.contains(to), from.canReachByCO(to), from + " " + to);
+            }
+        }
+
+        // AO edges in any direction, they may close cycles
+        graph.getNodes().forEach(Node::syncCOAO);
+        var sources = new LinkedHashSet<Node<Long, Long>>();
+        for (int i = 0; i < 60; i++) {
+            var from = graph.getNode(random.nextInt(graph.size()));
+            var to = graph.getNode(random.nextInt(graph.size()));
+            if (!from.equals(to)) {
+                graph.addEdge(from, to, new Edge<>(Edge.Type.AO, null));
+                sources.add(from);
+            }
+        }
+        sources.forEach((source) -> propagator.propagate(source, Edge.Type.AO));
+        for (var from : graph.getNodes()) {
+            var reached = bfs(from);
+            for (var to : graph.getNodes()) {
+                assertEquals(reached.contains(to), from.canReachByAO(to), from + " " + to);
+            }
+        }
+    }
+
+    @Test
+    void longSessionDoesNotOverflowTheStack() throws InterruptedException {
+        // a transaction of another session that precedes a session of 100k transactions, so that propagating it
+        // walks the whole session, deeper than a recursive traversal fits in the stack of this thread
+        addSessions(2);
+        var head = addNode(0);
+        for (int i = 1; i < 100_000; i++) {
+            addNode(0);
+        }
+        var tail = prevNodes.get(0);
+        var other = addNode(1);
+        graph.addEdge(other, head, new Edge<>(Edge.Type.WR, 0L));
+
+        var error = new Throwable[1];
+        var thread = new Thread(null, () -> {
+            try {
+                propagator.propagate(other, Edge.Type.CO);
+            } catch (Throwable e) {
+                error[0] = e;
+            }
+        }, "propagate", 256 << 10);
+        thread.start();
+        thread.join();
+        assertNull(error[0]);
+        assertTrue(other.canReachByCO(tail));
+    }
+}
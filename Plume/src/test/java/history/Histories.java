@@ -0,0 +1,34 @@
+package history;
+
+/**
+ * Hand-built histories of the tests.
+ */
+public class Histories {
+    /**
+     * History from {write, variable, value, session, transaction} rows, in transaction order. Sessions are
+     * numbered from 0, a write of transaction -1 is aborted, like in text histories.
+     */
+    public static History<Long, Long> of(long[]... ops) {
+        var history = new History<Long, Long>();
+        int sessions = 0;
+        for (var op : ops) {
+            sessions = Math.max(sessions, (int) op[3] + 1);
+        }
+        for (int s = 0; s < sessions; s++) {
+            history.addSession(s);
+        }
+        history.setSessionSize(sessions);
+        for (var op : ops) {
+            if (op[4] == -1) {
+                history.addAbortedWrite(op[1], op[2]);
+                continue;
+            }
+            var txn = history.getTransaction(op[4]);
+            if (txn == null) {
+                txn = history.addTransaction(history.getSession(op[3]), op[4]);
+            }
+            history.addOperation(txn, op[0] == 1 ? Operation.Type.WRITE : Operation.Type.READ, op[1], op[2]);
+        }
+        return history;
+    }
+}
@@ -0,0 +1,77 @@
+package history;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionIndexTest {
+    private static List<Operation<Long, Long>> scan(Transaction<Long, Long> txn, Operation.Type type, long variable, long value) {
+        return txn.getOps().stream()
+                .filter((op) -> op.getType() == type && op.getVariable() == variable && op.getValue() == value)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void indexMatchesScan() {
+        var random = new Random(0);
+        var history = new History<Long, Long>();
+        var txn = history.addTransaction(history.addSession(0), 0);
+        for (int i = 0; i < 40; i++) {
+            var type = random.nextBoolean() ? Operation.Type.READ : Operation.Type.WRITE;
+            history.addOperation(txn, type, (long) random.nextInt(4), (long) random.nextInt(3));
+        }
+        var index = txn.getIndex();
+        assertSame(index, txn.getIndex());
+
+        for (long variable = 0; variable < 4; variable++) {
+            for (long value = 0; value < 3; value++) {
+                assertEquals(scan(txn, Operation.Type.READ, variable, value), index.getReads(variable, value));
+                assertEquals(scan(txn, Operation.Type.WRITE, variable, value), index.getWrites(variable, value));
+            }
+        }
+        assertEquals(txn.getOps().stream().filter((op) -> op.getType() == Operation.Type.WRITE).collect(Collectors.toList()),
+                index.getWrites());
+
+        // an op added later is found by the next index
+        history.addOperation(txn, Operation.Type.READ, 9L, 9L);
+        assertNotSame(index, txn.getIndex());
+        assertEquals(scan(txn, Operation.Type.READ, 9, 9), txn.getIndex().getReads(9L, 9L));
+    }
+
+    @Test
+    void smallTransactionsAreScannedAndKept() {
+        var random = new Random(0);
+        var history = new History<Long, Long>();
+        var session = history.addSession(0);
+        var txn = history.addTransaction(session, 0);
+        int small = TransactionIndex.MIN_INDEXED_SIZE - 1;
+        for (int i = 0; i < 3 * TransactionIndex.MIN_INDEXED_SIZE; i++) {
+            var type = random.nextBoolean() ? Operation.Type.READ : Operation.Type.WRITE;
+            history.addOperation(txn, type, (long) random.nextInt(4), (long) random.nextInt(3));
+        }
+        var index = txn.getIndex();
+        assertTrue(index.isIndexed());
+        assertSame(index, txn.getIndex());
+
+        // the same ops, too few to be indexed
+        var prefix = history.addTransaction(session, 1);
+        prefix.getOps().addAll(txn.getOps().subList(0, small));
+        var scanned = prefix.getIndex();
+        assertFalse(scanned.isIndexed());
+        assertSame(scanned, prefix.getIndex());
+
+        for (long variable = 0; variable < 4; variable++) {
+            for (long value = 0; value < 3; value++) {
+                assertEquals(index.getReads(variable, value).stream().filter((op) -> op.getId() < small).collect(Collectors.toList()),
+                        scanned.getReads(variable, value));
+                assertEquals(index.getWrites(variable, value).stream().filter((op) -> op.getId() < small).collect(Collectors.toList()),
+                        scanned.getWrites(variable, value));
+            }
+        }
+        assertEquals(index.getWrites().stream().filter((op) -> op.getId() < small).collect(Collectors.toList()), scanned.getWrites());
+    }
+}
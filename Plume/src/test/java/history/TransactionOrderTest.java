@@ -0,0 +1,68 @@
+package history;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionOrderTest {
+    /**
+     * Two sessions of three transactions, ids 10 * session + position, with the given commit times.
+     */
+    private static History<Long, Long> history(long[][] times) {
+        var history = new History<Long, Long>();
+        for (int s = 0; s < times.length; s++) {
+            var session = history.addSession(s);
+            for (int i = 0; i < times[s].length; i++) {
+                var txn = history.addTransaction(session, 10L * s + i);
+                txn.setTime(times[s][i]);
+                history.addOperation(txn, Operation.Type.WRITE, (long) s, (long) i + 1);
+            }
+        }
+        history.setSessionSize(times.length);
+        return history;
+    }
+
+    private static List<Long> ids(List<Transaction<Long, Long>> txns) {
+        return txns.stream().map(Transaction::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void mergesSessionsByTime() {
+        var history = history(new long[][]{{1, 5, 6}, {2, 3, 9}});
+        assertEquals(List.of(0L, 10L, 11L, 1L, 2L, 12L), ids(history.getTransactions(TransactionOrder.TIMESTAMP)));
+    }
+
+    @Test
+    void keepsTheSessionOrderWhenTimesGoBackwards() {
+        var history = history(new long[][]{{1, 8, 2}, {4, 5, 6}});
+        assertEquals(List.of(0L, 10L, 11L, 12L, 1L, 2L), ids(history.getTransactions(TransactionOrder.TIMESTAMP)));
+    }
+
+    @Test
+    void fallsBackToRoundRobinWithoutTimes() {
+        var history = history(new long[][]{{1, 5, 6}, {2, -1, 9}});
+        var roundRobin = ids(history.getTransactions(TransactionOrder.ROUND_ROBIN));
+        assertEquals(List.of(0L, 10L, 1L, 11L, 2L, 12L), roundRobin);
+        assertEquals(roundRobin, ids(history.getTransactions(TransactionOrder.TIMESTAMP)));
+    }
+
+    @Test
+    void takesWritersBeforeTheirReaders() {
+        // {write, variable, value, session, transaction}: 0 reads x1 from 2, 3 reads x2 from 1
+        var history = Histories.of(new long[][]{{0, 1, 1, 0, 0}, {1, 2, 1, 0, 1}, {1, 1, 1, 1, 2}, {0, 2, 1, 1, 3}});
+        assertEquals(List.of(0L, 2L, 1L, 3L), ids(history.getTransactions(TransactionOrder.ROUND_ROBIN)));
+        assertEquals(List.of(2L, 0L, 1L, 3L), ids(history.getTransactions(TransactionOrder.TOPOLOGICAL)));
+    }
+
+    @Test
+    void breaksACycleOfWaitsAtTheFewestMissingWriters() {
+        // 0 reads x1 from 3 and x3 from 4, 2 reads x2 from 1: every session waits, session 1 for fewer writers,
+        // so 2 goes first and is skipped when 1 is taken later
+        var history = Histories.of(new long[][]{{0, 1, 1, 0, 0}, {0, 3, 1, 0, 0}, {1, 2, 1, 0, 1},
+                {0, 2, 1, 1, 2}, {1, 1, 1, 1, 3}, {1, 3, 1, 1, 4}});
+        assertEquals(List.of(2L, 3L, 4L, 0L, 1L), ids(history.getTransactions(TransactionOrder.TOPOLOGICAL)));
+    }
+}
@@ -0,0 +1,106 @@
+package loader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryHistoryTest {
+    // an aborted read of x3 and a thin air read of x4
+    private static final String TEXT = String.join("\n",
+            "w(1,1,7,0)", "w(2,1,7,0)",
+            "r(1,1,3,1)", "w(3,1,3,1)",
+            "w(3,2,12,-1)",
+            "r(2,1,12,2)", "r(3,2,12,2)", "w(1,2,12,2)",
+            "r(4,9,7,3)", "r(1,2,7,3)") + "\n";
+
+    private static final String ELLE = String.join("\n",
+            "{:type :ok, :f :txn, :value [[:append 1 1] [:append 2 1]], :process 5, :time 0, :index 0}",
+            "{:type :invoke, :f :txn, :value [[:r 1 nil]], :process 9, :time 1, :index 1}",
+            "{:type :ok, :f :txn, :value [[:r 1 [1]] [:append 3 1]], :process 9, :time 2, :index 2}",
+            "{:type :fail, :f :txn, :value [[:append 3 2]], :process 2, :time 3, :index 3}",
+            "{:type :ok, :f :txn, :value [[:r 2 [1]] [:r 3 [1 2]] [:append 1 2]], :process 2, :time 4, :index 4}",
+            "{:type :ok, :f :txn, :value [[:r 1 [1 2]] [:r 4 []]], :process 5, :time 5, :index 5}") + "\n";
+
+    @TempDir
+    Path dir;
+
+    private File write(String name, String content) throws IOException {
+        var file = new File(dir.toFile(), name);
+        Files.writeString(file.toPath(), content);
+        return file;
+    }
+
+    @Test
+    void textRoundTrip() throws IOException {
+        var text = write("history.txt", TEXT);
+        var expected = new TextHistoryLoader(text).loadHistory();
+        assertFalse(expected.getAbortedWrites().isEmpty());
+
+        var binary = new File(dir.toFile(), "history.bin");
+        BinaryHistoryWriter.writeText(expected, binary);
+        assertTrue(BinaryHistoryLoader.isBinary(binary));
+        assertFalse(BinaryHistoryLoader.isBinary(text));
+        HistoryAssertions.assertSameHistory(expected, BinaryHistoryLoader.text(binary).loadHistory());
+    }
+
+    @Test
+    void elleRoundTrip() throws IOException {
+        var edn = write("history.edn", ELLE);
+        var expected = new ElleHistoryLoader(edn).loadHistory();
+        assertFalse(expected.getAbortedWrites().isEmpty());
+        assertTrue(expected.getTransactions().values().stream().allMatch((txn) -> txn.getTime() >= 0));
+
+        var binary = new File(dir.toFile(), "history.bin");
+        BinaryHistoryWriter.writeElle(expected, binary);
+        var loaded = BinaryHistoryLoader.elle(binary).loadHistory();
+        HistoryAssertions.assertSameHistory(expected, loaded);
+        // read lists are loaded whole, not only their last element
+        expected.getTransactions().forEach((id, txn) -> {
+            for (int i = 0; i < txn.getOps().size(); i++) {
+                assertEquals(txn.getOps().get(i).getValue().getList(), loaded.getTransaction(id).getOps().get(i).getValue().getList());
+            }
+        });
+    }
+
+    @Test
+    void readsVersion1() throws IOException {
+        var expected = new ElleHistoryLoader(write("history.edn", ELLE)).loadHistory();
+        var binary = new File(dir.toFile(), "history.bin");
+        BinaryHistoryWriter.writeElle(expected, binary);
+
+        // drop the commit times from the transaction records
+        var buffer = ByteBuffer.wrap(Files.readAllBytes(binary.toPath()));
+        long transactions = buffer.getLong(24);
+        int start = BinaryHistoryFormat.HEADER_SIZE + buffer.getInt(8) * BinaryHistoryFormat.SESSION_SIZE;
+        var v1 = new ByteArrayOutputStream();
+        v1.write(buffer.array(), 0, start);
+        for (int t = 0; t < transactions; t++) {
+            v1.write(buffer.array(), start + t * BinaryHistoryFormat.TRANSACTION_SIZE, BinaryHistoryFormat.TRANSACTION_SIZE_V1);
+        }
+        int end = start + (int) transactions * BinaryHistoryFormat.TRANSACTION_SIZE;
+        v1.write(buffer.array(), end, buffer.capacity() - end);
+        var bytes = v1.toByteArray();
+        ByteBuffer.wrap(bytes).putShort(4, (short) 1);
+        Files.write(binary.toPath(), bytes);
+
+        expected.getTransactions().values().forEach((txn) -> txn.setTime(-1));
+        HistoryAssertions.assertSameHistory(expected, BinaryHistoryLoader.elle(binary).loadHistory());
+    }
+
+    @Test
+    void rejectsTheOtherKind() throws IOException {
+        var text = write("history.txt", TEXT);
+        var binary = new File(dir.toFile(), "history.bin");
+        BinaryHistoryWriter.writeText(new TextHistoryLoader(text).loadHistory(), binary);
+        assertThrows(RuntimeException.class, () -> BinaryHistoryLoader.elle(binary).loadHistory());
+        assertThrows(RuntimeException.class, () -> BinaryHistoryLoader.text(text).loadHistory());
+    }
+}
@@ -0,0 +1,72 @@
+package loader;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ElleListInternerTest {
+    private static ElleHistoryLoader.ElleValue intern(ElleListInterner interner, int key, int... values) {
+        return interner.intern(key, values, 0, values.length);
+    }
+
+    @Test
+    void equalListsAreTheSameValue() {
+        var interner = new ElleListInterner();
+        var first = intern(interner, 1, 1, 2, 300);
+        var second = interner.intern(1, new int[]{9, 1, 2, 300, 9}, 1, 4);
+        assertSame(first, second);
+        assertEquals(300, first.getLastElement());
+        assertEquals(List.of(1, 2, 300), first.getList());
+        assertEquals(List.of(1, 2, 300).hashCode(), first.getList().hashCode());
+    }
+
+    @Test
+    void prefixesShareTheChain() {
+        var interner = new ElleListInterner();
+        var shorter = intern(interner, 1, 1, 2);
+        var longer = intern(interner, 1, 1, 2, 3, 4);
+        // extending the chain does not change the shorter list
+        assertEquals(List.of(1, 2), shorter.getList());
+        assertSame(shorter, longer.prefix(2));
+        assertSame(longer.prefix(3), intern(interner, 1, 1, 2, 3));
+        assertEquals(List.of(1, 2, 3), longer.prefix(3).getList());
+        assertEquals(1, longer.prefix(1).getLastElement());
+        assertThrows(IndexOutOfBoundsException.class, () -> shorter.prefix(3));
+    }
+
+    @Test
+    void divergingListsStartANewChain() {
+        var interner = new ElleListInterner();
+        var first = intern(interner, 1, 1, 2, 3);
+        var diverged = intern(interner, 1, 1, 2, 4);
+        var other = intern(interner, 1, 5, 2, 3);
+        assertEquals(List.of(1, 2, 4), diverged.getList());
+        assertEquals(List.of(5, 2, 3), other.getList());
+        assertNotEquals(first.getList(), diverged.getList());
+        assertNotEquals(first.getList(), other.getList());
+        // a common prefix is equal on both chains, and interned from the first one
+        assertEquals(first.prefix(2).getList(), diverged.prefix(2).getList());
+        assertSame(first.prefix(2), intern(interner, 1, 1, 2));
+        assertSame(diverged, intern(interner, 1, 1, 2, 4));
+    }
+
+    @Test
+    void keysDoNotShare() {
+        var interner = new ElleListInterner();
+        var first = intern(interner, 1, 1, 2);
+        var second = intern(interner, 2, 1, 2);
+        assertNotSame(first, second);
+        assertEquals(first.getList(), second.getList());
+    }
+
+    @Test
+    void emptyList() {
+        var interner = new ElleListInterner();
+        var empty = intern(interner, 1);
+        assertNull(empty.getLastElement());
+        assertEquals(List.of(), empty.getList());
+        assertSame(empty, intern(interner, 2));
+    }
+}
@@ -0,0 +1,105 @@
+package loader;
+
+import history.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ElleTokenizerTest {
+    private static final String HISTORY = String.join("\n",
+            "{:type :invoke, :f :txn, :value [[:r 1 nil]], :process 5, :time 0, :index 0}",
+            "{:process 9, :type :invoke, :f :txn, :value [[:r 1 nil]], :time 1, :index 1}",
+            "{:type :ok, :f :txn, :value [[:append 1 1]], :process 7, :time 2, :index 2}",
+            "{:type :fail, :f :txn, :value [[:append 2 5]], :process 12, :time 3, :index 3}",
+            "{:type :ok, :f :txn, :value [[:r 1 [1]] [:append 2 2]], :process 9, :time 4, :index 4}",
+            "{:type :info, :f :txn, :value [[:append 3 1]], :process 5, :time 5, :index 5}",
+            "{:type :ok, :f :txn, :value [[:r 2 [2]]], :process 12, :time 6, :index 6}",
+            "{:type :ok, :f :txn, :value [[:r 2 [2]]], :process 7, :time 7, :index 7}") + "\n";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void keepsRawProcesses() {
+        var lines = new ElleTokenizer.Lines();
+        new ElleTokenizer().parse(ByteBuffer.wrap(HISTORY.getBytes(StandardCharsets.UTF_8)), lines);
+        assertEquals(8, lines.lineCount);
+        // a skipped line only knows its process if :process comes before :type
+        assertFalse(lines.hasProcess[0]);
+        assertTrue(lines.hasProcess[1]);
+        assertEquals(9, lines.processes[1]);
+        assertEquals(ElleTokenizer.Lines.SKIP, lines.kinds[1]);
+        assertEquals(ElleTokenizer.Lines.ABORT, lines.kinds[3]);
+        assertEquals(12, lines.processes[6]);
+        assertEquals(6, lines.times[6]);
+    }
+
+    @Test
+    void remapsSessionsInOrderOfFirstAppearance() throws IOException {
+        var file = dir.resolve("history.edn").toFile();
+        Files.writeString(file.toPath(), HISTORY);
+        var history = new ElleHistoryLoader(file).loadHistory();
+
+        // processes 9, 7 and 12 first appear in this order, 5 never before its :type
+        assertEquals(3, history.getSessionSize());
+        assertEquals(List.of(1L), ids(history.getSession(0).getTransactions()));
+        assertEquals(List.of(0L, 3L), ids(history.getSession(1).getTransactions()));
+        assertEquals(List.of(2L), ids(history.getSession(2).getTransactions()));
+        assertEquals(1, history.getAbortedWrites().size());
+        assertEquals(4, history.getTransaction(1).getTime());
+    }
+
+    /**
+     * Lines 6 * r to 6 * r + 5 on the keys 3 * r to 3 * r + 2, one invoke and one failed append among them.
+     */
+    private static String block(long r) {
+        long x = 3 * r;
+        var lines = new String[]{
+                "{:type :ok, :f :txn, :value [[:append " + x + " 1] [:append " + (x + 1) + " 1]], :process 5",
+                "{:type :invoke, :f :txn, :value [[:r " + x + " nil]], :process 9",
+                "{:type :ok, :f :txn, :value [[:r " + x + " [1]] [:append " + (x + 2) + " 1]], :process 9",
+                "{:type :fail, :f :txn, :value [[:append " + (x + 2) + " 2]], :process 2",
+                "{:type :ok, :f :txn, :value [[:r " + (x + 1) + " [1]] [:r " + (x + 2) + " [1]] [:append " + x + " 2]], :process 2",
+                "{:type :ok, :f :txn, :value [[:r " + x + " [1 2]]], :process 5"};
+        var out = new StringBuilder();
+        for (int i = 0; i < lines.length; i++) {
+            long index = 6 * r + i;
+            out.append(lines[i]).append(", :time ").append(index).append(", :index ").append(index).append("}\n");
+        }
+        return out.toString();
+    }
+
+    @Test
+    void chunksAndLinesGiveTheSameHistory() throws IOException {
+        var out = new StringBuilder();
+        for (long r = 0; out.length() < 3 << 20; r++) {
+            out.append(block(r));
+        }
+        var file = new File(dir.toFile(), "history.edn");
+        Files.writeString(file.toPath(), out);
+        assertTrue(file.length() > 2 << 20, "the file should need several chunks");
+
+        var expected = new ElleHistoryLoader(file).loadHistory();
+        var chunked = new ElleHistoryLoader(file);
+        chunked.setParallelism(8);
+        HistoryAssertions.assertSameHistory(expected, chunked.loadHistory());
+
+        var stream = new ElleHistoryStream(expected.getSessionSize());
+        Files.readAllLines(file.toPath()).forEach(stream::parseLine);
+        HistoryAssertions.assertSameHistory(expected, stream.getHistory());
+    }
+
+    private static List<Long> ids(List<? extends Transaction<?, ?>> txns) {
+        return txns.stream().map(Transaction::getId).collect(Collectors.toList());
+    }
+}
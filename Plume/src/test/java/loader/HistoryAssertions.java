@@ -0,0 +1,35 @@
+package loader;
+
+import history.History;
+import history.Operation;
+import history.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the histories built by different loaders of the same file.
+ */
+class HistoryAssertions {
+    static <VarType, ValType> void assertSameHistory(History<VarType, ValType> expected, History<VarType, ValType> actual) {
+        assertEquals(expected.getSessionSize(), actual.getSessionSize());
+        assertEquals(expected.getAbortedWrites(), actual.getAbortedWrites());
+        assertEquals(expected.getSessions().keySet(), actual.getSessions().keySet());
+        expected.getSessions().forEach((id, session) -> assertEquals(
+                describe(session.getTransactions()), describe(actual.getSession(id).getTransactions()), "session " + id));
+        assertEquals(expected.getTransactions().keySet(), actual.getTransactions().keySet());
+    }
+
+    private static <VarType, ValType> List<String> describe(List<Transaction<VarType, ValType>> txns) {
+        var result = new ArrayList<String>();
+        for (var txn : txns) {
+            result.add(txn.getId() + "@" + txn.getTime() + " " + txn.getOps().stream()
+                    .map((op) -> (op.getType() == Operation.Type.READ ? "r" : "w") + "(" + op.getVariable() + "," + op.getValue() + ")")
+                    .collect(Collectors.joining(" ")));
+        }
+        return result;
+    }
+}
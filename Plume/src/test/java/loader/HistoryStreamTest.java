@@ -0,0 +1,90 @@
+package loader;
+
+import history.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistoryStreamTest {
+    @TempDir
+    Path dir;
+
+    // sessions 7, 3 and 12 interleaved, the write of session 12 to x3 is aborted
+    private static final List<String> TEXT = List.of(
+            "w(1,1,7,0)", "w(2,1,7,0)", "r(1,1,3,1)", "w(3,1,3,1)", "w(3,2,12,-1)",
+            "r(2,1,12,2)", "r(3,1,12,2)", "w(1,2,7,3)", "w(1,2,12,2)", "r(1,2,3,4)");
+
+    // an invocation and an :info line are skipped, a :fail line only records its aborted append
+    private static final List<String> LIST = List.of(
+            "{:type :invoke, :f :txn, :value [[:append 1 1]], :process 4, :time 0, :index 0}",
+            "{:type :ok, :f :txn, :value [[:append 1 1]], :process 4, :time 1, :index 1}",
+            "{:type :ok, :f :txn, :value [[:r 1 [1]] [:append 2 1]], :process 2, :time 2, :index 2}",
+            "{:type :fail, :f :txn, :value [[:append 2 2]], :process 4, :time 3, :index 3}",
+            "{:type :info, :f :txn, :value [[:append 2 3]], :process 2, :time 4, :index 4}",
+            "{:type :ok, :f :txn, :value [[:r 2 [1]] [:r 1 [1]]], :process 4, :time 5, :index 5}");
+
+    private static <VarType, ValType> List<Long> ids(List<Transaction<VarType, ValType>> txns) {
+        return txns.stream().map(Transaction::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void textTransactionsCompleteWhenTheirSessionMovesOn() {
+        var stream = new TextHistoryStream(3);
+        var completed = new ArrayList<List<Long>>();
+        TEXT.forEach((line) -> completed.add(ids(stream.parseLine(line))));
+        // 0 completes when session 7 starts 3, 2 stays open although another session wrote in between
+        assertEquals(List.of(List.of(), List.of(), List.of(), List.of(), List.of(), List.of(), List.of(),
+                List.of(0L), List.of(), List.of(1L)), completed);
+        // open transactions in order of their remapped session
+        assertEquals(List.of(3L, 4L, 2L), ids(stream.flush()));
+        assertEquals(List.of(), stream.flush());
+    }
+
+    @Test
+    void textStreamMatchesTheLoader() throws IOException {
+        var file = dir.resolve("history.txt");
+        Files.write(file, TEXT);
+        var stream = new TextHistoryStream(3);
+        var handedOut = new ArrayList<Long>();
+        TEXT.forEach((line) -> handedOut.addAll(ids(stream.parseLine(line))));
+        handedOut.addAll(ids(stream.flush()));
+
+        var expected = new TextHistoryLoader(file.toFile()).loadHistory();
+        assertEquals(expected.getTransactions().size(), handedOut.size());
+        assertEquals(expected.getTransactions().keySet(), new HashSet<>(handedOut));
+        HistoryAssertions.assertSameHistory(expected, stream.getHistory());
+    }
+
+    @Test
+    void textStreamRejectsMalformedLines() {
+        var stream = new TextHistoryStream(1);
+        assertThrows(Error.class, () -> stream.parseLine("w(1,1,0"));
+    }
+
+    @Test
+    void elleStreamHandsOutEachCompletedLine() {
+        var stream = new ElleHistoryStream(2);
+        var completed = new ArrayList<List<Long>>();
+        LIST.forEach((line) -> completed.add(ids(stream.parseLine(line))));
+        assertEquals(List.of(List.of(), List.of(0L), List.of(1L), List.of(), List.of(), List.of(2L)), completed);
+        assertEquals(List.of(), stream.flush());
+    }
+
+    @Test
+    void elleStreamMatchesTheLoader() throws IOException {
+        var file = dir.resolve("history.edn");
+        Files.write(file, LIST);
+        var stream = new ElleHistoryStream(2);
+        LIST.forEach(stream::parseLine);
+        HistoryAssertions.assertSameHistory(new ElleHistoryLoader(file.toFile()).loadHistory(), stream.getHistory());
+    }
+}
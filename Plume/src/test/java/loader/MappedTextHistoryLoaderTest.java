@@ -0,0 +1,95 @@
+package loader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedTextHistoryLoaderTest {
+    @TempDir
+    Path dir;
+
+    /**
+     * Transactions 4 * r to 4 * r + 3 on the variables 3 * r to 3 * r + 2, one write of session 12 is aborted.
+     */
+    private static String block(long r) {
+        long t = 4 * r;
+        long x = 3 * r;
+        return String.join("\n",
+                "w(" + x + ",1,7," + t + ")", "w(" + (x + 1) + ",1,7," + t + ")",
+                "r(" + x + ",1,3," + (t + 1) + ")", "w(" + (x + 2) + ",1,3," + (t + 1) + ")",
+                "w(" + (x + 2) + ",2,12,-1)",
+                "r(" + (x + 1) + ",1,12," + (t + 2) + ")", "r(" + (x + 2) + ",1,12," + (t + 2) + ")",
+                "w(" + x + ",2,12," + (t + 2) + ")",
+                "r(" + x + ",2,7," + (t + 3) + ")") + "\n";
+    }
+
+    /**
+     * Split the file and check that the chunks cover it in order, each one ending right after a line break.
+     */
+    private void assertLineAligned(Path file, int parallelism) throws IOException {
+        var content = Files.readAllBytes(file);
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var chunks = MappedChunks.split(channel, parallelism);
+            assertTrue(chunks.size() > 1, "the file should need several chunks");
+            var joined = new ByteArrayOutputStream();
+            for (int c = 0; c < chunks.size(); c++) {
+                var chunk = chunks.get(c);
+                var bytes = new byte[chunk.limit()];
+                chunk.get(bytes);
+                assertTrue(bytes.length > 0);
+                if (c < chunks.size() - 1) {
+                    assertEquals('\n', bytes[bytes.length - 1], "chunk " + c);
+                }
+                joined.write(bytes);
+            }
+            assertArrayEquals(content, joined.toByteArray());
+        }
+    }
+
+    @Test
+    void chunksEndAtLineBreaks() throws IOException {
+        // lines longer than the probe buffer, and a last line without a line break
+        var random = new Random(0);
+        var file = dir.resolve("lines.txt");
+        var out = new StringBuilder();
+        while (out.length() < 5 << 20) {
+            int length = random.nextInt(10) == 0 ? 4096 + random.nextInt(20_000) : random.nextInt(100);
+            out.append("x".repeat(length)).append('\n');
+        }
+        out.append("last");
+        Files.write(file, out.toString().getBytes(StandardCharsets.US_ASCII));
+        for (int parallelism : new int[]{1, 3, 8}) {
+            assertLineAligned(file, parallelism);
+        }
+    }
+
+    @Test
+    void loadsAsTextHistoryLoader() throws IOException {
+        // enough blocks for several chunks of at least 1 MiB
+        var out = new StringBuilder();
+        for (long r = 0; out.length() < 3 << 20; r++) {
+            out.append(block(r));
+        }
+        var file = new File(dir.toFile(), "history.txt");
+        Files.write(file.toPath(), out.toString().getBytes(StandardCharsets.US_ASCII));
+        assertLineAligned(file.toPath(), 8);
+
+        var expected = new TextHistoryLoader(file).loadHistory();
+        assertEquals(3, expected.getSessionSize());
+        assertFalse(expected.getAbortedWrites().isEmpty());
+        for (int parallelism : new int[]{1, 8}) {
+            HistoryAssertions.assertSameHistory(expected, new MappedTextHistoryLoader(file, parallelism).loadHistory());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package taps;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TAPCounterTest {
+    @Test
+    void parallelAddsStopAtTheLimit() {
+        var counter = new TAPCounter();
+        var accepted = new AtomicLong();
+        IntStream.range(0, 100_000).parallel().forEach((i) -> {
+            if (counter.addBelow(TAP.values()[i % 3], 1000)) {
+                accepted.incrementAndGet();
+            }
+        });
+        assertEquals(3000, accepted.get());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(1000, counter.get(TAP.values()[i]));
+        }
+        assertFalse(counter.contains(TAP.values()[3]));
+    }
+
+    @Test
+    void restoreKeepsTheLimit() {
+        var counter = new TAPCounter();
+        counter.add(TAP.CyclicCO);
+        var saved = counter.snapshot();
+        assertTrue(counter.addBelow(TAP.CyclicCO, 2));
+        assertFalse(counter.addBelow(TAP.CyclicCO, 2));
+        assertEquals(2, counter.get(TAP.CyclicCO));
+
+        counter.restore(saved);
+        assertEquals(1, counter.get(TAP.CyclicCO));
+        assertTrue(counter.addBelow(TAP.CyclicCO, 2));
+        assertFalse(counter.addBelow(TAP.CyclicCO, 2));
+        assertEquals(2, counter.get(TAP.CyclicCO));
+    }
+}
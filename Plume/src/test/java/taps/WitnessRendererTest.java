@@ -0,0 +1,15 @@
+package taps;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WitnessRendererTest {
+    @Test
+    void witnessesOfTheSameTransactionsGetTheirOwnFile() {
+        var first = new Witness(TAP.FracturedReadCO).relation(1, 2, "WR", "x");
+        var second = new Witness(TAP.FracturedReadCO).relation(1, 2, "WR", "y");
+        assertEquals("TAP-k-0-1-2.png", WitnessRenderer.fileName(first, 0));
+        assertNotEquals(WitnessRenderer.fileName(first, 0), WitnessRenderer.fileName(second, 1));
+    }
+}
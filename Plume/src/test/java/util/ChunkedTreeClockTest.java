@@ -0,0 +1,87 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkedTreeClockTest {
+    private static final int DIM = 40;
+
+    @Test
+    void matchesTreeClock() {
+        // nodes are built as TCNode and ChunkedTCNode do: after the previous node of the session, then joined
+        // with earlier nodes as WR edges arrive
+        var random = new Random(0);
+        var trees = new ArrayList<TreeClock>();
+        var chunked = new ArrayList<ChunkedTreeClock>();
+        var last = new int[DIM];
+        Arrays.fill(last, -1);
+        for (int i = 0; i < 3000; i++) {
+            short tid = (short) random.nextInt(DIM);
+            var tree = new TreeClock(tid, DIM);
+            ChunkedTreeClock chunk;
+            if (last[tid] < 0) {
+                chunk = new ChunkedTreeClock(tid, DIM);
+            } else {
+                tree.join(trees.get(last[tid]));
+                chunk = chunked.get(last[tid]).snapshot();
+                assertEquals(0, chunk.ownedChunks());
+            }
+            tree.incrementBy(1);
+            chunk.incrementBy(1);
+            assertEquals(1, chunk.ownedChunks());
+
+            for (int j = random.nextInt(3); j > 0 && i > 0; j--) {
+                int from = random.nextInt(i);
+                tree.join(trees.get(from));
+                chunk.join(chunked.get(from));
+            }
+            last[tid] = i;
+            trees.add(tree);
+            chunked.add(chunk);
+        }
+
+        // copies share chunks, writing to one of them must leave the others as they were
+        for (int i = 0; i < trees.size(); i++) {
+            assertSameTimes(trees.get(i), chunked.get(i), i);
+        }
+        for (int n = 0; n < 20_000; n++) {
+            int a = random.nextInt(trees.size());
+            int b = random.nextInt(trees.size());
+            assertEquals(trees.get(a).isLessThanOrEqual(trees.get(b)), chunked.get(a).isLessThanOrEqual(chunked.get(b)));
+            assertEquals(trees.get(a).isEqual(trees.get(b)), chunked.get(a).isEqual(chunked.get(b)));
+        }
+    }
+
+    @Test
+    void snapshotGivesUpTheChunksOfItsSource() {
+        var source = new ChunkedTreeClock((short) 0, DIM);
+        source.incrementBy(1);
+        assertEquals(1, source.ownedChunks());
+
+        var copy = source.snapshot();
+        assertEquals(0, source.ownedChunks());
+        assertEquals(0, copy.ownedChunks());
+        // the source copies the shared chunk before writing to it
+        source.incrementBy(1);
+        assertEquals(1, source.ownedChunks());
+        assertEquals(2, source.getLocalClock((short) 0));
+        assertEquals(1, copy.getLocalClock((short) 0));
+    }
+
+    private static void assertSameTimes(TreeClock tree, ChunkedTreeClock chunk, int node) {
+        assertEquals(tree.rootTid, chunk.rootTid);
+        List<Integer> expected = new ArrayList<>();
+        List<Integer> actual = new ArrayList<>();
+        for (short t = 0; t < DIM; t++) {
+            expected.add(tree.getLocalClock(t));
+            actual.add(chunk.getLocalClock(t));
+        }
+        assertEquals(expected, actual, "node " + node);
+    }
+}
@@ -0,0 +1,73 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntVectorClockTest {
+    @Test
+    void matchesVectorClock() {
+        // dimensions around the SIMD lane counts, to cover the loop tails
+        for (int dim : new int[]{1, 3, 8, 15, 16, 17, 64, 100}) {
+            var random = new Random(dim);
+            var vectors = new ArrayList<VectorClock>();
+            var ints = new ArrayList<IntVectorClock>();
+            var last = new int[dim];
+            Arrays.fill(last, -1);
+            for (int i = 0; i < 1000; i++) {
+                short tid = (short) random.nextInt(dim);
+                var vector = new VectorClock(tid, dim);
+                var intVector = new IntVectorClock(tid, dim);
+                if (last[tid] >= 0) {
+                    vector.join(vectors.get(last[tid]));
+                    intVector.join(ints.get(last[tid]));
+                }
+                vector.incrementBy(1);
+                intVector.incrementBy(1);
+                for (int j = random.nextInt(3); j > 0 && i > 0; j--) {
+                    int from = random.nextInt(i);
+                    vector.join(vectors.get(from));
+                    intVector.join(ints.get(from));
+                }
+                last[tid] = i;
+                vectors.add(vector);
+                ints.add(intVector);
+            }
+
+            for (int i = 0; i < vectors.size(); i++) {
+                for (int t = 0; t < dim; t++) {
+                    assertEquals(vectors.get(i).getClockIndex(t), ints.get(i).getClockIndex(t), "dim " + dim + " node " + i);
+                }
+            }
+            for (int n = 0; n < 5000; n++) {
+                int a = random.nextInt(vectors.size());
+                int b = random.nextInt(vectors.size());
+                assertEquals(vectors.get(a).isLessThanOrEqual(vectors.get(b)), ints.get(a).isLessThanOrEqual(ints.get(b)));
+                assertEquals(vectors.get(a).isEqual(vectors.get(b)), ints.get(a).isEqual(ints.get(b)));
+            }
+        }
+    }
+
+    @Test
+    void copyIsIndependent() {
+        var clock = new IntVectorClock((short) 2, 20);
+        clock.incrementBy(3);
+        var copy = new IntVectorClock(clock);
+        copy.incrementBy(1);
+        assertEquals(3, clock.getClockIndex(2));
+        assertEquals(4, copy.getClockIndex(2));
+        assertTrue(clock.isLessThanOrEqual(copy));
+        assertFalse(copy.isLessThanOrEqual(clock));
+    }
+
+    @Test
+    void rejectsOtherDimensions() {
+        var clock = new IntVectorClock((short) 0, 8);
+        assertThrows(IllegalArgumentException.class, () -> clock.join(new IntVectorClock((short) 0, 9)));
+        assertThrows(IllegalArgumentException.class, () -> clock.isLessThanOrEqual(new IntVectorClock((short) 0, 9)));
+    }
+}
@@ -0,0 +1,67 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTest {
+    private static void joins(int count) {
+        var clock = new VectorClock((short) 0, 2);
+        var other = new VectorClock((short) 1, 2);
+        for (int i = 0; i < count; i++) {
+            clock.join(other);
+        }
+    }
+
+    @Test
+    void countersAreOffUnlessEnabled() {
+        EventCounter.CLOCK_JOINS.setEnabled(false);
+        long before = EventCounter.CLOCK_JOINS.getCount();
+        joins(10);
+        assertEquals(before, EventCounter.CLOCK_JOINS.getCount());
+    }
+
+    @Test
+    void phaseCountsJoins() {
+        var metrics = Metrics.exclusive();
+        metrics.phase("join", () -> joins(10));
+        assertEquals(1, metrics.getPhases().size());
+        assertEquals(10, metrics.getPhases().get(0).getClockJoins());
+        assertTrue(metrics.toJson().contains("\"clock_joins\":10"));
+        assertTrue(metrics.toPrometheus().contains("plume_phase_clock_joins{phase=\"join\"} 10"));
+    }
+
+    @Test
+    void valuesAreExportedInOrder() {
+        var metrics = Metrics.exclusive();
+        metrics.set("vertices", 5);
+        metrics.set("edges", 7);
+        assertTrue(metrics.toJson().endsWith(",\"vertices\":5,\"edges\":7}"));
+        var prometheus = metrics.export(Metrics.Format.PROMETHEUS);
+        assertTrue(prometheus.contains("# TYPE plume_vertices gauge\nplume_vertices 5\n"));
+        assertTrue(prometheus.indexOf("plume_vertices") < prometheus.indexOf("plume_edges"));
+    }
+
+    @Test
+    void noneMeasuresNothing() {
+        var metrics = Metrics.none();
+        assertEquals(10, metrics.phase("join", () -> {
+            joins(10);
+            return 10;
+        }));
+        metrics.set("vertices", 5);
+        assertEquals(0, metrics.getPhases().size());
+        assertFalse(metrics.toJson().contains("vertices"));
+    }
+
+    @Test
+    void sharedDoesNotReportJVMWideCounts() {
+        var metrics = Metrics.shared();
+        metrics.phase("join", () -> joins(10));
+        assertEquals(1, metrics.getPhases().size());
+        assertFalse(metrics.toJson().contains("clock_joins"));
+        assertFalse(metrics.toJson().contains("dfs_visits"));
+        assertFalse(metrics.toPrometheus().contains("clock_joins"));
+        assertFalse(metrics.toPrometheus().contains("dfs_visits"));
+    }
+}